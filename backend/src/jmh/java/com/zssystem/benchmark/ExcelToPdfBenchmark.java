@@ -0,0 +1,93 @@
+package com.zssystem.benchmark;
+
+import com.zssystem.entity.Equipment;
+import com.zssystem.entity.EquipmentCheck;
+import com.zssystem.util.EquipmentCheckExcelGenerator;
+import com.zssystem.util.EquipmentCheckExcelToHtmlConverter;
+import com.zssystem.util.ExcelToPdfRenderer;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 点检表 PDF 基准测试：整月点检记录
+ * direct 为按工作表模型直接绘制，复用已解析的字体
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Djmh.include=ExcelToPdfBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExcelToPdfBenchmark {
+
+    private byte[] excel;
+    private TrueTypeFont font;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Equipment equipment = new Equipment();
+        equipment.setEquipmentNo("ZS-01");
+        equipment.setEquipmentName("注塑机");
+        List<EquipmentCheck> records = new ArrayList<>();
+        for (int day = 1; day <= 30; day++) {
+            EquipmentCheck check = new EquipmentCheck();
+            check.setCheckDate(LocalDate.of(2026, 4, day));
+            check.setCheckerName("张三");
+            check.setCircuitItem1(1);
+            check.setCircuitItem2(day % 7 == 0 ? 0 : 1);
+            check.setCircuitItem3(1);
+            check.setFrameItem1(1);
+            check.setOilItem1(1);
+            check.setPeripheralItem1(1);
+            records.add(check);
+        }
+        excel = EquipmentCheckExcelGenerator.generate(equipment, "2026-04", records);
+        try (InputStream in = ExcelToPdfRenderer.class.getResourceAsStream(ExcelToPdfRenderer.FONT_RESOURCE)) {
+            font = new TTFParser().parse(new RandomAccessReadBuffer(in.readAllBytes()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        font.close();
+    }
+
+    @Benchmark
+    public int direct() throws IOException {
+        try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(excel));
+             PDDocument document = new PDDocument();
+             ByteArrayOutputStream os = new ByteArrayOutputStream()) {
+            ExcelToPdfRenderer.drawFirstSheet(workbook, EquipmentCheckExcelToHtmlConverter.MAX_COLS, document,
+                    PDType0Font.load(document, font, true));
+            document.save(os);
+            return os.size();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.zssystem.benchmark;
+
+import com.zssystem.entity.Equipment;
+import com.zssystem.entity.ProcessFile;
+import com.zssystem.entity.ProcessFileDetail;
+import com.zssystem.util.ProcessFileExcelGenerator;
+import com.zssystem.util.ProcessFileExcelUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 工艺文件合成基准测试：4个签名 + 受控章 + 打印设置
+ * 底稿只读，compose 合成到输出流，composeBytes 为内存中的底稿合成到字节数组（渲染缓存使用的方式）
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Djmh.include=ProcessFileComposeBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProcessFileComposeBenchmark {
+
+    private static final String[] SIGNATURE_TYPES = {"SUBMIT", "APPROVE_LEVEL1", "APPROVE_LEVEL2", "APPROVE_LEVEL3"};
+
+    private Path workDir;
+    private Path baseExcel;
+    private byte[] baseBytes;
+    private List<ProcessFileExcelUtil.SignatureStamp> stamps;
+
+    @Setup
+    public void setup() throws IOException {
+        workDir = Files.createTempDirectory("process_compose_bench_");
+        ProcessFile processFile = new ProcessFile();
+        processFile.setFileNo("BENCH-001");
+        ProcessFileDetail detail = new ProcessFileDetail();
+        detail.setProductName("基准测试产品");
+        detail.setMaterialName("PP");
+        Equipment equipment = new Equipment();
+        equipment.setMachineNo("01");
+        equipment.setEquipmentNo("ZS-01");
+        baseExcel = Path.of(ProcessFileExcelGenerator.generateProcessFileExcel(
+                processFile, detail, equipment, workDir.toString()));
+        baseBytes = Files.readAllBytes(baseExcel);
+
+        stamps = new ArrayList<>();
+        for (String type : SIGNATURE_TYPES) {
+            Path image = workDir.resolve(type + ".png");
+            ImageIO.write(signatureImage(type.hashCode()), "png", image.toFile());
+            stamps.add(new ProcessFileExcelUtil.SignatureStamp(type, image.toString()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * 底稿只读，签名与受控章叠加后直接写入输出流
+     */
+    @Benchmark
+    public long compose() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream base = Files.newInputStream(baseExcel)) {
+            ProcessFileExcelUtil.composeProcessFileExcel(base, stamps, true, out);
+        }
+        return out.size();
+    }
+
+    /**
+     * 底稿已在内存中，合成结果为字节数组
+     */
+    @Benchmark
+    public int composeBytes() throws IOException {
+        return ProcessFileExcelUtil.composeProcessFileExcel(baseBytes, stamps, true).length;
+    }
+
+    /**
+     * 模拟手写签名：白底上的几条折线，四周留白供裁剪
+     */
+    private static BufferedImage signatureImage(int seed) {
+        BufferedImage img = new BufferedImage(600, 240, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, 600, 240);
+            g.setColor(Color.BLACK);
+            g.setStroke(new BasicStroke(4f));
+            java.util.Random random = new java.util.Random(seed);
+            int x = 120;
+            int y = 120;
+            for (int i = 0; i < 20; i++) {
+                int nx = 120 + random.nextInt(360);
+                int ny = 70 + random.nextInt(100);
+                g.drawLine(x, y, nx, ny);
+                x = nx;
+                y = ny;
+            }
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+}
@@ -0,0 +1,128 @@
+package com.zssystem.benchmark;
+
+import com.zssystem.util.schedule.ScheduleEngine;
+import com.zssystem.util.schedule.SundayRestCalendar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 排程引擎基准测试：N 个机台 × M 个产品，一次排完整月
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Djmh.include=ScheduleEngineBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScheduleEngineBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int machines;
+
+    @Param({"1", "10", "50"})
+    private int products;
+
+    private int[][] quantities;
+    private int[][] capacities;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        quantities = new int[machines][products];
+        capacities = new int[machines][products];
+        for (int m = 0; m < machines; m++) {
+            for (int p = 0; p < products; p++) {
+                capacities[m][p] = 500 + random.nextInt(2000);
+                quantities[m][p] = capacities[m][p] * (1 + random.nextInt(8)) - random.nextInt(400);
+            }
+        }
+        startDate = LocalDate.of(2026, 3, 2);
+        endDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
+    }
+
+    @Benchmark
+    public void engine(Blackhole bh) {
+        for (int m = 0; m < machines; m++) {
+            ScheduleEngine.Plan plan = ScheduleEngine.plan(quantities[m], capacities[m],
+                    SundayRestCalendar.INSTANCE, startDate, endDate);
+            plan.forEachDay((dayNumber, date, productIndex, remaining) -> {
+                bh.consume(date);
+                bh.consume(remaining);
+            });
+            bh.consume(plan.isCanCompleteTarget());
+        }
+    }
+
+    @Benchmark
+    public void engineWithoutExpansion(Blackhole bh) {
+        for (int m = 0; m < machines; m++) {
+            ScheduleEngine.Plan plan = ScheduleEngine.plan(quantities[m], capacities[m],
+                    SundayRestCalendar.INSTANCE, startDate, endDate);
+            bh.consume(plan.getDayCount());
+            bh.consume(plan.isCanCompleteTarget());
+        }
+    }
+
+    /**
+     * 原 generateSchedule 中逐日遍历的算法（去掉数据库写入），作为对照
+     */
+    @Benchmark
+    public void legacyDayByDay(Blackhole bh) {
+        for (int m = 0; m < machines; m++) {
+            int[] qty = quantities[m];
+            int[] cap = capacities[m];
+            int workDays = 0;
+            for (LocalDate d = startDate; !d.isAfter(endDate); d = d.plusDays(1)) {
+                if (d.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                    workDays++;
+                }
+            }
+            int index = 0;
+            int productDays = 0;
+            int dayNumber = 0;
+            LocalDate date = startDate;
+            while (date.isBefore(endDate.plusDays(1)) && index < qty.length) {
+                if (dayNumber >= workDays) {
+                    break;
+                }
+                int remaining = qty[index] - cap[index] * productDays;
+                if (remaining <= 0) {
+                    if (index < qty.length - 1) {
+                        index++;
+                        productDays = 0;
+                        continue;
+                    }
+                    break;
+                }
+                if (date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                    date = date.plusDays(1);
+                    continue;
+                }
+                dayNumber++;
+                bh.consume(date);
+                bh.consume(remaining);
+                productDays++;
+                date = date.plusDays(1);
+            }
+        }
+    }
+}
@@ -31,7 +31,8 @@ public class MyBatisPlusConfig {
 
             @Override
             public void updateFill(MetaObject metaObject) {
-                this.strictUpdateFill(metaObject, "updateTime", LocalDateTime.class, LocalDateTime.now());
+                // 先查后改的实体带着旧的 updateTime，strictUpdateFill 不覆盖非空值，会把旧值写回，这里始终刷新
+                this.setFieldValByName("updateTime", LocalDateTime.now(), metaObject);
             }
         };
     }
@@ -4,17 +4,26 @@ import com.zssystem.common.Result;
 import com.zssystem.service.EquipmentQrService;
 import com.zssystem.service.EquipmentCheckService;
 import com.zssystem.service.ProcessFileService;
+import com.zssystem.util.DownloadUtil;
+import com.zssystem.vo.DownloadContentVO;
 import com.zssystem.vo.EquipmentQrViewVO;
+import com.zssystem.vo.QrArtifactVO;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 
 /**
  * 设备扫码查看 - 公开接口（微信扫码无需登录）
@@ -76,15 +85,9 @@ public class EquipmentQrController {
      * 获取设备当月点检表 SVG（公开，扫码后查看）
      */
     @GetMapping("/{equipmentId}/check/svg")
-    public ResponseEntity<byte[]> getCheckSvg(@PathVariable Long equipmentId) {
+    public ResponseEntity<byte[]> getCheckSvg(@PathVariable Long equipmentId, WebRequest request) {
         try {
-            byte[] svg = equipmentQrService.getCheckSvg(equipmentId);
-            String fileName = "点检表_" + equipmentQrService.getViewData(equipmentId).getCheckMonth() + ".svg";
-            String encoded = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replaceAll("\\+", "%20");
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("image/svg+xml"));
-            headers.add("Content-Disposition", "inline; filename*=UTF-8''" + encoded);
-            return ResponseEntity.ok().headers(headers).body(svg);
+            return artifactResponse(equipmentQrService.getCheckSvgArtifact(equipmentId), request);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -94,20 +97,13 @@ public class EquipmentQrController {
      * 获取设备启用的工艺卡 SVG（仅当该设备有启用工艺卡时，公开，扫码后查看）
      */
     @GetMapping("/{equipmentId}/process-file/svg")
-    public ResponseEntity<byte[]> getProcessFileSvg(@PathVariable Long equipmentId) {
+    public ResponseEntity<byte[]> getProcessFileSvg(@PathVariable Long equipmentId, WebRequest request) {
         try {
-            EquipmentQrViewVO data = equipmentQrService.getViewData(equipmentId);
-            if (data.getEnabledProcessFile() == null) {
+            QrArtifactVO artifact = equipmentQrService.getProcessFileSvgArtifact(equipmentId);
+            if (artifact == null) {
                 return ResponseEntity.badRequest().build();
             }
-            byte[] svg = equipmentQrService.getProcessFileSvg(equipmentId);
-            String fileName = (data.getEnabledProcessFile().getFileName() != null ? data.getEnabledProcessFile().getFileName() : "工艺卡")
-                    .replaceAll("\\.(xls|xlsx)?$", "") + ".svg";
-            String encoded = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replaceAll("\\+", "%20");
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("image/svg+xml"));
-            headers.add("Content-Disposition", "inline; filename*=UTF-8''" + encoded);
-            return ResponseEntity.ok().headers(headers).body(svg);
+            return artifactResponse(artifact, request);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -115,48 +111,77 @@ public class EquipmentQrController {
 
     /**
      * 获取设备当月交接班记录表 SVG（公开，扫码后查看，整月所有记录）
-     * @param month 月份 yyyy-MM，不传则默认当月
+     * @param month 月份 yyyy-MM，不传则默认当月；格式不对或晚于当月时返回 400
      */
     @GetMapping("/{equipmentId}/handover/svg")
     public ResponseEntity<byte[]> getHandoverSvg(
             @PathVariable Long equipmentId,
-            @RequestParam(required = false) String month) {
+            @RequestParam(required = false) String month,
+            WebRequest request) {
+        // 月份作为缓存键的一部分，先规范化，避免任意字符串占用缓存
+        YearMonth yearMonth;
+        try {
+            yearMonth = (month != null && !month.isBlank()) ? YearMonth.parse(month.trim()) : YearMonth.now();
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (yearMonth.isAfter(YearMonth.now())) {
+            return ResponseEntity.badRequest().build();
+        }
         try {
-            String recordMonth = (month != null && !month.isBlank()) ? month : YearMonth.now().toString();
-            byte[] svg = equipmentQrService.getHandoverSvg(equipmentId, recordMonth);
-            String fileName = "交班记录表_" + recordMonth + ".svg";
-            String encoded = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replaceAll("\\+", "%20");
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("image/svg+xml"));
-            headers.add("Content-Disposition", "inline; filename*=UTF-8''" + encoded);
-            return ResponseEntity.ok().headers(headers).body(svg);
+            String recordMonth = yearMonth.toString();
+            return artifactResponse(equipmentQrService.getHandoverSvgArtifact(equipmentId, recordMonth), request);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 
     /**
-     * 下载设备启用的工艺卡 Excel（仅当该设备有启用工艺卡时）
+     * 输出扫码产物：带 ETag/Last-Modified，浏览器重复扫码时内容未变则返回 304
+     */
+    private ResponseEntity<byte[]> artifactResponse(QrArtifactVO artifact, WebRequest request) {
+        if (request.checkNotModified(artifact.getEtag(), artifact.getLastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(artifact.getEtag())
+                    .lastModified(artifact.getLastModified())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        String encoded = URLEncoder.encode(artifact.getFileName(), StandardCharsets.UTF_8).replaceAll("\\+", "%20");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(artifact.getContentType()));
+        headers.add("Content-Disposition", "inline; filename*=UTF-8''" + encoded);
+        return ResponseEntity.ok()
+                .headers(headers)
+                .eTag(artifact.getEtag())
+                .lastModified(artifact.getLastModified())
+                .cacheControl(CacheControl.noCache())
+                .body(artifact.getBody());
+    }
+
+    /**
+     * 下载设备启用的工艺卡 Excel（仅当该设备有启用工艺卡时，流式输出，支持断点续传）
      */
     @GetMapping("/{equipmentId}/process-file/download")
-    public ResponseEntity<byte[]> downloadProcessFile(@PathVariable Long equipmentId) {
+    public void downloadProcessFile(@PathVariable Long equipmentId, HttpServletRequest request,
+                                    HttpServletResponse response) throws IOException {
         EquipmentQrViewVO data = equipmentQrService.getViewData(equipmentId);
         if (data.getEnabledProcessFile() == null) {
-            return ResponseEntity.badRequest().build();
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
         }
+        DownloadContentVO content;
         try {
-            byte[] content = processFileService.downloadProcessFile(data.getEnabledProcessFile().getId());
-            String fileName = data.getEnabledProcessFile().getFileName();
-            if (fileName == null || !fileName.toLowerCase().endsWith(".xlsx")) {
-                fileName = (fileName != null ? fileName.replaceAll("\\.(xls|xlsx)?$", "") : "工艺卡") + ".xlsx";
-            }
-            String encoded = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replaceAll("\\+", "%20");
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.add("Content-Disposition", "attachment; filename*=UTF-8''" + encoded);
-            return ResponseEntity.ok().headers(headers).body(content);
+            content = processFileService.getProcessFileDownload(data.getEnabledProcessFile().getId());
         } catch (IOException e) {
-            return ResponseEntity.internalServerError().build();
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            return;
+        }
+        String fileName = data.getEnabledProcessFile().getFileName();
+        if (fileName == null || !fileName.toLowerCase().endsWith(".xlsx")) {
+            fileName = (fileName != null ? fileName.replaceAll("\\.(xls|xlsx)?$", "") : "工艺卡") + ".xlsx";
         }
+        DownloadUtil.writeBytes(content.getBody(), content.getEtag(), 0, MediaType.APPLICATION_OCTET_STREAM_VALUE,
+                fileName, false, request, response);
     }
 }
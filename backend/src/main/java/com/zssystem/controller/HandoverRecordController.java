@@ -6,18 +6,24 @@ import com.zssystem.common.Result;
 import com.zssystem.dto.HandoverRecordQueryDTO;
 import com.zssystem.dto.HandoverRecordSaveDTO;
 import com.zssystem.service.HandoverRecordService;
+import com.zssystem.util.DownloadUtil;
 import com.zssystem.vo.HandoverRecordVO;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.List;
 
 @RestController
@@ -41,21 +47,19 @@ public class HandoverRecordController {
     }
 
     /**
-     * 获取交接班记录照片（新增时提交的拍照）
+     * 获取交接班记录照片（新增时提交的拍照，流式输出），thumb=true 时返回缩略图（记录列表查看用）
      */
     @GetMapping("/{id}/photo")
-    public ResponseEntity<byte[]> getRecordPhoto(@PathVariable Long id) {
-        try {
-            byte[] bytes = handoverRecordService.getRecordPhoto(id);
-            if (bytes == null || bytes.length == 0) {
-                return ResponseEntity.notFound().build();
-            }
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.IMAGE_JPEG);
-            return ResponseEntity.ok().headers(headers).body(bytes);
-        } catch (Exception e) {
-            throw new RuntimeException(e.getMessage() != null ? e.getMessage() : "获取照片失败", e);
+    public void getRecordPhoto(@PathVariable Long id, @RequestParam(defaultValue = "false") boolean thumb,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path photo = handoverRecordService.getRecordPhotoFile(id, thumb);
+        if (photo == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
+        String contentType = MediaTypeFactory.getMediaType(photo.getFileName().toString())
+                .orElse(MediaType.IMAGE_JPEG).toString();
+        DownloadUtil.writeFile(photo, contentType, null, true, request, response);
     }
 
     @PostMapping
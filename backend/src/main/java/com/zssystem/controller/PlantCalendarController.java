@@ -0,0 +1,48 @@
+package com.zssystem.controller;
+
+import com.zssystem.common.Result;
+import com.zssystem.dto.PlantCalendarSaveDTO;
+import com.zssystem.service.PlantCalendarService;
+import com.zssystem.vo.PlantCalendarVO;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/production/calendar")
+@Validated
+public class PlantCalendarController {
+
+    @Autowired
+    private PlantCalendarService calendarService;
+
+    @GetMapping("/list")
+    public Result<List<PlantCalendarVO>> getCalendarList(
+            @RequestParam(required = false) LocalDate startDate,
+            @RequestParam(required = false) LocalDate endDate,
+            @RequestParam(required = false) String machineNo) {
+        return Result.success(calendarService.getCalendarList(startDate, endDate, machineNo));
+    }
+
+    @PostMapping
+    public Result<Void> createCalendarDay(@Valid @RequestBody PlantCalendarSaveDTO saveDTO) {
+        calendarService.createCalendarDay(saveDTO);
+        return Result.success();
+    }
+
+    @PutMapping("/{id}")
+    public Result<Void> updateCalendarDay(@PathVariable Long id, @Valid @RequestBody PlantCalendarSaveDTO saveDTO) {
+        calendarService.updateCalendarDay(id, saveDTO);
+        return Result.success();
+    }
+
+    @DeleteMapping("/{id}")
+    public Result<Void> deleteCalendarDay(@PathVariable Long id) {
+        calendarService.deleteCalendarDay(id);
+        return Result.success();
+    }
+}
@@ -0,0 +1,45 @@
+package com.zssystem.controller;
+
+import com.zssystem.service.impl.PreviewImageCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预览图片 - 公开接口（扫码预览页同样引用）
+ * 地址中的哈希即图片内容摘要，内容不变地址不变，浏览器可长期缓存
+ */
+@RestController
+@RequestMapping("/api/qr/preview-image")
+public class PreviewImageController {
+
+    @Autowired
+    private PreviewImageCache previewImageCache;
+
+    @GetMapping("/{hash}")
+    public ResponseEntity<byte[]> getImage(@PathVariable String hash, WebRequest request) {
+        String etag = "\"" + hash + "\"";
+        CacheControl cacheControl = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        PreviewImageCache.Image image = previewImageCache.get(hash);
+        if (image == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(image.getMimeType()))
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .body(image.getData());
+    }
+}
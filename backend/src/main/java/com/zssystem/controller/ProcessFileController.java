@@ -7,8 +7,11 @@ import com.zssystem.dto.ProcessFileApprovalDTO;
 import com.zssystem.dto.ProcessFileQueryDTO;
 import com.zssystem.dto.ProcessFileUploadDTO;
 import com.zssystem.dto.ProcessFileSignatureDTO;
+import com.zssystem.service.PdfRenderService;
 import com.zssystem.service.ProcessFileService;
 import com.zssystem.service.ProcessFileSignatureService;
+import com.zssystem.util.DownloadUtil;
+import com.zssystem.vo.DownloadContentVO;
 import com.zssystem.vo.ProcessFileVO;
 import com.zssystem.vo.ProcessFileSignatureVO;
 import jakarta.validation.Valid;
@@ -21,8 +24,11 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 工艺文件Controller
@@ -38,6 +44,9 @@ public class ProcessFileController {
     @Autowired
     private ProcessFileSignatureService signatureService;
 
+    @Autowired
+    private PdfRenderService pdfRenderService;
+
     /**
      * 分页查询工艺文件列表
      */
@@ -262,64 +271,50 @@ public class ProcessFileController {
     }
 
     /**
-     * 下载工艺文件
+     * 下载工艺文件（流式输出，支持 ETag 与断点续传）
      */
     @GetMapping("/{id}/download")
-    public ResponseEntity<byte[]> download(@PathVariable Long id) {
+    public void download(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
         try {
             System.out.println("收到下载请求，文件ID: " + id);
             
             ProcessFileVO fileInfo = processFileService.getProcessFileById(id);
             if (fileInfo == null) {
                 System.err.println("文件信息不存在，ID: " + id);
-                return ResponseEntity.notFound().build();
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
             }
             
-            System.out.println("文件信息: " + fileInfo.getFileName());
-            
-            byte[] fileContent = processFileService.downloadProcessFile(id);
-            
-            if (fileContent == null || fileContent.length == 0) {
+            DownloadContentVO content = processFileService.getProcessFileDownload(id);
+            if (content.getBody() == null || content.getBody().length == 0) {
                 System.err.println("文件内容为空");
-                return ResponseEntity.internalServerError().build();
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                return;
             }
             
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            
-            // 处理中文文件名编码，使用RFC 5987格式支持中文文件名，默认 .xlsx 格式
+            // 默认 .xlsx 格式，中文文件名按 RFC 5987 编码
             String fileName = fileInfo.getFileName();
             if (fileName == null || fileName.isEmpty()) {
                 fileName = "工艺文件_" + id + ".xlsx";
             } else if (!fileName.toLowerCase().endsWith(".xlsx")) {
                 fileName = fileName.replaceAll("\\.(xls|xlsx)?$", "") + ".xlsx";
             }
-            
-            String encodedFileName = java.net.URLEncoder.encode(fileName, "UTF-8")
-                    .replaceAll("\\+", "%20");
-            // 使用RFC 5987格式，同时兼容旧浏览器
-            headers.add("Content-Disposition", 
-                    "attachment; filename=\"" + fileName + "\"; filename*=UTF-8''" + encodedFileName);
-            
-            System.out.println("文件下载成功，大小: " + fileContent.length + " 字节");
-            
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(fileContent);
+            DownloadUtil.writeBytes(content.getBody(), content.getEtag(), 0, MediaType.APPLICATION_OCTET_STREAM_VALUE,
+                    fileName, false, request, response);
         } catch (Exception e) {
             System.err.println("下载文件失败: " + e.getMessage());
             e.printStackTrace();
+            if (response.isCommitted()) {
+                return;
+            }
             
             // 返回JSON格式的错误信息，方便前端解析
             String errorMessage = e.getMessage() != null ? e.getMessage() : "下载失败";
             String jsonError = "{\"code\":500,\"message\":\"" + errorMessage.replace("\"", "\\\"") + "\"}";
-            
-            HttpHeaders errorHeaders = new HttpHeaders();
-            errorHeaders.setContentType(org.springframework.http.MediaType.APPLICATION_JSON);
-            
-            return ResponseEntity.status(500)
-                    .headers(errorHeaders)
-                    .body(jsonError.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            response.reset();
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(jsonError.getBytes(java.nio.charset.StandardCharsets.UTF_8));
         }
     }
 
@@ -335,6 +330,14 @@ public class ProcessFileController {
         return Result.success(PageResult.of(page));
     }
 
+    /**
+     * PDF 渲染统计（渲染次数、失败数、排队数、耗时 p50/p99）
+     */
+    @GetMapping("/pdf-render/metrics")
+    public Result<Map<String, Object>> getPdfRenderMetrics() {
+        return Result.success(pdfRenderService.getMetrics());
+    }
+
     /**
      * 获取待审批的工艺文件列表
      */
@@ -6,17 +6,23 @@ import com.zssystem.common.Result;
 import com.zssystem.dto.ProductionRecordQueryDTO;
 import com.zssystem.dto.ProductionRecordSaveDTO;
 import com.zssystem.service.ProductionRecordService;
+import com.zssystem.service.ProductionRollupService;
 import com.zssystem.util.ExcelUtil;
 import com.zssystem.vo.ProductionRecordVO;
 import com.zssystem.vo.ProductionStatisticsVO;
 import com.zssystem.vo.excel.ProductionRecordExportVO;
+import jakarta.annotation.PostConstruct;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
 
 @RestController
 @RequestMapping("/api/production/record")
@@ -26,6 +32,23 @@ public class ProductionRecordController {
     @Autowired
     private ProductionRecordService recordService;
 
+    @Autowired
+    private ProductionRollupService rollupService;
+
+    /** 同时进行的导出数上限：每个导出在整个下载期间占用两个数据库连接（流式游标 + 关联数据装配） */
+    @Value("${production.export.max-concurrent:4}")
+    private int exportMaxConcurrent;
+
+    private Semaphore exportPermits;
+
+    @PostConstruct
+    public void initExportPermits() {
+        if (exportMaxConcurrent <= 0) {
+            throw new IllegalStateException("production.export.max-concurrent 必须大于 0，当前为 " + exportMaxConcurrent);
+        }
+        exportPermits = new Semaphore(exportMaxConcurrent);
+    }
+
     @GetMapping("/list")
     public Result<PageResult<ProductionRecordVO>> getRecordList(@Validated ProductionRecordQueryDTO queryDTO) {
         IPage<ProductionRecordVO> page = recordService.getRecordList(queryDTO);
@@ -65,10 +88,36 @@ public class ProductionRecordController {
         return Result.success(statistics);
     }
 
+    /**
+     * 在后台回填生产日汇总（不传日期时回填全部历史），进度见 /statistics/rollup-status
+     */
+    @PostMapping("/statistics/backfill")
+    public ResponseEntity<Result<Map<String, Object>>> backfillStatistics(
+            @RequestParam(required = false) LocalDate startDate,
+            @RequestParam(required = false) LocalDate endDate) {
+        return ResponseEntity.accepted().body(Result.success(rollupService.startBackfill(startDate, endDate)));
+    }
+
+    /**
+     * 生产日汇总状态：增量任务高水位及回填进度
+     */
+    @GetMapping("/statistics/rollup-status")
+    public Result<Map<String, Object>> getRollupStatus() {
+        return Result.success(rollupService.getStatus());
+    }
+
     @GetMapping("/export")
     public void exportRecord(@Validated ProductionRecordQueryDTO queryDTO) {
-        List<ProductionRecordExportVO> exportData = recordService.getExportData(queryDTO);
-        String fileName = ExcelUtil.generateFileName("生产管理_生产记录");
-        ExcelUtil.exportExcel(exportData, fileName, "生产记录", ProductionRecordExportVO.class);
+        // 在设置下载响应、获取数据库连接之前判断，满额时直接拒绝，不排队占用连接
+        if (!exportPermits.tryAcquire()) {
+            throw new RuntimeException("导出任务较多，请稍后重试");
+        }
+        try {
+            String fileName = ExcelUtil.generateFileName("生产管理_生产记录");
+            ExcelUtil.exportExcelStream(fileName, "生产记录", ProductionRecordExportVO.class,
+                    consumer -> recordService.exportRecordData(queryDTO, consumer));
+        } finally {
+            exportPermits.release();
+        }
     }
 }
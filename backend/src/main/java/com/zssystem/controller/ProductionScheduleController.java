@@ -6,6 +6,7 @@ import com.zssystem.service.ProductionScheduleService;
 import com.zssystem.util.ExcelUtil;
 import com.zssystem.vo.ProductionScheduleVO;
 import com.zssystem.vo.ProductionScheduleDetailVO;
+import com.zssystem.vo.ScheduleRegenerateResultVO;
 import com.zssystem.vo.excel.ProductionScheduleExportVO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.validation.annotation.Validated;
@@ -25,11 +26,18 @@ public class ProductionScheduleController {
     @PostMapping("/generate")
     public Result<ProductionScheduleVO> generateSchedule(
             @RequestParam String machineNo,
-            @RequestParam LocalDate startDate) {
-        ProductionScheduleVO vo = scheduleService.generateSchedule(machineNo, startDate);
+            @RequestParam LocalDate startDate,
+            @RequestParam(required = false) LocalDate endDate) {
+        ProductionScheduleVO vo = scheduleService.generateSchedule(machineNo, startDate, endDate);
         return Result.success(vo);
     }
 
+    @PostMapping("/generate-all")
+    public Result<List<ScheduleRegenerateResultVO>> regenerateAllSchedules(@RequestParam LocalDate startDate) {
+        List<ScheduleRegenerateResultVO> results = scheduleService.regenerateAllSchedules(startDate);
+        return Result.success(results);
+    }
+
     @GetMapping("/list")
     public Result<List<ProductionScheduleVO>> getScheduleList(@Validated ProductionScheduleQueryDTO queryDTO) {
         List<ProductionScheduleVO> list = scheduleService.getScheduleList(queryDTO);
@@ -49,10 +57,10 @@ public class ProductionScheduleController {
         if (queryDTO.getStartDate() == null) {
             throw new RuntimeException("排程开始日期不能为空");
         }
-        List<ProductionScheduleExportVO> exportData = scheduleService.getExportData(queryDTO);
         String fileName = ExcelUtil.generateFileName("生产管理_生产计划排程");
-        // 使用从前端传递的日期列表设置Excel列标题和数据
-        ExcelUtil.exportExcel(exportData, fileName, "生产计划排程", ProductionScheduleExportVO.class,
+        // 按机台逐行写入；使用从前端传递的日期列表设置Excel列标题和数据
+        ExcelUtil.exportExcelStream(fileName, "生产计划排程", ProductionScheduleExportVO.class,
+                consumer -> scheduleService.exportScheduleData(queryDTO, consumer),
                 new com.zssystem.util.ScheduleExcelWriteHandler(queryDTO.getDateList()),
                 new com.zssystem.util.ScheduleDataWriteHandler(queryDTO.getDateList()));
     }
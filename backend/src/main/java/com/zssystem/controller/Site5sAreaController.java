@@ -5,25 +5,33 @@ import com.zssystem.common.PageResult;
 import com.zssystem.common.Result;
 import com.zssystem.dto.Site5sAreaQueryDTO;
 import com.zssystem.dto.Site5sAreaSaveDTO;
+import com.zssystem.service.PhotoIngestService;
 import com.zssystem.service.Site5sAreaService;
+import com.zssystem.util.DownloadUtil;
 import com.zssystem.util.SecurityUtil;
 import com.zssystem.vo.AreaDailyStatusVO;
 import com.zssystem.vo.InjectionLeaderVO;
 import com.zssystem.vo.LightingStatsVO;
 import com.zssystem.vo.Site5sAreaVO;
 import com.zssystem.vo.Site5sAreaPhotoVO;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/site5s/area")
@@ -33,6 +41,9 @@ public class Site5sAreaController {
     @Autowired
     private Site5sAreaService areaService;
 
+    @Autowired
+    private PhotoIngestService photoIngestService;
+
     /**
      * 是否可管理区域（仅注塑部经理可新增/编辑/删除）
      */
@@ -78,13 +89,20 @@ public class Site5sAreaController {
     }
 
     /**
-     * 获取日期范围内的拍照任务（按日期每天一条记录）
+     * 获取日期范围内的拍照任务（按日期每天一条记录），结束日期早于开始日期或范围超过一年时返回 400
      */
     @GetMapping("/tasks-range")
-    public Result<List<AreaDailyStatusVO>> getTasksRange(
+    public ResponseEntity<Result<List<AreaDailyStatusVO>>> getTasksRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        return Result.success(areaService.getTasksRange(startDate, endDate));
+        if (endDate.isBefore(startDate)) {
+            return ResponseEntity.badRequest().body(Result.error(400, "结束日期不能早于开始日期"));
+        }
+        if (ChronoUnit.DAYS.between(startDate, endDate) + 1 > Site5sAreaService.TASKS_RANGE_MAX_DAYS) {
+            return ResponseEntity.badRequest().body(
+                    Result.error(400, "查询范围不能超过" + Site5sAreaService.TASKS_RANGE_MAX_DAYS + "天"));
+        }
+        return ResponseEntity.ok(Result.success(areaService.getTasksRange(startDate, endDate)));
     }
 
     /**
@@ -154,17 +172,27 @@ public class Site5sAreaController {
     }
 
     /**
-     * 获取照片
+     * 获取照片，thumb=true 时返回缩略图（任务看板、记录列表用）
      */
     @GetMapping("/photo/{id}")
-    public ResponseEntity<byte[]> getPhoto(@PathVariable Long id) {
-        byte[] bytes = areaService.getPhotoBytes(id);
-        if (bytes == null || bytes.length == 0) {
-            return ResponseEntity.notFound().build();
+    public void getPhoto(@PathVariable Long id, @RequestParam(defaultValue = "false") boolean thumb,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path photo = areaService.getPhotoFile(id, thumb);
+        if (photo == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.IMAGE_JPEG);
-        return ResponseEntity.ok().headers(headers).body(bytes);
+        String contentType = MediaTypeFactory.getMediaType(photo.getFileName().toString())
+                .orElse(MediaType.IMAGE_JPEG).toString();
+        DownloadUtil.writeFile(photo, contentType, null, true, request, response);
+    }
+
+    /**
+     * 照片后台处理统计（处理张数、压缩前后字节数、排队数）
+     */
+    @GetMapping("/photo-ingest/metrics")
+    public Result<Map<String, Object>> getPhotoIngestMetrics() {
+        return Result.success(photoIngestService.getMetrics());
     }
 
     /**
@@ -0,0 +1,19 @@
+package com.zssystem.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class PlantCalendarSaveDTO {
+    @NotNull(message = "日期不能为空")
+    private LocalDate calendarDate;
+
+    @NotNull(message = "类型不能为空")
+    private Integer dayType; // 1-休息（节假日/停机），2-上班（加班/调班）
+
+    private String machineNo; // 机台号（为空表示全厂）
+
+    private String remark;
+}
@@ -0,0 +1,34 @@
+package com.zssystem.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@TableName("plant_calendar")
+public class PlantCalendar {
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    @TableField("calendar_date")
+    private LocalDate calendarDate; // 日期
+
+    @TableField("day_type")
+    private Integer dayType; // 1-休息（节假日/停机），2-上班（加班/调班）
+
+    @TableField("machine_no")
+    private String machineNo; // 机台号（为空表示全厂）
+
+    private String remark;
+
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+
+    @TableLogic
+    private Integer deleted;
+}
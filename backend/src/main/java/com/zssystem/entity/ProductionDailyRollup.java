@@ -0,0 +1,42 @@
+package com.zssystem.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@TableName("production_daily_rollup")
+public class ProductionDailyRollup {
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    @TableField("production_date")
+    private LocalDate productionDate; // 生产日期
+
+    @TableField("equipment_id")
+    private Long equipmentId; // 设备ID（0表示未关联设备）
+
+    @TableField("product_name")
+    private String productName; // 产品名称（空串表示未填写）
+
+    @TableField("record_count")
+    private Integer recordCount; // 生产记录条数
+
+    @TableField("total_quantity")
+    private Integer totalQuantity; // 总产量
+
+    @TableField("total_defect_quantity")
+    private Integer totalDefectQuantity; // 总不良品数量
+
+    @TableField(value = "defect_rate", insertStrategy = FieldStrategy.NEVER, updateStrategy = FieldStrategy.NEVER)
+    private BigDecimal defectRate; // 不良率（%，数据库生成列）
+
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
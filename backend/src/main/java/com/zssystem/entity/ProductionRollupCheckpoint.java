@@ -0,0 +1,22 @@
+package com.zssystem.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@TableName("production_rollup_checkpoint")
+public class ProductionRollupCheckpoint {
+    @TableId(value = "job_name", type = IdType.INPUT)
+    private String jobName; // 任务名称
+
+    @TableField("last_update_time")
+    private LocalDateTime lastUpdateTime; // 已处理记录的最大更新时间
+
+    @TableField("last_record_id")
+    private Long lastRecordId; // 同一更新时间下已处理的最大记录ID
+
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
@@ -2,6 +2,32 @@ package com.zssystem.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zssystem.entity.HandoverRecord;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface HandoverRecordMapper extends BaseMapper<HandoverRecord> {
+
+    /**
+     * 照片已过期的记录（只取 id、photo_path），按 ID 分批读取；走 photo_path 索引，只扫描仍有照片的行
+     */
+    @Select("SELECT id, photo_path FROM handover_record " +
+            "WHERE photo_path IS NOT NULL AND photo_path <> '' AND create_time < #{expireBefore} " +
+            "AND id > #{afterId} AND deleted = 0 ORDER BY id LIMIT #{limit}")
+    List<HandoverRecord> selectExpiredPhotos(@Param("expireBefore") LocalDateTime expireBefore,
+                                             @Param("afterId") long afterId,
+                                             @Param("limit") int limit);
+
+    /**
+     * 批量清除照片路径
+     */
+    @Update("<script>" +
+            "UPDATE handover_record SET photo_path = NULL WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int clearPhotoPaths(@Param("ids") Collection<Long> ids);
 }
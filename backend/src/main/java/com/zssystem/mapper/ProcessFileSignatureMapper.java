@@ -7,6 +7,8 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.List;
+
 /**
  * 工艺文件电子签名Mapper
  */
@@ -24,4 +26,10 @@ public interface ProcessFileSignatureMapper extends BaseMapper<ProcessFileSignat
      */
     @Delete("DELETE FROM process_file_signature WHERE file_id = #{fileId}")
     int deletePhysicalByFileId(@Param("fileId") Long fileId);
+
+    /**
+     * 指定工艺文件全部签名的图片路径（含已逻辑删除的，物理删除前用于清理图片文件）
+     */
+    @Select("SELECT signature_image_path FROM process_file_signature WHERE file_id = #{fileId}")
+    List<String> selectImagePathsByFileId(@Param("fileId") Long fileId);
 }
@@ -0,0 +1,88 @@
+package com.zssystem.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zssystem.entity.ProductionDailyRollup;
+import com.zssystem.vo.ProductionStatisticsVO;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Mapper
+public interface ProductionDailyRollupMapper extends BaseMapper<ProductionDailyRollup> {
+
+    /**
+     * 按差值累加某天某设备某产品的汇总（行不存在时插入）
+     */
+    @Insert("INSERT INTO production_daily_rollup (production_date, equipment_id, product_name, " +
+            "record_count, total_quantity, total_defect_quantity) " +
+            "VALUES (#{productionDate}, #{equipmentId}, #{productName}, #{recordDelta}, #{quantityDelta}, #{defectDelta}) " +
+            "ON DUPLICATE KEY UPDATE record_count = record_count + VALUES(record_count), " +
+            "total_quantity = total_quantity + VALUES(total_quantity), " +
+            "total_defect_quantity = total_defect_quantity + VALUES(total_defect_quantity)")
+    int applyDelta(@Param("productionDate") LocalDate productionDate,
+                   @Param("equipmentId") Long equipmentId,
+                   @Param("productName") String productName,
+                   @Param("recordDelta") int recordDelta,
+                   @Param("quantityDelta") int quantityDelta,
+                   @Param("defectDelta") int defectDelta);
+
+    @Select("<script>" +
+            "SELECT DATE_FORMAT(production_date, '%Y-%m-%d') AS dimensionValue, " +
+            "SUM(total_quantity) AS totalQuantity, SUM(total_defect_quantity) AS totalDefectQuantity " +
+            "FROM production_daily_rollup WHERE 1 = 1" +
+            "<if test='startDate != null'> AND production_date &gt;= #{startDate}</if>" +
+            "<if test='endDate != null'> AND production_date &lt;= #{endDate}</if>" +
+            " GROUP BY production_date HAVING SUM(record_count) &gt; 0 ORDER BY production_date" +
+            "</script>")
+    List<ProductionStatisticsVO> sumByDate(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * 按设备汇总，dimensionValue 为设备ID
+     */
+    @Select("<script>" +
+            "SELECT CAST(equipment_id AS CHAR) AS dimensionValue, " +
+            "SUM(total_quantity) AS totalQuantity, SUM(total_defect_quantity) AS totalDefectQuantity " +
+            "FROM production_daily_rollup WHERE 1 = 1" +
+            "<if test='startDate != null'> AND production_date &gt;= #{startDate}</if>" +
+            "<if test='endDate != null'> AND production_date &lt;= #{endDate}</if>" +
+            " GROUP BY equipment_id HAVING SUM(record_count) &gt; 0 ORDER BY totalQuantity DESC" +
+            "</script>")
+    List<ProductionStatisticsVO> sumByEquipment(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Select("<script>" +
+            "SELECT product_name AS dimensionValue, " +
+            "SUM(total_quantity) AS totalQuantity, SUM(total_defect_quantity) AS totalDefectQuantity " +
+            "FROM production_daily_rollup WHERE 1 = 1" +
+            "<if test='startDate != null'> AND production_date &gt;= #{startDate}</if>" +
+            "<if test='endDate != null'> AND production_date &lt;= #{endDate}</if>" +
+            " GROUP BY product_name HAVING SUM(record_count) &gt; 0 ORDER BY totalQuantity DESC" +
+            "</script>")
+    List<ProductionStatisticsVO> sumByProduct(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * 删除指定日期的全部汇总（重算前调用）
+     */
+    @Delete("<script>" +
+            "DELETE FROM production_daily_rollup WHERE production_date IN " +
+            "<foreach collection='dates' item='d' open='(' separator=',' close=')'>#{d}</foreach>" +
+            "</script>")
+    int deleteByDates(@Param("dates") Collection<LocalDate> dates);
+
+    /**
+     * 多行 INSERT 写入重算后的汇总
+     */
+    @Insert("<script>" +
+            "INSERT INTO production_daily_rollup (production_date, equipment_id, product_name, " +
+            "record_count, total_quantity, total_defect_quantity) VALUES " +
+            "<foreach collection='list' item='r' separator=','>" +
+            "(#{r.productionDate}, #{r.equipmentId}, #{r.productName}, #{r.recordCount}, #{r.totalQuantity}, #{r.totalDefectQuantity})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<ProductionDailyRollup> list);
+}
@@ -3,7 +3,42 @@ package com.zssystem.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zssystem.entity.ProductionOrderProduct;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface ProductionOrderProductMapper extends BaseMapper<ProductionOrderProduct> {
+
+    /**
+     * 按机台汇总待排程/排程中订单的产品总需求天数（每个产品向上取整：订单数量 / 日产能）
+     * 返回列：machineNo、requiredDays
+     */
+    @Select("<script>" +
+            "SELECT o.machine_no AS machineNo, " +
+            "SUM((p.order_quantity + p.daily_capacity - 1) DIV p.daily_capacity) AS requiredDays " +
+            "FROM production_order_product p JOIN production_order o ON o.id = p.order_id " +
+            "WHERE p.deleted = 0 AND o.deleted = 0 AND o.status IN (0, 1) AND p.daily_capacity &gt; 0 " +
+            "AND o.machine_no IN " +
+            "<foreach collection='machineNos' item='m' open='(' separator=',' close=')'>#{m}</foreach> " +
+            "GROUP BY o.machine_no" +
+            "</script>")
+    List<Map<String, Object>> sumRequiredDaysByMachine(@Param("machineNos") Collection<String> machineNos);
+
+    /**
+     * 查询排程窗口内排程记录关联订单的全部产品（按订单、排序号排序）
+     * @param machineNo 机台号，为空时不限制
+     * @param startDate 排程日期下限（含）
+     */
+    @Select("<script>" +
+            "SELECT * FROM production_order_product WHERE deleted = 0 AND order_id IN (" +
+            "SELECT DISTINCT order_id FROM production_schedule WHERE deleted = 0 AND schedule_date &gt;= #{startDate}" +
+            "<if test='machineNo != null'> AND machine_no = #{machineNo}</if>" +
+            ") ORDER BY order_id, sort_order" +
+            "</script>")
+    List<ProductionOrderProduct> selectByScheduleWindow(@Param("machineNo") String machineNo, @Param("startDate") LocalDate startDate);
 }
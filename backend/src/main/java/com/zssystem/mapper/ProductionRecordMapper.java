@@ -1,9 +1,22 @@
 package com.zssystem.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import com.zssystem.entity.ProductionDailyRollup;
 import com.zssystem.entity.ProductionRecord;
+import com.zssystem.vo.ProductionStatisticsVO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Mapper
 public interface ProductionRecordMapper extends BaseMapper<ProductionRecord> {
@@ -13,4 +26,72 @@ public interface ProductionRecordMapper extends BaseMapper<ProductionRecord> {
 
     @Select("SELECT COUNT(*) FROM production_record WHERE record_no LIKE CONCAT(#{prefix}, '%') AND deleted = 0")
     Integer countByPrefix(String prefix);
+
+    /**
+     * 流式读取生产记录（MySQL 逐行返回，需在事务内遍历，遍历期间同一连接不能执行其他查询；
+     * 不走逻辑删除，条件中需带 deleted = 0）
+     */
+    @Select("SELECT * FROM production_record ${ew.customSqlSegment}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<ProductionRecord> selectCursor(@Param(Constants.WRAPPER) Wrapper<ProductionRecord> wrapper);
+
+    /**
+     * 按操作员汇总，dimensionValue 为操作员ID（未填写为空）
+     */
+    @Select("<script>" +
+            "SELECT CAST(operator_id AS CHAR) AS dimensionValue, " +
+            "IFNULL(SUM(quantity), 0) AS totalQuantity, IFNULL(SUM(defect_quantity), 0) AS totalDefectQuantity " +
+            "FROM production_record WHERE deleted = 0" +
+            "<if test='startDate != null'> AND production_date &gt;= #{startDate}</if>" +
+            "<if test='endDate != null'> AND production_date &lt;= #{endDate}</if>" +
+            " GROUP BY operator_id ORDER BY totalQuantity DESC" +
+            "</script>")
+    List<ProductionStatisticsVO> sumByOperator(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * 按订单汇总，dimensionValue 为订单ID
+     */
+    @Select("<script>" +
+            "SELECT CAST(order_id AS CHAR) AS dimensionValue, " +
+            "IFNULL(SUM(quantity), 0) AS totalQuantity, IFNULL(SUM(defect_quantity), 0) AS totalDefectQuantity " +
+            "FROM production_record WHERE deleted = 0" +
+            "<if test='startDate != null'> AND production_date &gt;= #{startDate}</if>" +
+            "<if test='endDate != null'> AND production_date &lt;= #{endDate}</if>" +
+            " GROUP BY order_id ORDER BY totalQuantity DESC" +
+            "</script>")
+    List<ProductionStatisticsVO> sumByOrder(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * 按 (update_time, id) 顺序读取高水位之后的变更记录（含已逻辑删除的记录），
+     * 只取一分钟以前的变更，避免漏掉提交较晚的事务
+     */
+    @Select("SELECT id, production_date, update_time FROM production_record " +
+            "WHERE (update_time > #{lastUpdateTime} OR (update_time = #{lastUpdateTime} AND id > #{lastId})) " +
+            "AND update_time < NOW() - INTERVAL 1 MINUTE " +
+            "ORDER BY update_time, id LIMIT #{limit}")
+    List<ProductionRecord> selectChangedSince(@Param("lastUpdateTime") LocalDateTime lastUpdateTime,
+                                              @Param("lastId") Long lastId,
+                                              @Param("limit") int limit);
+
+    /**
+     * 按 日期 + 设备 + 产品 聚合指定日期的生产记录。
+     * 使用共享锁读：须在事务内调用，读到最新已提交数据，并锁住这些日期的记录（含间隙）直到事务结束，
+     * 期间新增、修改、删除这些日期记录的事务会等待，避免其增量被随后写入的重算结果覆盖
+     */
+    @Select("<script>" +
+            "SELECT production_date AS productionDate, IFNULL(equipment_id, 0) AS equipmentId, " +
+            "IFNULL(product_name, '') AS productName, COUNT(*) AS recordCount, " +
+            "IFNULL(SUM(quantity), 0) AS totalQuantity, IFNULL(SUM(defect_quantity), 0) AS totalDefectQuantity " +
+            "FROM production_record WHERE deleted = 0 AND production_date IN " +
+            "<foreach collection='dates' item='d' open='(' separator=',' close=')'>#{d}</foreach>" +
+            " GROUP BY production_date, IFNULL(equipment_id, 0), IFNULL(product_name, '')" +
+            " LOCK IN SHARE MODE" +
+            "</script>")
+    List<ProductionDailyRollup> aggregateDaily(@Param("dates") Collection<LocalDate> dates);
+
+    @Select("SELECT MIN(production_date) FROM production_record WHERE deleted = 0")
+    LocalDate selectMinProductionDate();
+
+    @Select("SELECT MAX(production_date) FROM production_record WHERE deleted = 0")
+    LocalDate selectMaxProductionDate();
 }
@@ -0,0 +1,9 @@
+package com.zssystem.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zssystem.entity.ProductionRollupCheckpoint;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface ProductionRollupCheckpointMapper extends BaseMapper<ProductionRollupCheckpoint> {
+}
@@ -3,8 +3,16 @@ package com.zssystem.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zssystem.entity.ProductionSchedule;
 import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.time.LocalDate;
+import java.util.List;
 
 @Mapper
 public interface ProductionScheduleMapper extends BaseMapper<ProductionSchedule> {
@@ -14,4 +22,32 @@ public interface ProductionScheduleMapper extends BaseMapper<ProductionSchedule>
      */
     @Delete("DELETE FROM production_schedule WHERE machine_no = #{machineNo}")
     void physicalDeleteByMachineNo(@Param("machineNo") String machineNo);
+
+    /**
+     * 多行 INSERT 批量写入排程记录（不经过自动填充，create_time/update_time 需调用方设置）
+     */
+    @Insert("<script>" +
+            "INSERT INTO production_schedule (machine_no, equipment_id, equipment_no, schedule_date, day_number, " +
+            "product_code, product_name, production_quantity, daily_capacity, remaining_quantity, order_id, " +
+            "is_sunday, create_time, update_time, deleted) VALUES " +
+            "<foreach collection='list' item='s' separator=','>" +
+            "(#{s.machineNo}, #{s.equipmentId}, #{s.equipmentNo}, #{s.scheduleDate}, #{s.dayNumber}, " +
+            "#{s.productCode}, #{s.productName}, #{s.productionQuantity}, #{s.dailyCapacity}, #{s.remainingQuantity}, #{s.orderId}, " +
+            "#{s.isSunday}, #{s.createTime}, #{s.updateTime}, 0)" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<ProductionSchedule> list);
+
+    /**
+     * 按机台号、排程日期顺序流式读取排程记录（MySQL 逐行返回，需在事务内遍历，遍历期间同一连接不能执行其他查询）
+     * @param machineNo 机台号，为空时读取所有机台
+     * @param startDate 排程日期下限（含）
+     */
+    @Select("<script>" +
+            "SELECT * FROM production_schedule WHERE deleted = 0 AND schedule_date &gt;= #{startDate}" +
+            "<if test='machineNo != null'> AND machine_no = #{machineNo}</if>" +
+            " ORDER BY machine_no, schedule_date, day_number" +
+            "</script>")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<ProductionSchedule> streamByMachine(@Param("machineNo") String machineNo, @Param("startDate") LocalDate startDate);
 }
@@ -3,8 +3,41 @@ package com.zssystem.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zssystem.entity.Site5sAreaPhoto;
 import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 
 public interface Site5sAreaPhotoMapper extends BaseMapper<Site5sAreaPhoto> {
     @Delete("DELETE FROM site_5s_area_photo WHERE id = #{id}")
     int deleteByIdPhysical(Long id);
+
+    /**
+     * 照片已过期的拍照记录（只取 id、photo_path），按 ID 分批读取；ID 上限由 photo_date 索引先行确定
+     */
+    @Select("SELECT id, photo_path FROM site_5s_area_photo " +
+            "WHERE id > #{afterId} AND id <= #{maxId} AND photo_date < #{expireBefore} " +
+            "AND photo_path <> '' AND deleted = 0 ORDER BY id LIMIT #{limit}")
+    List<Site5sAreaPhoto> selectExpiredPhotos(@Param("expireBefore") LocalDate expireBefore,
+                                              @Param("afterId") long afterId,
+                                              @Param("maxId") long maxId,
+                                              @Param("limit") int limit);
+
+    /**
+     * 过期拍照记录的最大 ID（只读 photo_date 索引），没有过期记录时返回 null
+     */
+    @Select("SELECT MAX(id) FROM site_5s_area_photo WHERE photo_date < #{expireBefore}")
+    Long selectMaxIdBefore(@Param("expireBefore") LocalDate expireBefore);
+
+    /**
+     * 批量清除照片路径（列不可为空，置为空字符串；拍照记录本身保留，任务看板仍显示已完成）
+     */
+    @Update("<script>" +
+            "UPDATE site_5s_area_photo SET photo_path = '' WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int clearPhotoPaths(@Param("ids") Collection<Long> ids);
 }
@@ -1,6 +1,7 @@
 package com.zssystem.service;
 
 import com.zssystem.vo.EquipmentQrViewVO;
+import com.zssystem.vo.QrArtifactVO;
 
 /**
  * 设备扫码查看服务
@@ -43,4 +44,24 @@ public interface EquipmentQrService {
      * @param recordMonth 月份 yyyy-MM，如 2026-02
      */
     byte[] getHandoverSvg(Long equipmentId, String recordMonth) throws Exception;
+
+    /**
+     * 获取设备当月点检表 SVG 产物（含 ETag/Last-Modified，优先取预渲染缓存）
+     */
+    QrArtifactVO getCheckSvgArtifact(Long equipmentId) throws Exception;
+
+    /**
+     * 获取设备启用工艺卡 SVG 产物，无启用工艺卡时返回 null
+     */
+    QrArtifactVO getProcessFileSvgArtifact(Long equipmentId) throws Exception;
+
+    /**
+     * 获取设备指定月份交接班记录表 SVG 产物
+     */
+    QrArtifactVO getHandoverSvgArtifact(Long equipmentId, String recordMonth) throws Exception;
+
+    /**
+     * 预渲染设备当月的扫码产物（点检表、启用工艺卡、交接班记录表 SVG），已缓存的跳过
+     */
+    void prerenderArtifacts(Long equipmentId) throws Exception;
 }
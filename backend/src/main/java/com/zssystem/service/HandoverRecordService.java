@@ -39,6 +39,9 @@ public interface HandoverRecordService {
     /** 上传交接班拍照照片，返回存储路径。照片不显示，15天后自动删除 */
     String uploadHandoverPhoto(MultipartFile file) throws Exception;
 
-    /** 获取交接班记录照片，无照片时返回 null */
-    byte[] getRecordPhoto(Long id) throws Exception;
+    /**
+     * 获取交接班记录照片文件路径，无照片或文件已删除时返回 null
+     * @param thumbnail true 时返回缩略图（尚未生成时返回原图）
+     */
+    java.nio.file.Path getRecordPhotoFile(Long id, boolean thumbnail);
 }
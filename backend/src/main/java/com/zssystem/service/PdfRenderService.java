@@ -0,0 +1,22 @@
+package com.zssystem.service;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * PDF 渲染服务：在固定的渲染线程上将 Excel 绘制为 PDF，字体按线程复用
+ */
+public interface PdfRenderService {
+
+    /**
+     * 将 Excel 第一个工作表直接绘制为单页 PDF（排队等待空闲的渲染线程）
+     * @param excel Excel 文件内容
+     * @param maxCols 绘制的列数（从 A 列起）
+     */
+    byte[] excelToPdf(byte[] excel, int maxCols) throws IOException;
+
+    /**
+     * 渲染统计：次数、失败数、排队数、最近渲染耗时的 p50/p99（毫秒）
+     */
+    Map<String, Object> getMetrics();
+}
@@ -0,0 +1,37 @@
+package com.zssystem.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * 现场照片后台处理：上传时原图先落盘、记录立即提交，随后在后台线程上按 EXIF 方向摆正、
+ * 压缩到限定尺寸和质量，并生成缩略图
+ */
+public interface PhotoIngestService {
+
+    /**
+     * 提交一张已保存的照片等待处理（由 PhotoStorageService 在记录提交后调用）
+     * @param path 照片完整路径
+     */
+    void submit(String path);
+
+    /**
+     * 取照片文件
+     * @param path 照片完整路径（数据库中保存的路径）
+     * @param thumbnail true 时优先返回缩略图，尚未生成时返回原图
+     * @return 文件不存在时返回 null
+     */
+    Path resolve(String path, boolean thumbnail);
+
+    /**
+     * 删除照片及其缩略图
+     * @return 照片文件是否存在并被删除
+     */
+    boolean delete(String path) throws IOException;
+
+    /**
+     * 处理统计：处理张数、失败数、拒绝数、压缩前后字节数、排队数
+     */
+    Map<String, Object> getMetrics();
+}
@@ -0,0 +1,60 @@
+package com.zssystem.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 现场照片存储：按上传内容的 SHA-256 存放（根目录/哈希前2位/哈希3-4位/哈希.扩展名），
+ * 相同内容只保存一份。照片被 5S 区域拍照记录、交接班记录引用，引用数为 0 的照片由垃圾回收删除。
+ */
+public interface PhotoStorageService {
+
+    /** 照片类别，各自一个存储根目录 */
+    enum Category {
+        /** 5S 区域拍照 */
+        SITE5S_AREA,
+        /** 交接班拍照 */
+        HANDOVER
+    }
+
+    /**
+     * 保存上传的照片，返回完整路径（写入记录的 photo_path）。
+     * 新内容在事务提交后交给后台处理（摆正、压缩、缩略图）。事务回滚时不删除：
+     * 同一内容可能正被另一个尚未提交的上传复用，无人引用的照片由垃圾回收删除。
+     */
+    String store(MultipartFile file, Category category) throws IOException;
+
+    /**
+     * 照片被记录引用的次数（5S 区域拍照记录 + 交接班记录）
+     */
+    long countReferences(String path);
+
+    /**
+     * 记录不再引用该照片时调用：在事务中调用时于提交后执行，引用数为 0 时删除照片及缩略图。
+     * 刚保存或刚被复用的照片留给垃圾回收处理，避免删掉尚未提交的记录正要引用的文件。
+     */
+    void release(String path);
+
+    /**
+     * 一批已不再被某些记录引用的照片中，可以删除的文件（照片及缩略图）：
+     * 排除仍被其他记录引用的、刚保存或刚被复用的照片。两张表各一次 IN 查询。
+     */
+    List<Path> releasable(Collection<String> paths);
+
+    /**
+     * 照片（或其缩略图）是否刚保存或刚被复用。{@link #releasable} 与实际删除之间同内容的照片可能被复用，
+     * 删除前应再次检查，为 true 时跳过
+     */
+    boolean recentlyUsed(Path file);
+
+    /**
+     * 垃圾回收：删除超过保留时间且没有任何记录引用的照片
+     * @return 统计：检查数、删除数、释放字节数、耗时
+     */
+    Map<String, Object> collectGarbage() throws IOException;
+}
@@ -0,0 +1,36 @@
+package com.zssystem.service;
+
+import com.zssystem.dto.PlantCalendarSaveDTO;
+import com.zssystem.util.schedule.WorkCalendar;
+import com.zssystem.vo.PlantCalendarVO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PlantCalendarService {
+    /**
+     * 查询日期区间内的日历例外（全厂及指定机台）
+     */
+    List<PlantCalendarVO> getCalendarList(LocalDate startDate, LocalDate endDate, String machineNo);
+
+    void createCalendarDay(PlantCalendarSaveDTO saveDTO);
+
+    void updateCalendarDay(Long id, PlantCalendarSaveDTO saveDTO);
+
+    void deleteCalendarDay(Long id);
+
+    /**
+     * 全厂工作日历
+     */
+    WorkCalendar getPlantCalendar();
+
+    /**
+     * 机台工作日历：全厂日历 + 机台加班 - 机台停机（含设备维护日）
+     */
+    WorkCalendar getMachineCalendar(String machineNo);
+
+    /**
+     * 设备维护记录变化后清除机台停机缓存（在事务中调用时，事务结束后再清除一次）
+     */
+    void evictMachineCalendars();
+}
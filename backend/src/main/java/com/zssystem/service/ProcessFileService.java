@@ -88,6 +88,11 @@ public interface ProcessFileService {
      */
     byte[] downloadProcessFile(Long fileId) throws IOException;
 
+    /**
+     * 下载工艺文件：合成结果及其 ETag（随内容版本变化），用于流式输出和断点续传
+     */
+    com.zssystem.vo.DownloadContentVO getProcessFileDownload(Long fileId) throws IOException;
+
     /**
      * 获取工艺文件 HTML 预览（与下载 Excel 效果一致）
      */
@@ -97,6 +102,11 @@ public interface ProcessFileService {
      * 获取工艺文件 HTML（PDF 友好格式，用于转 PDF）
      */
     String getPreviewHtmlForPdf(Long fileId) throws IOException;
+
+    /**
+     * 获取工艺文件 PDF（由 PDF 格式 HTML 渲染）
+     */
+    byte[] getPreviewPdf(Long fileId) throws IOException;
     
     /**
      * 查询设备的工艺文件列表
@@ -8,6 +8,7 @@ import com.zssystem.vo.ProductionStatisticsVO;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ProductionRecordService {
     IPage<ProductionRecordVO> getRecordList(ProductionRecordQueryDTO queryDTO);
@@ -16,5 +17,5 @@ public interface ProductionRecordService {
     void updateRecord(Long id, ProductionRecordSaveDTO saveDTO);
     void deleteRecord(Long id);
     List<ProductionStatisticsVO> getStatistics(String dimension, LocalDate startDate, LocalDate endDate);
-    List<com.zssystem.vo.excel.ProductionRecordExportVO> getExportData(ProductionRecordQueryDTO queryDTO);
+    void exportRecordData(ProductionRecordQueryDTO queryDTO, Consumer<com.zssystem.vo.excel.ProductionRecordExportVO> consumer);
 }
@@ -0,0 +1,33 @@
+package com.zssystem.service;
+
+import com.zssystem.entity.ProductionRecord;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+public interface ProductionRollupService {
+    /**
+     * 把一条生产记录计入（sign=1）或移出（sign=-1）生产日汇总
+     * 需在生产记录写入的同一事务内调用
+     */
+    void applyRecord(ProductionRecord record, int sign);
+
+    /**
+     * 增量汇总：从高水位开始读取新增/修改/删除过的生产记录，重算涉及日期的汇总
+     * @return 本次处理的变更记录数
+     */
+    int refreshChanged();
+
+    /**
+     * 在后台启动回填历史汇总：按天数分段重算，每段单独提交；同一时间只允许一个回填任务
+     * @param startDate 开始日期（为空时从最早的生产记录开始）
+     * @param endDate 截止日期（为空时到最晚的生产记录为止）
+     * @return 回填任务进度（刚启动）
+     */
+    Map<String, Object> startBackfill(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 汇总状态：增量任务的高水位（checkpoint）及最近一次回填任务的进度（backfill）
+     */
+    Map<String, Object> getStatus();
+}
@@ -2,10 +2,12 @@ package com.zssystem.service;
 
 import com.zssystem.dto.ProductionScheduleQueryDTO;
 import com.zssystem.vo.ProductionScheduleVO;
+import com.zssystem.vo.ScheduleRegenerateResultVO;
 import com.zssystem.vo.excel.ProductionScheduleExportVO;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ProductionScheduleService {
     /**
@@ -16,6 +18,22 @@ public interface ProductionScheduleService {
      */
     ProductionScheduleVO generateSchedule(String machineNo, LocalDate startDate);
     
+    /**
+     * 按机台号生成生产计划排程（按机台工作日历避开休息日、节假日和停机日）
+     * @param machineNo 机台号
+     * @param startDate 排程开始日期
+     * @param endDate 排程截止日期（为空时为开始日期所在月份最后一天，可跨多个月）
+     * @return 排程结果
+     */
+    ProductionScheduleVO generateSchedule(String machineNo, LocalDate startDate, LocalDate endDate);
+    
+    /**
+     * 重新生成所有机台的排程（机台间并行，每个机台单独事务）
+     * @param startDate 排程开始日期
+     * @return 每个机台的生成结果及耗时（线程池排满未执行的机台记为失败）
+     */
+    List<ScheduleRegenerateResultVO> regenerateAllSchedules(LocalDate startDate);
+    
     /**
      * 查询排程列表
      * @param queryDTO 查询条件
@@ -32,11 +50,11 @@ public interface ProductionScheduleService {
     ProductionScheduleVO getScheduleByMachineNo(String machineNo, LocalDate startDate);
     
     /**
-     * 获取导出数据
+     * 流式产生导出数据（按机台号顺序，每个机台一行）
      * @param queryDTO 查询条件
-     * @return 导出数据列表
+     * @param consumer 逐行接收导出数据
      */
-    List<ProductionScheduleExportVO> getExportData(ProductionScheduleQueryDTO queryDTO);
+    void exportScheduleData(ProductionScheduleQueryDTO queryDTO, Consumer<ProductionScheduleExportVO> consumer);
     
     /**
      * 删除指定机台号的排程计划
@@ -0,0 +1,16 @@
+package com.zssystem.service;
+
+import java.util.Map;
+
+/**
+ * 文件保留期清理：按类别（交接班照片、5S 区域照片）的保留天数，
+ * 分批找出过期记录，批量清除路径并并行删除文件
+ */
+public interface RetentionService {
+
+    /**
+     * 执行全部启用的清理策略
+     * @return 各类别的统计：记录数、删除文件数、释放字节数、失败数、耗时
+     */
+    Map<String, Map<String, Object>> runAll();
+}
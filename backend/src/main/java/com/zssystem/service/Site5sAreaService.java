@@ -12,6 +12,9 @@ import java.util.List;
 
 public interface Site5sAreaService {
 
+    /** 日期范围查询最多允许的天数（含首尾） */
+    int TASKS_RANGE_MAX_DAYS = 366;
+
     IPage<Site5sAreaVO> getAreaList(Site5sAreaQueryDTO queryDTO);
 
     Site5sAreaVO getAreaById(Long id);
@@ -23,7 +26,7 @@ public interface Site5sAreaService {
     /** 获取指定日期的拍照任务（各区域及各时段完成情况） */
     AreaDailyStatusVO getTasks(LocalDate photoDate);
 
-    /** 获取日期范围内的拍照任务（按日期每天一条记录） */
+    /** 获取日期范围内的拍照任务（按日期每天一条记录），范围超过 {@link #TASKS_RANGE_MAX_DAYS} 天时抛出异常 */
     List<AreaDailyStatusVO> getTasksRange(LocalDate startDate, LocalDate endDate);
 
     /** 设置/取消区域某日放假（仅注塑部经理） */
@@ -37,8 +40,11 @@ public interface Site5sAreaService {
     IPage<Site5sAreaPhotoVO> getPhotoRecords(Long areaId, LocalDate startDate, LocalDate endDate,
                                              Integer pageNum, Integer pageSize);
 
-    /** 获取照片文件字节 */
-    byte[] getPhotoBytes(Long photoId);
+    /**
+     * 获取照片文件路径，无照片或文件已删除时返回 null
+     * @param thumbnail true 时返回缩略图（尚未生成时返回原图）
+     */
+    java.nio.file.Path getPhotoFile(Long photoId, boolean thumbnail);
 
     /** 删除拍照记录（单条，按ID） */
     void deletePhoto(Long photoId, Long currentUserId);
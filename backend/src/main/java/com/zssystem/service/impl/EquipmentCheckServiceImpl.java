@@ -29,6 +29,9 @@ public class EquipmentCheckServiceImpl implements EquipmentCheckService {
     @Autowired
     private EquipmentMapper equipmentMapper;
 
+    @Autowired
+    private QrArtifactCache qrArtifactCache;
+
     private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM");
 
     @Override
@@ -120,6 +123,7 @@ public class EquipmentCheckServiceImpl implements EquipmentCheckService {
         } else {
             checkMapper.insert(check);
         }
+        qrArtifactCache.invalidate(check.getEquipmentId());
     }
 
     @Override
@@ -130,6 +134,7 @@ public class EquipmentCheckServiceImpl implements EquipmentCheckService {
             throw new RuntimeException("点检记录不存在");
         }
         checkMapper.deleteById(id);
+        qrArtifactCache.invalidate(check.getEquipmentId());
     }
 
     @Override
@@ -10,6 +10,7 @@ import com.zssystem.entity.EquipmentMaintenance;
 import com.zssystem.mapper.EquipmentMapper;
 import com.zssystem.mapper.EquipmentMaintenanceMapper;
 import com.zssystem.service.EquipmentMaintenanceService;
+import com.zssystem.service.PlantCalendarService;
 import com.zssystem.util.BeanUtil;
 import com.zssystem.vo.EquipmentMaintenanceVO;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +26,9 @@ public class EquipmentMaintenanceServiceImpl implements EquipmentMaintenanceServ
     @Autowired
     private EquipmentMapper equipmentMapper;
 
+    @Autowired
+    private PlantCalendarService calendarService;
+
     @Override
     public IPage<EquipmentMaintenanceVO> getMaintenanceList(EquipmentMaintenanceQueryDTO queryDTO) {
         Page<EquipmentMaintenance> page = new Page<>(queryDTO.getPageNum(), queryDTO.getPageSize());
@@ -80,6 +84,8 @@ public class EquipmentMaintenanceServiceImpl implements EquipmentMaintenanceServ
         
         EquipmentMaintenance maintenance = BeanUtil.copyProperties(saveDTO, EquipmentMaintenance.class);
         maintenanceMapper.insert(maintenance);
+        // 维护日视为机台停机日，影响排程日历
+        calendarService.evictMachineCalendars();
     }
 
     @Override
@@ -92,6 +98,7 @@ public class EquipmentMaintenanceServiceImpl implements EquipmentMaintenanceServ
         
         BeanUtil.copyProperties(saveDTO, maintenance, "id", "createTime", "updateTime", "deleted");
         maintenanceMapper.updateById(maintenance);
+        calendarService.evictMachineCalendars();
     }
 
     @Override
@@ -102,5 +109,6 @@ public class EquipmentMaintenanceServiceImpl implements EquipmentMaintenanceServ
             throw new RuntimeException("维护记录不存在");
         }
         maintenanceMapper.deleteById(id);
+        calendarService.evictMachineCalendars();
     }
 }
@@ -9,10 +9,12 @@ import com.zssystem.mapper.ProcessFileMapper;
 import com.zssystem.service.EquipmentCheckService;
 import com.zssystem.service.EquipmentQrService;
 import com.zssystem.service.HandoverRecordService;
+import com.zssystem.service.PdfRenderService;
 import com.zssystem.service.ProcessFileService;
 import com.zssystem.vo.EquipmentCheckVO;
 import com.zssystem.vo.EquipmentQrViewVO;
-import com.zssystem.util.HtmlToPdfUtil;
+import com.zssystem.vo.QrArtifactVO;
+import com.zssystem.util.EquipmentCheckExcelToHtmlConverter;
 import com.zssystem.util.HtmlToSvgUtil;
 import com.zssystem.util.QrCodeUtil;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +28,8 @@ import java.util.stream.Collectors;
 @Service
 public class EquipmentQrServiceImpl implements EquipmentQrService {
 
+    private static final String SVG_CONTENT_TYPE = "image/svg+xml";
+
     @Autowired
     private EquipmentMapper equipmentMapper;
 
@@ -44,6 +48,12 @@ public class EquipmentQrServiceImpl implements EquipmentQrService {
     @Autowired
     private HandoverRecordService handoverRecordService;
 
+    @Autowired
+    private QrArtifactCache qrArtifactCache;
+
+    @Autowired
+    private PdfRenderService pdfRenderService;
+
     @Value("${qr.frontend-base-url:http://localhost:5173}")
     private String frontendBaseUrl;
 
@@ -100,13 +110,7 @@ public class EquipmentQrServiceImpl implements EquipmentQrService {
             .collect(Collectors.toList());
         vo.setCheckRecords(checkVOs);
 
-        ProcessFile enabledFile = processFileMapper.selectOne(
-            new LambdaQueryWrapper<ProcessFile>()
-                .eq(ProcessFile::getMachineNo, equipment.getMachineNo())
-                .eq(ProcessFile::getEnabled, 1)
-                .eq(ProcessFile::getStatus, 5)
-                .last("LIMIT 1")
-        );
+        ProcessFile enabledFile = findEnabledProcessFile(equipment);
         if (enabledFile != null) {
             EquipmentQrViewVO.ProcessFileBriefVO pfBrief = new EquipmentQrViewVO.ProcessFileBriefVO();
             pfBrief.setId(enabledFile.getId());
@@ -133,43 +137,123 @@ public class EquipmentQrServiceImpl implements EquipmentQrService {
 
     @Override
     public byte[] getCheckPdf(Long equipmentId) throws Exception {
-        EquipmentQrViewVO data = getViewData(equipmentId);
-        String html = equipmentCheckService.getPreviewHtmlForPdf(equipmentId, data.getCheckMonth());
-        return HtmlToPdfUtil.htmlToPdf(html);
+        String checkMonth = YearMonth.now().toString();
+        return qrArtifactCache.get(equipmentId, QrArtifactCache.Kind.CHECK_PDF, checkMonth, () -> {
+            requireEquipment(equipmentId);
+            byte[] excel = equipmentCheckService.exportCheckExcel(equipmentId, checkMonth);
+            byte[] pdf = pdfRenderService.excelToPdf(excel, EquipmentCheckExcelToHtmlConverter.MAX_COLS);
+            return artifact(pdf, "application/pdf", "点检表_" + checkMonth + ".pdf");
+        }).getBody();
     }
 
     @Override
     public byte[] getProcessFilePdf(Long equipmentId) throws Exception {
-        EquipmentQrViewVO data = getViewData(equipmentId);
-        if (data.getEnabledProcessFile() == null) {
+        QrArtifactVO artifact = qrArtifactCache.get(equipmentId, QrArtifactCache.Kind.PROCESS_FILE_PDF, null, () -> {
+            ProcessFile enabledFile = findEnabledProcessFile(requireEquipment(equipmentId));
+            if (enabledFile == null) {
+                return null;
+            }
+            return artifact(processFileService.getPreviewPdf(enabledFile.getId()), "application/pdf",
+                    processFileBaseName(enabledFile) + ".pdf");
+        });
+        if (artifact == null) {
             throw new RuntimeException("该机台暂无启用的工艺卡");
         }
-        String html = processFileService.getPreviewHtmlForPdf(data.getEnabledProcessFile().getId());
-        return HtmlToPdfUtil.htmlToPdf(html);
+        return artifact.getBody();
     }
 
     @Override
     public byte[] getCheckSvg(Long equipmentId) throws Exception {
-        EquipmentQrViewVO data = getViewData(equipmentId);
-        // 使用与下载 Excel 一致的 HTML 布局（11pt、表格结构一致），扫码预览与 Excel 一致
-        String html = equipmentCheckService.getPreviewHtml(equipmentId, data.getCheckMonth());
-        return HtmlToSvgUtil.htmlToSvg(html);
+        return getCheckSvgArtifact(equipmentId).getBody();
     }
 
     @Override
     public byte[] getProcessFileSvg(Long equipmentId) throws Exception {
-        EquipmentQrViewVO data = getViewData(equipmentId);
-        if (data.getEnabledProcessFile() == null) {
+        QrArtifactVO artifact = getProcessFileSvgArtifact(equipmentId);
+        if (artifact == null) {
             throw new RuntimeException("该机台暂无启用的工艺卡");
         }
-        String html = processFileService.getPreviewHtmlForPdf(data.getEnabledProcessFile().getId());
-        return HtmlToSvgUtil.htmlToSvg(html);
+        return artifact.getBody();
     }
 
     @Override
     public byte[] getHandoverSvg(Long equipmentId, String recordMonth) throws Exception {
-        getViewData(equipmentId);
-        String html = handoverRecordService.getPreviewHtmlForSvg(equipmentId, recordMonth);
-        return HtmlToSvgUtil.htmlToSvg(html);
+        return getHandoverSvgArtifact(equipmentId, recordMonth).getBody();
+    }
+
+    @Override
+    public QrArtifactVO getCheckSvgArtifact(Long equipmentId) throws Exception {
+        String checkMonth = YearMonth.now().toString();
+        return qrArtifactCache.get(equipmentId, QrArtifactCache.Kind.CHECK_SVG, checkMonth, () -> {
+            requireEquipment(equipmentId);
+            // 使用与下载 Excel 一致的 HTML 布局（11pt、表格结构一致），扫码预览与 Excel 一致
+            String html = equipmentCheckService.getPreviewHtml(equipmentId, checkMonth);
+            return artifact(HtmlToSvgUtil.htmlToSvg(html), SVG_CONTENT_TYPE, "点检表_" + checkMonth + ".svg");
+        });
+    }
+
+    @Override
+    public QrArtifactVO getProcessFileSvgArtifact(Long equipmentId) throws Exception {
+        return qrArtifactCache.get(equipmentId, QrArtifactCache.Kind.PROCESS_FILE_SVG, null, () -> {
+            ProcessFile enabledFile = findEnabledProcessFile(requireEquipment(equipmentId));
+            if (enabledFile == null) {
+                return null;
+            }
+            String html = processFileService.getPreviewHtmlForPdf(enabledFile.getId());
+            return artifact(HtmlToSvgUtil.htmlToSvg(html), SVG_CONTENT_TYPE, processFileBaseName(enabledFile) + ".svg");
+        });
+    }
+
+    @Override
+    public QrArtifactVO getHandoverSvgArtifact(Long equipmentId, String recordMonth) throws Exception {
+        return qrArtifactCache.get(equipmentId, QrArtifactCache.Kind.HANDOVER_SVG, recordMonth, () -> {
+            requireEquipment(equipmentId);
+            String html = handoverRecordService.getPreviewHtmlForSvg(equipmentId, recordMonth);
+            return artifact(HtmlToSvgUtil.htmlToSvg(html), SVG_CONTENT_TYPE, "交班记录表_" + recordMonth + ".svg");
+        });
+    }
+
+    @Override
+    public void prerenderArtifacts(Long equipmentId) throws Exception {
+        String month = YearMonth.now().toString();
+        if (!qrArtifactCache.contains(equipmentId, QrArtifactCache.Kind.CHECK_SVG, month)) {
+            getCheckSvgArtifact(equipmentId);
+        }
+        if (!qrArtifactCache.contains(equipmentId, QrArtifactCache.Kind.PROCESS_FILE_SVG, null)) {
+            getProcessFileSvgArtifact(equipmentId);
+        }
+        if (!qrArtifactCache.contains(equipmentId, QrArtifactCache.Kind.HANDOVER_SVG, month)) {
+            getHandoverSvgArtifact(equipmentId, month);
+        }
+    }
+
+    private Equipment requireEquipment(Long equipmentId) {
+        Equipment equipment = equipmentMapper.selectById(equipmentId);
+        if (equipment == null) {
+            throw new RuntimeException("设备不存在");
+        }
+        return equipment;
+    }
+
+    private ProcessFile findEnabledProcessFile(Equipment equipment) {
+        return processFileMapper.selectOne(
+            new LambdaQueryWrapper<ProcessFile>()
+                .eq(ProcessFile::getMachineNo, equipment.getMachineNo())
+                .eq(ProcessFile::getEnabled, 1)
+                .eq(ProcessFile::getStatus, 5)
+                .last("LIMIT 1")
+        );
+    }
+
+    private static String processFileBaseName(ProcessFile file) {
+        return (file.getFileName() != null ? file.getFileName() : "工艺卡").replaceAll("\\.(xls|xlsx)?$", "");
+    }
+
+    private static QrArtifactVO artifact(byte[] body, String contentType, String fileName) {
+        QrArtifactVO artifact = new QrArtifactVO();
+        artifact.setBody(body);
+        artifact.setContentType(contentType);
+        artifact.setFileName(fileName);
+        return artifact;
     }
 }
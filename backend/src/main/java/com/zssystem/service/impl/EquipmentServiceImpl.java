@@ -25,6 +25,9 @@ public class EquipmentServiceImpl implements EquipmentService {
     @Autowired
     private EquipmentMapper equipmentMapper;
 
+    @Autowired
+    private QrArtifactCache qrArtifactCache;
+
     private static final Map<Integer, String> STATUS_MAP = new HashMap<>();
     static {
         STATUS_MAP.put(0, "停用");
@@ -159,6 +162,7 @@ public class EquipmentServiceImpl implements EquipmentService {
         }
         
         equipmentMapper.updateById(equipment);
+        qrArtifactCache.invalidate(id);
     }
 
     @Override
@@ -170,5 +174,6 @@ public class EquipmentServiceImpl implements EquipmentService {
         }
         // 检查是否有关联的点检记录、维护记录、故障记录等（简化处理，直接删除）
         equipmentMapper.deleteById(id);
+        qrArtifactCache.invalidate(id);
     }
 }
@@ -10,28 +10,24 @@ import com.zssystem.entity.HandoverRecord;
 import com.zssystem.mapper.EquipmentMapper;
 import com.zssystem.mapper.HandoverRecordMapper;
 import com.zssystem.service.HandoverRecordService;
+import com.zssystem.service.PhotoIngestService;
+import com.zssystem.service.PhotoStorageService;
 import com.zssystem.util.BeanUtil;
-import com.zssystem.util.FileUtil;
 import com.zssystem.util.HandoverRecordExcelGenerator;
 import com.zssystem.util.HandoverRecordExcelToHtmlConverter;
 import com.zssystem.vo.HandoverRecordVO;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.zip.ZipEntry;
@@ -43,11 +39,17 @@ public class HandoverRecordServiceImpl implements HandoverRecordService {
     @Autowired
     private HandoverRecordMapper recordMapper;
 
+    @Autowired
+    private QrArtifactCache qrArtifactCache;
+
     @Autowired
     private EquipmentMapper equipmentMapper;
 
-    @Value("${file.upload.handover-photos:/Users/czd/zssystem/uploads/handover-photos}")
-    private String handoverPhotosPath;
+    @Autowired
+    private PhotoStorageService photoStorageService;
+
+    @Autowired
+    private PhotoIngestService photoIngestService;
 
     @Override
     public IPage<HandoverRecordVO> getRecordList(HandoverRecordQueryDTO queryDTO) {
@@ -119,12 +121,17 @@ public class HandoverRecordServiceImpl implements HandoverRecordService {
         } else {
             recordMapper.updateById(record);
         }
+        qrArtifactCache.invalidate(record.getEquipmentId());
     }
 
     @Override
     @Transactional
     public void deleteRecord(Long id) {
+        HandoverRecord record = recordMapper.selectById(id);
         recordMapper.deleteById(id);
+        if (record != null) {
+            qrArtifactCache.invalidate(record.getEquipmentId());
+        }
     }
 
     @Override
@@ -290,26 +297,16 @@ public class HandoverRecordServiceImpl implements HandoverRecordService {
         if (contentType == null || !contentType.startsWith("image/")) {
             throw new RuntimeException("只能上传图片格式");
         }
-        String yearMonth = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy/MM"));
-        String saveDir = handoverPhotosPath + "/" + yearMonth;
-        FileUtil.createDirectoryIfNotExists(saveDir);
-        String ext = file.getOriginalFilename() != null && file.getOriginalFilename().contains(".")
-                ? file.getOriginalFilename().substring(file.getOriginalFilename().lastIndexOf("."))
-                : ".jpg";
-        String fileName = "HP_" + System.currentTimeMillis() + ext;
-        String fullPath = saveDir + "/" + fileName;
-        file.transferTo(new File(fullPath));
-        return fullPath;
+        // 按内容哈希保存，网络重试重复上传的同一张照片只存一份
+        return photoStorageService.store(file, PhotoStorageService.Category.HANDOVER);
     }
 
     @Override
-    public byte[] getRecordPhoto(Long id) throws Exception {
+    public Path getRecordPhotoFile(Long id, boolean thumbnail) {
         HandoverRecord record = recordMapper.selectById(id);
         if (record == null) throw new RuntimeException("交接班记录不存在");
         String path = record.getPhotoPath();
         if (path == null || path.isBlank()) return null;
-        Path filePath = Paths.get(path);
-        if (!Files.exists(filePath)) return null;
-        return Files.readAllBytes(filePath);
+        return photoIngestService.resolve(path, thumbnail);
     }
 }
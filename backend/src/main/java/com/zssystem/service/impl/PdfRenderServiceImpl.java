@@ -0,0 +1,298 @@
+package com.zssystem.service.impl;
+
+import com.zssystem.service.PdfRenderService;
+import com.zssystem.util.ExcelToPdfRenderer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PDF 渲染服务实现
+ * 字体文件启动时读入内存一次；每个渲染线程持有已解析的字体，跨次渲染复用；
+ * 渲染线程数和排队数有上限，超出时直接拒绝，避免扫码高峰把 CPU 和内存耗尽。
+ */
+@Slf4j
+@Service
+public class PdfRenderServiceImpl implements PdfRenderService {
+
+    /** 参与统计分位数的最近渲染次数 */
+    private static final int LATENCY_WINDOW = 1024;
+
+    /** 预热工作簿的列数 */
+    private static final int WARMUP_COLS = 2;
+
+    @Value("${pdf.render.threads:2}")
+    private int threads;
+
+    @Value("${pdf.render.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${pdf.render.timeout-seconds:60}")
+    private long timeoutSeconds;
+
+    private volatile byte[] fontBytes;
+
+    private volatile ThreadPoolExecutor executor;
+
+    /** 渲染线程持有的已解析字体 */
+    private final ThreadLocal<WorkerResources> workerResources = new ThreadLocal<>();
+
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private long latencyCount;
+    private final AtomicLong renderCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    @Override
+    public byte[] excelToPdf(byte[] excel, int maxCols) throws IOException {
+        return execute(() -> doRenderExcel(excel, maxCols));
+    }
+
+    private byte[] execute(RenderTask task) throws IOException {
+        Future<byte[]> future;
+        try {
+            future = executor().submit(() -> timed(task));
+        } catch (RejectedExecutionException e) {
+            rejectedCount.incrementAndGet();
+            throw new RuntimeException("PDF渲染繁忙，请稍后重试");
+        }
+        try {
+            return future.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("PDF渲染被中断", e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new IOException("PDF渲染超时", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioe) {
+                throw ioe;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException("PDF渲染失败: " + cause.getMessage(), cause);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long[] window;
+        synchronized (latencies) {
+            int size = (int) Math.min(latencyCount, LATENCY_WINDOW);
+            window = Arrays.copyOf(latencies, size);
+        }
+        Arrays.sort(window);
+        ThreadPoolExecutor pool = executor;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("renderCount", renderCount.get());
+        metrics.put("failureCount", failureCount.get());
+        metrics.put("rejectedCount", rejectedCount.get());
+        metrics.put("threads", threads);
+        metrics.put("activeCount", pool != null ? pool.getActiveCount() : 0);
+        metrics.put("queueSize", pool != null ? pool.getQueue().size() : 0);
+        metrics.put("sampleSize", window.length);
+        metrics.put("p50Millis", percentile(window, 50));
+        metrics.put("p99Millis", percentile(window, 99));
+        metrics.put("maxMillis", window.length > 0 ? window[window.length - 1] : 0);
+        return metrics;
+    }
+
+    /**
+     * 启动完成后在各渲染线程上各绘制一个小工作簿，提前完成字体解析和 POI、PDFBox 的类加载，不阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        byte[] excel;
+        try {
+            excel = warmUpWorkbook();
+        } catch (IOException e) {
+            log.warn("PDF渲染预热工作簿生成失败: {}", e.getMessage());
+            return;
+        }
+        ThreadPoolExecutor pool = executor();
+        pool.prestartAllCoreThreads();
+        for (int i = 0; i < threads; i++) {
+            pool.execute(() -> {
+                try {
+                    long start = System.currentTimeMillis();
+                    doRenderExcel(excel, WARMUP_COLS);
+                    log.info("PDF渲染线程预热完成，耗时{}ms", System.currentTimeMillis() - start);
+                } catch (Exception e) {
+                    log.warn("PDF渲染线程预热失败: {}", e.getMessage());
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ThreadPoolExecutor pool = executor;
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private ThreadPoolExecutor executor() {
+        ThreadPoolExecutor pool = executor;
+        if (pool == null) {
+            synchronized (this) {
+                pool = executor;
+                if (pool == null) {
+                    AtomicInteger index = new AtomicInteger();
+                    pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                            new ArrayBlockingQueue<>(queueCapacity), r -> {
+                                Thread t = new Thread(r, "pdf-render-" + index.incrementAndGet());
+                                t.setDaemon(true);
+                                return t;
+                            });
+                    executor = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    private byte[] timed(RenderTask task) throws IOException {
+        long start = System.nanoTime();
+        try {
+            byte[] pdf = task.render();
+            recordLatency((System.nanoTime() - start) / 1_000_000);
+            return pdf;
+        } catch (IOException | RuntimeException e) {
+            failureCount.incrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * 预热用的小工作簿：一行中英文文字、一个勾选标记，带边框
+     */
+    private static byte[] warmUpWorkbook() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+             ByteArrayOutputStream os = new ByteArrayOutputStream()) {
+            CellStyle style = workbook.createCellStyle();
+            style.setBorderTop(BorderStyle.THIN);
+            style.setBorderBottom(BorderStyle.THIN);
+            style.setBorderLeft(BorderStyle.THIN);
+            style.setBorderRight(BorderStyle.THIN);
+            Row row = workbook.createSheet("预热").createRow(0);
+            String[] values = {"预热 warm-up", "√"};
+            for (int i = 0; i < values.length; i++) {
+                Cell cell = row.createCell(i);
+                cell.setCellValue(values[i]);
+                cell.setCellStyle(style);
+            }
+            workbook.write(os);
+            return os.toByteArray();
+        }
+    }
+
+    private byte[] doRenderExcel(byte[] excel, int maxCols) throws IOException {
+        WorkerResources resources = workerResources();
+        if (resources.font == null) {
+            throw new IOException("未找到中文字体 " + ExcelToPdfRenderer.FONT_RESOURCE);
+        }
+        try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(excel));
+             PDDocument document = new PDDocument();
+             ByteArrayOutputStream os = new ByteArrayOutputStream(excel.length)) {
+            ExcelToPdfRenderer.drawFirstSheet(workbook, maxCols, document,
+                    PDType0Font.load(document, resources.font, true));
+            document.save(os);
+            return os.toByteArray();
+        }
+    }
+
+    private WorkerResources workerResources() throws IOException {
+        WorkerResources resources = workerResources.get();
+        if (resources == null) {
+            byte[] bytes = fontBytes();
+            TrueTypeFont font = bytes.length > 0 ? new TTFParser().parse(new RandomAccessReadBuffer(bytes)) : null;
+            resources = new WorkerResources(font);
+            workerResources.set(resources);
+        }
+        return resources;
+    }
+
+    private byte[] fontBytes() throws IOException {
+        byte[] bytes = fontBytes;
+        if (bytes == null) {
+            synchronized (this) {
+                bytes = fontBytes;
+                if (bytes == null) {
+                    try (InputStream in = ExcelToPdfRenderer.class.getResourceAsStream(ExcelToPdfRenderer.FONT_RESOURCE)) {
+                        bytes = in != null ? in.readAllBytes() : new byte[0];
+                    }
+                    if (bytes.length == 0) {
+                        log.warn("未找到中文字体 {}，PDF 无法渲染", ExcelToPdfRenderer.FONT_RESOURCE);
+                    }
+                    fontBytes = bytes;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private void recordLatency(long millis) {
+        renderCount.incrementAndGet();
+        synchronized (latencies) {
+            latencies[(int) (latencyCount % LATENCY_WINDOW)] = millis;
+            latencyCount++;
+        }
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    @FunctionalInterface
+    private interface RenderTask {
+        byte[] render() throws IOException;
+    }
+
+    private static final class WorkerResources {
+        private final TrueTypeFont font;
+
+        private WorkerResources(TrueTypeFont font) {
+            this.font = font;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.zssystem.service.impl;
+
+import com.zssystem.service.PhotoIngestService;
+import com.zssystem.util.PhotoImageUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 现场照片后台处理实现
+ * 处理线程数和排队数有上限，排满时照片保持原样（仍可查看），之后按缩略图查看时会再次排队处理；
+ * 历史照片也由此在首次按缩略图查看时补做处理。JPEG 原图压缩后原地替换，其他格式只生成缩略图。
+ */
+@Slf4j
+@Service
+public class PhotoIngestServiceImpl implements PhotoIngestService {
+
+    /** 无法解码的照片最多记住的条数（不再反复尝试） */
+    private static final int UNSUPPORTED_LIMIT = 1024;
+
+    @Value("${photo.ingest.threads:2}")
+    private int threads;
+
+    @Value("${photo.ingest.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${photo.ingest.max-edge:1920}")
+    private int maxEdge;
+
+    @Value("${photo.ingest.quality:0.82}")
+    private float quality;
+
+    @Value("${photo.ingest.thumb-edge:400}")
+    private int thumbEdge;
+
+    @Value("${photo.ingest.thumb-quality:0.75}")
+    private float thumbQuality;
+
+    private volatile ThreadPoolExecutor executor;
+
+    /** 已排队或正在处理的照片，避免重复排队 */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> unsupported = Collections.newSetFromMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > UNSUPPORTED_LIMIT;
+        }
+    });
+
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+    private final AtomicLong thumbnailBytes = new AtomicLong();
+
+    @Override
+    public void submit(String path) {
+        if (path == null || path.isBlank()) {
+            return;
+        }
+        enqueue(path);
+    }
+
+    @Override
+    public Path resolve(String path, boolean thumbnail) {
+        if (path == null || path.isBlank()) {
+            return null;
+        }
+        Path original = Paths.get(path);
+        if (thumbnail) {
+            Path thumb = PhotoImageUtil.thumbnailPath(original);
+            if (Files.isRegularFile(thumb)) {
+                return thumb;
+            }
+            if (Files.isRegularFile(original) && !isUnsupported(path)) {
+                enqueue(path);
+            }
+        }
+        return Files.isRegularFile(original) ? original : null;
+    }
+
+    @Override
+    public boolean delete(String path) throws IOException {
+        if (path == null || path.isBlank()) {
+            return false;
+        }
+        Path original = Paths.get(path);
+        Files.deleteIfExists(PhotoImageUtil.thumbnailPath(original));
+        return Files.deleteIfExists(original);
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        ThreadPoolExecutor pool = executor;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("processedCount", processedCount.get());
+        metrics.put("failureCount", failureCount.get());
+        metrics.put("rejectedCount", rejectedCount.get());
+        metrics.put("bytesIn", bytesIn.get());
+        metrics.put("bytesOut", bytesOut.get());
+        metrics.put("thumbnailBytes", thumbnailBytes.get());
+        metrics.put("threads", threads);
+        metrics.put("activeCount", pool != null ? pool.getActiveCount() : 0);
+        metrics.put("queueSize", pool != null ? pool.getQueue().size() : 0);
+        return metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ThreadPoolExecutor pool = executor;
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private void enqueue(String path) {
+        if (!pending.add(path)) {
+            return;
+        }
+        try {
+            executor().execute(() -> {
+                try {
+                    process(path);
+                } catch (Exception | OutOfMemoryError e) {
+                    failureCount.incrementAndGet();
+                    log.warn("照片处理失败: {} - {}", path, e.getMessage());
+                } finally {
+                    pending.remove(path);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(path);
+            rejectedCount.incrementAndGet();
+            log.warn("照片处理排队已满，暂不处理: {}", path);
+        }
+    }
+
+    /**
+     * 摆正方向、压缩原图（仅 JPEG）、生成缩略图。缩略图比原图新时视为已处理。
+     */
+    private void process(String path) throws IOException {
+        Path original = Paths.get(path);
+        if (!Files.isRegularFile(original)) {
+            return;
+        }
+        Path thumb = PhotoImageUtil.thumbnailPath(original);
+        if (Files.isRegularFile(thumb)
+                && Files.getLastModifiedTime(thumb).compareTo(Files.getLastModifiedTime(original)) >= 0) {
+            return;
+        }
+        long before = Files.size(original);
+        int orientation = PhotoImageUtil.readOrientation(original);
+        BufferedImage decoded = PhotoImageUtil.read(original, maxEdge);
+        if (decoded == null) {
+            markUnsupported(path);
+            log.info("照片格式无法解码，保留原图: {}", original);
+            return;
+        }
+        BufferedImage image = PhotoImageUtil.scaleToFit(PhotoImageUtil.orient(decoded, orientation), maxEdge);
+
+        if (PhotoImageUtil.isJpeg(original)) {
+            Path tmp = original.resolveSibling(original.getFileName() + ".tmp");
+            PhotoImageUtil.writeJpeg(image, quality, tmp);
+            // 需要摆正的必须替换；否则只在确实变小时替换，避免对已压缩的照片反复有损压缩
+            if (orientation != 1 || Files.size(tmp) < before) {
+                Files.move(tmp, original, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                Files.delete(tmp);
+            }
+        }
+
+        Files.createDirectories(thumb.getParent());
+        Path thumbTmp = thumb.resolveSibling(thumb.getFileName() + ".tmp");
+        PhotoImageUtil.writeJpeg(PhotoImageUtil.scaleToFit(image, thumbEdge), thumbQuality, thumbTmp);
+        Files.move(thumbTmp, thumb, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        processedCount.incrementAndGet();
+        bytesIn.addAndGet(before);
+        bytesOut.addAndGet(Files.size(original));
+        thumbnailBytes.addAndGet(Files.size(thumb));
+    }
+
+    private boolean isUnsupported(String path) {
+        synchronized (unsupported) {
+            return unsupported.contains(path);
+        }
+    }
+
+    private void markUnsupported(String path) {
+        synchronized (unsupported) {
+            unsupported.add(path);
+        }
+    }
+
+    private ThreadPoolExecutor executor() {
+        ThreadPoolExecutor pool = executor;
+        if (pool == null) {
+            synchronized (this) {
+                pool = executor;
+                if (pool == null) {
+                    AtomicInteger index = new AtomicInteger();
+                    pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                            new ArrayBlockingQueue<>(queueCapacity), r -> {
+                                Thread t = new Thread(r, "photo-ingest-" + index.incrementAndGet());
+                                t.setDaemon(true);
+                                t.setPriority(Thread.NORM_PRIORITY - 1);
+                                return t;
+                            });
+                    executor = pool;
+                }
+            }
+        }
+        return pool;
+    }
+}
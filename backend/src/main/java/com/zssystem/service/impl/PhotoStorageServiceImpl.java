@@ -0,0 +1,368 @@
+package com.zssystem.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zssystem.entity.HandoverRecord;
+import com.zssystem.entity.Site5sAreaPhoto;
+import com.zssystem.mapper.HandoverRecordMapper;
+import com.zssystem.mapper.Site5sAreaPhotoMapper;
+import com.zssystem.service.PhotoIngestService;
+import com.zssystem.service.PhotoStorageService;
+import com.zssystem.util.FileUtil;
+import com.zssystem.util.PhotoImageUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 照片内容寻址存储实现
+ * 上传内容先边写临时文件边算哈希，再以硬链接（不支持时改为移动）放到哈希路径，已存在则丢弃临时文件直接复用。
+ * 照片的引用数按 photo_path 实时统计，不另存计数；照片落盘后会被后台压缩，文件名中的哈希始终是上传时的内容哈希。
+ * 保存或复用照片时刷新文件时间，垃圾回收和释放只处理超过保留时间的照片，给尚未提交的记录留出时间。
+ */
+@Slf4j
+@Service
+public class PhotoStorageServiceImpl implements PhotoStorageService {
+
+    /** 上传临时目录（存储根目录下） */
+    private static final String TMP_DIR = "tmp";
+
+    /** 哈希分片目录名：两位十六进制 */
+    private static final Pattern SHARD = Pattern.compile("[0-9a-f]{2}");
+
+    /** 刚保存或复用的照片在此时间内不被释放删除 */
+    private static final Duration RECENT = Duration.ofMinutes(10);
+
+    /** 垃圾回收每批查询引用的照片数 */
+    private static final int GC_BATCH = 500;
+
+    @Autowired
+    private Site5sAreaPhotoMapper areaPhotoMapper;
+
+    @Autowired
+    private HandoverRecordMapper handoverRecordMapper;
+
+    @Autowired
+    private PhotoIngestService photoIngestService;
+
+    @Value("${file.upload.site5s-area-photos}")
+    private String areaPhotosPath;
+
+    @Value("${file.upload.handover-photos:/Users/czd/zssystem/uploads/handover-photos}")
+    private String handoverPhotosPath;
+
+    /** 未被引用的照片保留多久才回收（小时），覆盖交接班先上传照片、稍后提交记录的间隔 */
+    @Value("${photo.storage.gc-grace-hours:24}")
+    private long gcGraceHours;
+
+    @Override
+    public String store(MultipartFile file, Category category) throws IOException {
+        Path root = root(category);
+        Path tmpDir = root.resolve(TMP_DIR);
+        Files.createDirectories(tmpDir);
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".tmp");
+        String hash;
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            hash = HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        Path target = blobPath(root, hash, extension(file.getOriginalFilename()));
+        Files.createDirectories(target.getParent());
+        boolean created = link(tmp, target);
+        String path = target.toString();
+        if (!created) {
+            touch(target);
+            log.debug("照片内容已存在，复用: {}", path);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    if (created) {
+                        photoIngestService.submit(path);
+                    }
+                }
+            });
+        } else if (created) {
+            photoIngestService.submit(path);
+        }
+        return path;
+    }
+
+    @Override
+    public long countReferences(String path) {
+        if (path == null || path.isBlank()) {
+            return 0;
+        }
+        return areaPhotoMapper.selectCount(new LambdaQueryWrapper<Site5sAreaPhoto>()
+                        .eq(Site5sAreaPhoto::getPhotoPath, path))
+                + handoverRecordMapper.selectCount(new LambdaQueryWrapper<HandoverRecord>()
+                        .eq(HandoverRecord::getPhotoPath, path));
+    }
+
+    @Override
+    public void release(String path) {
+        if (path == null || path.isBlank()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteIfUnreferenced(path);
+                }
+            });
+        } else {
+            deleteIfUnreferenced(path);
+        }
+    }
+
+    @Override
+    public List<Path> releasable(Collection<String> paths) {
+        List<Path> files = new ArrayList<>();
+        Set<String> candidates = new HashSet<>();
+        for (String path : paths) {
+            if (path != null && !path.isBlank()) {
+                candidates.add(path);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return files;
+        }
+        Set<String> referenced = referenced(candidates);
+        for (String path : candidates) {
+            if (referenced.contains(path)) {
+                continue;
+            }
+            Path file = Paths.get(path);
+            if (recentlyUsed(file)) {
+                continue;
+            }
+            files.add(file);
+            files.add(PhotoImageUtil.thumbnailPath(file));
+        }
+        return files;
+    }
+
+    @Override
+    public Map<String, Object> collectGarbage() throws IOException {
+        long start = System.currentTimeMillis();
+        FileTime cutoff = FileTime.fromMillis(start - Duration.ofHours(gcGraceHours).toMillis());
+        long[] stats = new long[3];
+        for (Category category : Category.values()) {
+            Path root = root(category);
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            List<Path> batch = new ArrayList<>(GC_BATCH);
+            try (Stream<Path> files = Files.walk(root, 3)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    if (!isBlob(root, file) || Files.getLastModifiedTime(file).compareTo(cutoff) >= 0) {
+                        continue;
+                    }
+                    batch.add(file);
+                    if (batch.size() >= GC_BATCH) {
+                        sweep(batch, cutoff, stats);
+                        batch.clear();
+                    }
+                }
+            }
+            sweep(batch, cutoff, stats);
+            cleanTmp(root.resolve(TMP_DIR), cutoff);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("checkedCount", stats[0]);
+        result.put("deletedCount", stats[1]);
+        result.put("freedBytes", stats[2]);
+        result.put("durationMillis", System.currentTimeMillis() - start);
+        return result;
+    }
+
+    @Override
+    public boolean recentlyUsed(Path file) {
+        FileTime recent = FileTime.fromMillis(System.currentTimeMillis() - RECENT.toMillis());
+        try {
+            return Files.getLastModifiedTime(file).compareTo(recent) > 0;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * 删除一批候选照片中没有被任何记录引用的那些。
+     * 引用查询之后再次检查修改时间：遍历时读到的时间可能已过时，期间同内容的照片可能刚被复用
+     * @param cutoff 修改时间不早于该时间的照片不删除
+     * @param stats [检查数, 删除数, 释放字节数]
+     */
+    private void sweep(List<Path> batch, FileTime cutoff, long[] stats) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Set<String> paths = new HashSet<>();
+        for (Path p : batch) {
+            paths.add(p.toString());
+        }
+        Set<String> referenced = referenced(paths);
+        for (Path p : batch) {
+            stats[0]++;
+            if (referenced.contains(p.toString())) {
+                continue;
+            }
+            try {
+                if (Files.getLastModifiedTime(p).compareTo(cutoff) >= 0) {
+                    continue;
+                }
+                long size = Files.size(p);
+                Path thumb = PhotoImageUtil.thumbnailPath(p);
+                if (Files.exists(thumb)) {
+                    size += Files.size(thumb);
+                }
+                if (photoIngestService.delete(p.toString())) {
+                    stats[1]++;
+                    stats[2] += size;
+                }
+            } catch (IOException e) {
+                log.warn("回收照片失败: {} - {}", p, e.getMessage());
+            }
+        }
+    }
+
+    /** 一批路径中被记录引用的路径（两张表各一次 IN 查询） */
+    private Set<String> referenced(Collection<String> paths) {
+        Set<String> referenced = new HashSet<>();
+        areaPhotoMapper.selectList(new LambdaQueryWrapper<Site5sAreaPhoto>()
+                        .select(Site5sAreaPhoto::getPhotoPath)
+                        .in(Site5sAreaPhoto::getPhotoPath, paths))
+                .forEach(p -> referenced.add(p.getPhotoPath()));
+        handoverRecordMapper.selectList(new LambdaQueryWrapper<HandoverRecord>()
+                        .select(HandoverRecord::getPhotoPath)
+                        .in(HandoverRecord::getPhotoPath, paths))
+                .forEach(r -> referenced.add(r.getPhotoPath()));
+        return referenced;
+    }
+
+    /** 引用数为 0 且不是刚保存或刚被复用时删除；修改时间在引用查询之后检查，紧挨着删除 */
+    private void deleteIfUnreferenced(String path) {
+        try {
+            if (countReferences(path) == 0 && !recentlyUsed(Paths.get(path))) {
+                photoIngestService.delete(path);
+            }
+        } catch (Exception e) {
+            log.warn("释放照片失败: {} - {}", path, e.getMessage());
+        }
+    }
+
+    /** 清理中断的上传留下的临时文件 */
+    private void cleanTmp(Path tmpDir, FileTime cutoff) throws IOException {
+        if (!Files.isDirectory(tmpDir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(tmpDir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                if (Files.getLastModifiedTime(p).compareTo(cutoff) < 0) {
+                    Files.deleteIfExists(p);
+                }
+            }
+        }
+    }
+
+    /** 是否为哈希路径下的照片：根目录/xx/xx/文件 */
+    private static boolean isBlob(Path root, Path file) {
+        Path relative = root.relativize(file);
+        return relative.getNameCount() == 3
+                && SHARD.matcher(relative.getName(0).toString()).matches()
+                && SHARD.matcher(relative.getName(1).toString()).matches()
+                && Files.isRegularFile(file);
+    }
+
+    /**
+     * 把临时文件放到目标路径；目标已存在时删除临时文件
+     * @return 是否新放入
+     */
+    private static boolean link(Path tmp, Path target) throws IOException {
+        try {
+            try {
+                Files.createLink(target, tmp);
+                Files.delete(tmp);
+            } catch (UnsupportedOperationException e) {
+                Files.move(tmp, target);
+            }
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(tmp);
+            return false;
+        }
+    }
+
+    /** 刷新照片（及缩略图）时间，缩略图不早于原图，不会被当作过期重新处理 */
+    private static void touch(Path file) throws IOException {
+        FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+        Files.setLastModifiedTime(file, now);
+        Path thumb = PhotoImageUtil.thumbnailPath(file);
+        if (Files.exists(thumb)) {
+            Files.setLastModifiedTime(thumb, now);
+        }
+    }
+
+    private static Path blobPath(Path root, String hash, String ext) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash + ext);
+    }
+
+    /** 扩展名（小写，含点），jpeg 统一为 .jpg，无扩展名按 .jpg */
+    private static String extension(String originalName) {
+        String ext = FileUtil.getFileExtension(originalName);
+        if (ext.isEmpty() || "jpeg".equals(ext) || !ext.matches("[a-z0-9]{1,8}")) {
+            return ".jpg";
+        }
+        return "." + ext;
+    }
+
+    private Path root(Category category) {
+        return Paths.get(category == Category.HANDOVER ? handoverPhotosPath : areaPhotosPath);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.zssystem.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zssystem.dto.PlantCalendarSaveDTO;
+import com.zssystem.entity.Equipment;
+import com.zssystem.entity.EquipmentMaintenance;
+import com.zssystem.entity.PlantCalendar;
+import com.zssystem.mapper.EquipmentMaintenanceMapper;
+import com.zssystem.mapper.EquipmentMapper;
+import com.zssystem.mapper.PlantCalendarMapper;
+import com.zssystem.service.PlantCalendarService;
+import com.zssystem.util.BeanUtil;
+import com.zssystem.util.schedule.MonthBitsetCalendar;
+import com.zssystem.util.schedule.WorkCalendar;
+import com.zssystem.vo.PlantCalendarVO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Service
+public class PlantCalendarServiceImpl implements PlantCalendarService {
+
+    /** 休息（节假日/停机） */
+    public static final int DAY_TYPE_REST = 1;
+    /** 上班（加班/调班） */
+    public static final int DAY_TYPE_WORK = 2;
+
+    /** 位图缓存最多保留的月数，超出时丢弃离当前月最远的月份 */
+    private static final int MAX_CACHED_MONTHS = 24;
+
+    @Autowired
+    private PlantCalendarMapper calendarMapper;
+
+    @Autowired
+    private EquipmentMapper equipmentMapper;
+
+    @Autowired
+    private EquipmentMaintenanceMapper maintenanceMapper;
+
+    @Value("${schedule.calendar.saturday-working:true}")
+    private boolean saturdayWorking;
+
+    /** 全厂月位图缓存：月份 -> 上班位图 */
+    private final Map<YearMonth, Integer> plantMasks = new ConcurrentHashMap<>();
+
+    /** 机台月位图缓存：月份 -> (机台号 -> 高32位加班位图、低32位停机位图) */
+    private final Map<YearMonth, Map<String, Long>> machineMasks = new ConcurrentHashMap<>();
+
+    @Override
+    public List<PlantCalendarVO> getCalendarList(LocalDate startDate, LocalDate endDate, String machineNo) {
+        LambdaQueryWrapper<PlantCalendar> wrapper = new LambdaQueryWrapper<>();
+        wrapper.ge(startDate != null, PlantCalendar::getCalendarDate, startDate)
+                .le(endDate != null, PlantCalendar::getCalendarDate, endDate);
+        if (machineNo != null && !machineNo.isBlank()) {
+            wrapper.and(w -> w.isNull(PlantCalendar::getMachineNo).or().eq(PlantCalendar::getMachineNo, machineNo));
+        }
+        wrapper.orderByAsc(PlantCalendar::getCalendarDate);
+        return calendarMapper.selectList(wrapper).stream().map(day -> {
+            PlantCalendarVO vo = BeanUtil.copyProperties(day, PlantCalendarVO.class);
+            vo.setDayTypeText(day.getDayType() != null && day.getDayType() == DAY_TYPE_WORK ? "上班" : "休息");
+            return vo;
+        }).collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public void createCalendarDay(PlantCalendarSaveDTO saveDTO) {
+        validate(saveDTO);
+        PlantCalendar day = BeanUtil.copyProperties(saveDTO, PlantCalendar.class);
+        day.setMachineNo(blankToNull(saveDTO.getMachineNo()));
+        calendarMapper.insert(day);
+        clearCache();
+    }
+
+    @Override
+    @Transactional
+    public void updateCalendarDay(Long id, PlantCalendarSaveDTO saveDTO) {
+        PlantCalendar day = calendarMapper.selectById(id);
+        if (day == null) {
+            throw new RuntimeException("日历记录不存在");
+        }
+        validate(saveDTO);
+        BeanUtil.copyProperties(saveDTO, day, "id", "createTime", "updateTime", "deleted");
+        day.setMachineNo(blankToNull(saveDTO.getMachineNo()));
+        calendarMapper.updateById(day);
+        clearCache();
+    }
+
+    @Override
+    @Transactional
+    public void deleteCalendarDay(Long id) {
+        if (calendarMapper.selectById(id) == null) {
+            throw new RuntimeException("日历记录不存在");
+        }
+        calendarMapper.deleteById(id);
+        clearCache();
+    }
+
+    @Override
+    public WorkCalendar getPlantCalendar() {
+        return new MonthBitsetCalendar(this::plantMask);
+    }
+
+    @Override
+    public WorkCalendar getMachineCalendar(String machineNo) {
+        if (machineNo == null || machineNo.isBlank()) {
+            return getPlantCalendar();
+        }
+        return new MonthBitsetCalendar(month -> {
+            long packed = machineMonth(month).computeIfAbsent(machineNo, k -> loadMachineMask(machineNo, month));
+            int overtime = (int) (packed >>> 32);
+            int downtime = (int) packed;
+            return (plantMask(month) | overtime) & ~downtime;
+        });
+    }
+
+    @Override
+    public void evictMachineCalendars() {
+        evictAfterCompletion(machineMasks::clear);
+    }
+
+    private void clearCache() {
+        evictAfterCompletion(() -> {
+            plantMasks.clear();
+            machineMasks.clear();
+        });
+    }
+
+    /**
+     * 立即清除，并在事务结束后再清除一次：提交前读取的旧日历可能在此期间重新放回缓存
+     */
+    private static void evictAfterCompletion(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private int plantMask(YearMonth month) {
+        Integer mask = plantMasks.get(month);
+        if (mask == null) {
+            mask = plantMasks.computeIfAbsent(month, this::loadPlantMask);
+            trimMonths(plantMasks);
+        }
+        return mask;
+    }
+
+    private Map<String, Long> machineMonth(YearMonth month) {
+        Map<String, Long> byMachine = machineMasks.get(month);
+        if (byMachine == null) {
+            byMachine = machineMasks.computeIfAbsent(month, m -> new ConcurrentHashMap<>());
+            trimMonths(machineMasks);
+        }
+        return byMachine;
+    }
+
+    /**
+     * 缓存月份超过上限时丢弃离当前月最远的月份（排程只用到当前月前后的日历）
+     */
+    private static void trimMonths(Map<YearMonth, ?> cache) {
+        YearMonth now = YearMonth.now();
+        Comparator<YearMonth> byDistance = Comparator.comparingLong(m -> Math.abs(now.until(m, ChronoUnit.MONTHS)));
+        while (cache.size() > MAX_CACHED_MONTHS) {
+            cache.keySet().stream().max(byDistance).ifPresent(cache::remove);
+        }
+    }
+
+    /**
+     * 全厂位图：基础规则 + 全厂节假日/加班
+     */
+    private int loadPlantMask(YearMonth month) {
+        int mask = MonthBitsetCalendar.baseMask(month, saturdayWorking);
+        List<PlantCalendar> days = calendarMapper.selectList(
+            new LambdaQueryWrapper<PlantCalendar>()
+                .isNull(PlantCalendar::getMachineNo)
+                .between(PlantCalendar::getCalendarDate, month.atDay(1), month.atEndOfMonth())
+        );
+        for (PlantCalendar day : days) {
+            int bit = MonthBitsetCalendar.bit(day.getCalendarDate().getDayOfMonth());
+            if (day.getDayType() != null && day.getDayType() == DAY_TYPE_WORK) {
+                mask |= bit;
+            } else {
+                mask &= ~bit;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 机台位图：机台加班日、机台停机日及该机台设备的维护日
+     */
+    private long loadMachineMask(String machineNo, YearMonth month) {
+        int overtime = 0;
+        int downtime = 0;
+        List<PlantCalendar> days = calendarMapper.selectList(
+            new LambdaQueryWrapper<PlantCalendar>()
+                .eq(PlantCalendar::getMachineNo, machineNo)
+                .between(PlantCalendar::getCalendarDate, month.atDay(1), month.atEndOfMonth())
+        );
+        for (PlantCalendar day : days) {
+            int bit = MonthBitsetCalendar.bit(day.getCalendarDate().getDayOfMonth());
+            if (day.getDayType() != null && day.getDayType() == DAY_TYPE_WORK) {
+                overtime |= bit;
+            } else {
+                downtime |= bit;
+            }
+        }
+
+        List<Long> equipmentIds = equipmentMapper.selectList(
+            new LambdaQueryWrapper<Equipment>()
+                .select(Equipment::getId)
+                .eq(Equipment::getMachineNo, machineNo)
+        ).stream().map(Equipment::getId).collect(Collectors.toList());
+        if (!equipmentIds.isEmpty()) {
+            List<EquipmentMaintenance> maintenances = maintenanceMapper.selectList(
+                new LambdaQueryWrapper<EquipmentMaintenance>()
+                    .select(EquipmentMaintenance::getMaintenanceDate)
+                    .in(EquipmentMaintenance::getEquipmentId, equipmentIds)
+                    .between(EquipmentMaintenance::getMaintenanceDate, month.atDay(1), month.atEndOfMonth())
+            );
+            for (EquipmentMaintenance maintenance : maintenances) {
+                downtime |= MonthBitsetCalendar.bit(maintenance.getMaintenanceDate().getDayOfMonth());
+            }
+        }
+        return ((long) overtime << 32) | (downtime & 0xFFFFFFFFL);
+    }
+
+    private void validate(PlantCalendarSaveDTO saveDTO) {
+        if (saveDTO.getDayType() != DAY_TYPE_REST && saveDTO.getDayType() != DAY_TYPE_WORK) {
+            throw new RuntimeException("日历类型只能为1（休息）或2（上班）");
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
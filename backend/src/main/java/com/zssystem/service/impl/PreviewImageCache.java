@@ -0,0 +1,87 @@
+package com.zssystem.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 预览图片缓存：按内容哈希保存 HTML 预览中引用的图片（签名、受控章、尺寸图等）
+ * 预览 HTML 只写图片地址 {@link #URL_PREFIX}{哈希}，浏览器通过公开接口取图；相同内容的图片只保存一份，
+ * 地址随内容变化，可长期缓存。按总字节数淘汰最久未用的图片，预览每次返回 HTML 时重新放入所引用的图片。
+ */
+@Component
+public class PreviewImageCache {
+
+    /** 图片地址前缀（公开接口，见 PreviewImageController） */
+    public static final String URL_PREFIX = "/api/qr/preview-image/";
+
+    /** 图片内容 */
+    public static final class Image {
+        private final byte[] data;
+        private final String mimeType;
+
+        public Image(byte[] data, String mimeType) {
+            this.data = data;
+            this.mimeType = mimeType;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public String getMimeType() {
+            return mimeType;
+        }
+    }
+
+    @Value("${process-file.preview-image.max-bytes:67108864}")
+    private long maxBytes;
+
+    /** 内容哈希 -> 图片，按访问顺序淘汰 */
+    private final LinkedHashMap<String, Image> images = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long totalBytes;
+
+    public synchronized Image get(String hash) {
+        return images.get(hash);
+    }
+
+    /**
+     * 放入一批图片（已存在的只刷新访问顺序）
+     */
+    public synchronized void putAll(Map<String, Image> batch) {
+        for (Map.Entry<String, Image> e : batch.entrySet()) {
+            Image previous = images.put(e.getKey(), e.getValue());
+            if (previous == null) {
+                totalBytes += e.getValue().data.length;
+            } else {
+                totalBytes += e.getValue().data.length - previous.data.length;
+            }
+        }
+        Iterator<Map.Entry<String, Image>> it = images.entrySet().iterator();
+        while (totalBytes > maxBytes && images.size() > batch.size() && it.hasNext()) {
+            Map.Entry<String, Image> eldest = it.next();
+            if (batch.containsKey(eldest.getKey())) {
+                continue;
+            }
+            totalBytes -= eldest.getValue().data.length;
+            it.remove();
+        }
+    }
+
+    /** 图片内容哈希（SHA-256 前 16 字节，十六进制） */
+    public static String hash(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
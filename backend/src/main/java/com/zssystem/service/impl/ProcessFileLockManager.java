@@ -0,0 +1,30 @@
+package com.zssystem.service.impl;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 工艺文件读写锁（按工艺文件ID分段）
+ * 读锁：读取底稿合成 Excel；写锁：生成或删除底稿文件。
+ * 锁的个数固定，不随文件数量增长，不同文件落在同一段时只是偶尔互相等待。
+ */
+@Component
+public class ProcessFileLockManager {
+
+    private static final int STRIPES = 64;
+
+    private final ReadWriteLock[] locks = new ReadWriteLock[STRIPES];
+
+    public ProcessFileLockManager() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    public ReadWriteLock forFile(Long fileId) {
+        int hash = fileId == null ? 0 : Long.hashCode(fileId);
+        return locks[Math.floorMod(hash, STRIPES)];
+    }
+}
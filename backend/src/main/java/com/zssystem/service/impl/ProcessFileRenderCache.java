@@ -0,0 +1,170 @@
+package com.zssystem.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 工艺文件渲染结果缓存
+ * 按工艺文件ID保存最终的 Excel、网页 HTML、PDF 用 HTML 和 PDF 字节，各产物在首次使用时生成。
+ * 每个条目带有版本号（详细内容版本、签名集合摘要、状态），版本不一致时整条丢弃重新生成；
+ * 保存表单、签名、审批、作废时由对应服务调用 {@link #evict(Long)} 及时释放。
+ * 同一版本的同一产物同时被多个请求访问时只渲染一次，其余请求等待该次结果。
+ * 按全部产物的总字节数淘汰最久未用的条目（含内嵌图片，字符串按每字符 2 字节估算）。
+ */
+@Component
+public class ProcessFileRenderCache {
+
+    /** 渲染产物类型 */
+    public enum Artifact {
+        EXCEL, HTML, PDF_HTML, PDF
+    }
+
+    /** 产物渲染逻辑 */
+    @FunctionalInterface
+    public interface Renderer<T> {
+        T render() throws IOException;
+    }
+
+    /** 由产物自身给出占用字节数（byte[] 和 String 以外的产物实现） */
+    public interface Sized {
+        long byteSize();
+    }
+
+    @Value("${process-file.render-cache.max-bytes:134217728}")
+    private long maxBytes;
+
+    /** 工艺文件ID -> 渲染结果，按访问顺序淘汰最久未用的条目 */
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** 仍在缓存中的条目已生成产物的总字节数 */
+    private long totalBytes;
+
+    /**
+     * 获取与版本号一致的缓存条目，不存在或版本不一致时放入一个空条目
+     */
+    public synchronized Entry get(Long fileId, String version) {
+        Entry entry = entries.get(fileId);
+        if (entry == null || !entry.version.equals(version)) {
+            entry = new Entry(this, fileId, version);
+            Entry previous = entries.put(fileId, entry);
+            if (previous != null) {
+                totalBytes -= previous.bytes;
+            }
+        }
+        return entry;
+    }
+
+    public synchronized void evict(Long fileId) {
+        Entry removed = entries.remove(fileId);
+        if (removed != null) {
+            totalBytes -= removed.bytes;
+        }
+    }
+
+    /**
+     * 条目生成了一个产物：计入总字节数，超出上限时淘汰最久未用的其他条目；
+     * 单个条目本身就超出上限时也不保留（本次请求仍拿到结果）
+     */
+    private synchronized void added(Entry entry, long bytes) {
+        if (entries.get(entry.fileId) != entry) {
+            return;
+        }
+        entry.bytes += bytes;
+        totalBytes += bytes;
+        if (entry.bytes > maxBytes) {
+            entries.remove(entry.fileId);
+            totalBytes -= entry.bytes;
+            return;
+        }
+        Iterator<Map.Entry<Long, Entry>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            if (eldest == entry) {
+                continue;
+            }
+            totalBytes -= eldest.bytes;
+            it.remove();
+        }
+    }
+
+    private static long byteSize(Object value) {
+        if (value instanceof byte[] bytes) {
+            return bytes.length;
+        }
+        if (value instanceof String text) {
+            return 2L * text.length();
+        }
+        if (value instanceof Sized sized) {
+            return sized.byteSize();
+        }
+        return 0;
+    }
+
+    /**
+     * 单个工艺文件某一版本的渲染结果
+     */
+    public static final class Entry {
+        private final ProcessFileRenderCache cache;
+        private final Long fileId;
+        private final String version;
+        private final Map<Artifact, CompletableFuture<Object>> artifacts = new ConcurrentHashMap<>();
+
+        /** 已生成产物的字节数，由 cache 加锁维护 */
+        private long bytes;
+
+        private Entry(ProcessFileRenderCache cache, Long fileId, String version) {
+            this.cache = cache;
+            this.fileId = fileId;
+            this.version = version;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * 取产物；尚未生成时由第一个请求渲染，同时到达的请求等待同一次渲染结果。
+         * 渲染失败时移除占位，下一个请求重新渲染。
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T load(Artifact artifact, Renderer<T> renderer) throws IOException {
+            CompletableFuture<Object> created = new CompletableFuture<>();
+            CompletableFuture<Object> existing = artifacts.putIfAbsent(artifact, created);
+            if (existing == null) {
+                try {
+                    T value = renderer.render();
+                    created.complete(value);
+                    cache.added(this, byteSize(value));
+                    return value;
+                } catch (IOException | RuntimeException | Error e) {
+                    artifacts.remove(artifact, created);
+                    created.completeExceptionally(e);
+                    throw e;
+                }
+            }
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException ioe) {
+                    throw ioe;
+                }
+                if (cause instanceof RuntimeException re) {
+                    throw re;
+                }
+                if (cause instanceof Error err) {
+                    throw err;
+                }
+                throw e;
+            }
+        }
+    }
+}
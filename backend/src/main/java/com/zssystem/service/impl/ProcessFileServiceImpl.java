@@ -9,15 +9,19 @@ import com.zssystem.dto.ProcessFileUploadDTO;
 import com.zssystem.entity.*;
 import com.zssystem.mapper.*;
 import com.zssystem.service.ProcessFileService;
+import com.zssystem.util.ProcessFileExcelUtil;
 import com.zssystem.vo.ProcessFileApprovalVO;
 import com.zssystem.vo.ProcessFileSealVO;
 import com.zssystem.vo.ProcessFileVO;
 import com.zssystem.vo.ProcessFileSignatureVO;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
@@ -33,6 +37,7 @@ import java.util.stream.Collectors;
 /**
  * 工艺文件Service实现类
  */
+@Slf4j
 @Service
 public class ProcessFileServiceImpl implements ProcessFileService {
 
@@ -57,6 +62,21 @@ public class ProcessFileServiceImpl implements ProcessFileService {
     @Autowired(required = false)
     private com.zssystem.service.ProcessFileSignatureService signatureService;
     
+    @Autowired
+    private ProcessFileRenderCache renderCache;
+    
+    @Autowired
+    private ProcessFileLockManager lockManager;
+    
+    @Autowired
+    private QrArtifactCache qrArtifactCache;
+
+    @Autowired
+    private com.zssystem.service.PdfRenderService pdfRenderService;
+
+    @Autowired
+    private PreviewImageCache previewImageCache;
+    
     @Value("${file.upload.path:/data/uploads/process-files}")
     private String uploadPath;
     
@@ -161,6 +181,7 @@ public class ProcessFileServiceImpl implements ProcessFileService {
             // 将原文件标记为历史版本
             oldFile.setIsCurrent(0);
             processFileMapper.updateById(oldFile);
+            renderCache.evict(oldFile.getId());
             
             // 创建新版本
             processFile = new ProcessFile();
@@ -225,6 +246,7 @@ public class ProcessFileServiceImpl implements ProcessFileService {
             // 将原文件标记为历史版本
             oldFile.setIsCurrent(0);
             processFileMapper.updateById(oldFile);
+            renderCache.evict(oldFile.getId());
             
             // 创建新版本
             processFile = new ProcessFile();
@@ -431,6 +453,8 @@ public class ProcessFileServiceImpl implements ProcessFileService {
         }
         
         processFileMapper.updateById(processFile);
+        renderCache.evict(processFile.getId());
+        qrArtifactCache.invalidate(processFile.getEquipmentId());
     }
     
     @Override
@@ -445,6 +469,8 @@ public class ProcessFileServiceImpl implements ProcessFileService {
         processFile.setInvalidTime(LocalDateTime.now());
         processFile.setEnabled(0); // 作废时设为搁置
         processFileMapper.updateById(processFile);
+        renderCache.evict(fileId);
+        qrArtifactCache.invalidate(processFile.getEquipmentId());
     }
     
     @Override
@@ -455,8 +481,9 @@ public class ProcessFileServiceImpl implements ProcessFileService {
             throw new RuntimeException("工艺文件不存在");
         }
         
-        // 1. 删除关联数据（物理删除）
+        // 1. 删除关联数据（物理删除），签名图片及裁剪叠加层在提交后删除
         processFileDetailMapper.deletePhysicalByFileId(fileId);
+        deleteSignatureImagesAfterCommit(processFileSignatureMapper.selectImagePathsByFileId(fileId));
         processFileSignatureMapper.deletePhysicalByFileId(fileId);
         approvalMapper.delete(new LambdaQueryWrapper<ProcessFileApproval>().eq(ProcessFileApproval::getFileId, fileId));
         sealMapper.delete(new LambdaQueryWrapper<ProcessFileSeal>().eq(ProcessFileSeal::getFileId, fileId));
@@ -464,17 +491,58 @@ public class ProcessFileServiceImpl implements ProcessFileService {
         // 2. 删除磁盘上的Excel文件（如存在）
         String filePath = processFile.getFilePath();
         if (filePath != null && !filePath.isEmpty()) {
+            java.util.concurrent.locks.Lock writeLock = lockManager.forFile(fileId).writeLock();
+            writeLock.lock();
             try {
                 com.zssystem.util.FileUtil.deleteFile(filePath);
             } catch (Exception e) {
                 System.err.println("删除Excel文件失败: " + filePath + ", " + e.getMessage());
+            } finally {
+                writeLock.unlock();
             }
         }
         
         // 3. 物理删除主表
         processFileMapper.deletePhysicalById(fileId);
+        renderCache.evict(fileId);
+        qrArtifactCache.invalidate(processFile.getEquipmentId());
     }
     
+    /**
+     * 签名图片（及合成用的裁剪叠加层）在事务提交后删除，回滚时保留
+     */
+    private void deleteSignatureImagesAfterCommit(List<String> imagePaths) {
+        List<Path> files = new ArrayList<>();
+        for (String path : imagePaths) {
+            if (path != null && !path.isBlank()) {
+                files.add(Paths.get(path));
+                files.add(Paths.get(ProcessFileExcelUtil.signatureOverlayPath(path)));
+            }
+        }
+        if (files.isEmpty()) {
+            return;
+        }
+        Runnable delete = () -> {
+            for (Path file : files) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("删除签名图片失败: {} - {}", file, e.getMessage());
+                }
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    delete.run();
+                }
+            });
+        } else {
+            delete.run();
+        }
+    }
+
     @Override
     @Transactional
     public int batchDeleteByEquipmentIdPhysical(Long equipmentId) {
@@ -507,7 +575,9 @@ public class ProcessFileServiceImpl implements ProcessFileService {
             pf.setInvalidTime(now);
             pf.setEnabled(0);
             processFileMapper.updateById(pf);
+            renderCache.evict(pf.getId());
         }
+        qrArtifactCache.invalidate(equipmentId);
         return list.size();
     }
     
@@ -532,11 +602,13 @@ public class ProcessFileServiceImpl implements ProcessFileService {
         for (ProcessFile pf : others) {
             pf.setEnabled(0);
             processFileMapper.updateById(pf);
+            qrArtifactCache.invalidate(pf.getEquipmentId());
         }
         
         // 当前工艺文件设为启用
         processFile.setEnabled(1);
         processFileMapper.updateById(processFile);
+        qrArtifactCache.invalidate(processFile.getEquipmentId());
     }
     
     @Override
@@ -548,90 +620,213 @@ public class ProcessFileServiceImpl implements ProcessFileService {
         }
         processFile.setEnabled(0);
         processFileMapper.updateById(processFile);
+        qrArtifactCache.invalidate(processFile.getEquipmentId());
     }
     
     @Override
     public byte[] downloadProcessFile(Long fileId) throws IOException {
-        String excelFilePath = ensureExcelReadyAndGetPath(fileId);
-        Path path = Paths.get(excelFilePath);
-        byte[] fileContent = Files.readAllBytes(path);
-        return fileContent;
+        return renderedExcel(fileId, renderEntry(fileId));
+    }
+
+    @Override
+    public com.zssystem.vo.DownloadContentVO getProcessFileDownload(Long fileId) throws IOException {
+        ProcessFileRenderCache.Entry entry = renderEntry(fileId);
+        com.zssystem.vo.DownloadContentVO content = new com.zssystem.vo.DownloadContentVO();
+        content.setBody(renderedExcel(fileId, entry));
+        content.setEtag("\"" + fileId + "-" + PreviewImageCache.hash(
+                entry.getVersion().getBytes(java.nio.charset.StandardCharsets.UTF_8)) + "\"");
+        return content;
     }
 
     @Override
     public String getPreviewHtml(Long fileId) throws IOException {
-        String excelFilePath = ensureExcelReadyAndGetPath(fileId);
-        return com.zssystem.util.ProcessFileExcelToHtmlConverter.convertToHtml(excelFilePath);
+        ProcessFileRenderCache.Entry entry = renderEntry(fileId);
+        PreviewHtml preview = entry.load(ProcessFileRenderCache.Artifact.HTML, () -> renderPreviewHtml(fileId, entry));
+        // 预览引用的图片重新放入图片缓存，保证 HTML 返回后图片地址可取
+        previewImageCache.putAll(preview.images);
+        return preview.html;
+    }
+
+    /**
+     * 生成网页预览 HTML：图片按内容哈希引用图片接口，不内嵌 base64
+     */
+    private PreviewHtml renderPreviewHtml(Long fileId, ProcessFileRenderCache.Entry entry) throws IOException {
+        Map<String, PreviewImageCache.Image> images = new HashMap<>();
+        String html = com.zssystem.util.ProcessFileExcelToHtmlConverter.convertToHtml(
+                new java.io.ByteArrayInputStream(renderedExcel(fileId, entry)), (data, mimeType) -> {
+                    String hash = PreviewImageCache.hash(data);
+                    images.putIfAbsent(hash, new PreviewImageCache.Image(data, mimeType));
+                    return PreviewImageCache.URL_PREFIX + hash;
+                });
+        return new PreviewHtml(html, images);
+    }
+
+    /** 网页预览 HTML 及其引用的图片 */
+    private static final class PreviewHtml implements ProcessFileRenderCache.Sized {
+        private final String html;
+        private final Map<String, PreviewImageCache.Image> images;
+
+        private PreviewHtml(String html, Map<String, PreviewImageCache.Image> images) {
+            this.html = html;
+            this.images = images;
+        }
+
+        @Override
+        public long byteSize() {
+            long size = 2L * html.length();
+            for (PreviewImageCache.Image image : images.values()) {
+                size += image.getData().length;
+            }
+            return size;
+        }
     }
 
     @Override
     public String getPreviewHtmlForPdf(Long fileId) throws IOException {
-        String excelFilePath = ensureExcelReadyAndGetPath(fileId);
-        return com.zssystem.util.ProcessFileExcelToHtmlConverter.convertToHtmlForPdf(excelFilePath);
+        return renderedPdfHtml(fileId, renderEntry(fileId));
+    }
+
+    @Override
+    public byte[] getPreviewPdf(Long fileId) throws IOException {
+        ProcessFileRenderCache.Entry entry = renderEntry(fileId);
+        return entry.load(ProcessFileRenderCache.Artifact.PDF, () ->
+                pdfRenderService.excelToPdf(renderedExcel(fileId, entry),
+                        com.zssystem.util.ProcessFileExcelToHtmlConverter.MAX_COLS));
     }
 
     /**
-     * 确保 Excel 文件已生成且包含最新签名和受控章，返回文件路径
+     * 取当前版本的渲染缓存条目
+     * 版本号 = 详细内容ID及更新时间 + 签名集合摘要 + 文件状态，三者任一变化都视为新版本
      */
-    private String ensureExcelReadyAndGetPath(Long fileId) throws IOException {
+    private ProcessFileRenderCache.Entry renderEntry(Long fileId) {
+        ProcessFile file = processFileMapper.selectById(fileId);
+        if (file == null) {
+            throw new RuntimeException("文件不存在");
+        }
+        com.zssystem.entity.ProcessFileDetail detail = processFileDetailMapper.selectOne(
+                new LambdaQueryWrapper<com.zssystem.entity.ProcessFileDetail>()
+                        .select(com.zssystem.entity.ProcessFileDetail::getId, com.zssystem.entity.ProcessFileDetail::getUpdateTime)
+                        .eq(com.zssystem.entity.ProcessFileDetail::getFileId, fileId).last("LIMIT 1"));
+        List<ProcessFileSignature> signatures = processFileSignatureMapper.selectList(
+                new LambdaQueryWrapper<ProcessFileSignature>()
+                        .select(ProcessFileSignature::getId, ProcessFileSignature::getSignatureType,
+                                ProcessFileSignature::getSignatureImagePath)
+                        .eq(ProcessFileSignature::getFileId, fileId)
+                        .orderByAsc(ProcessFileSignature::getId));
+        int signatureHash = 1;
+        for (ProcessFileSignature s : signatures) {
+            signatureHash = 31 * signatureHash + Objects.hash(s.getId(), s.getSignatureType(), s.getSignatureImagePath());
+        }
+        String version = (detail == null ? "-" : detail.getId() + "@" + detail.getUpdateTime())
+                + "|" + signatures.size() + ":" + Integer.toHexString(signatureHash)
+                + "|" + file.getStatus();
+        return renderCache.get(fileId, version);
+    }
+
+    private byte[] renderedExcel(Long fileId, ProcessFileRenderCache.Entry entry) throws IOException {
+        return entry.load(ProcessFileRenderCache.Artifact.EXCEL, () -> renderExcel(fileId));
+    }
+
+    private String renderedPdfHtml(Long fileId, ProcessFileRenderCache.Entry entry) throws IOException {
+        return entry.load(ProcessFileRenderCache.Artifact.PDF_HTML, () ->
+                com.zssystem.util.ProcessFileExcelToHtmlConverter.convertToHtmlForPdf(
+                        new java.io.ByteArrayInputStream(renderedExcel(fileId, entry))));
+    }
+
+    /**
+     * 合成最终的工艺文件 Excel：底稿 + 签名叠加层 + 受控章（已批准时），底稿文件本身不修改
+     */
+    private byte[] renderExcel(Long fileId) throws IOException {
         System.out.println("开始准备工艺文件，ID: " + fileId);
         ProcessFile file = processFileMapper.selectById(fileId);
         if (file == null) {
             throw new RuntimeException("文件不存在");
         }
-        String excelFilePath = file.getFilePath();
-        boolean needGenerate = "form".equals(file.getFileType())
-                || excelFilePath == null || excelFilePath.isEmpty()
-                || !Files.exists(Paths.get(excelFilePath));
-        if (needGenerate) {
-            com.zssystem.entity.ProcessFileDetail detail = processFileDetailMapper.selectOne(
-                    new LambdaQueryWrapper<com.zssystem.entity.ProcessFileDetail>()
-                            .eq(com.zssystem.entity.ProcessFileDetail::getFileId, fileId).last("LIMIT 1"));
-            if (detail == null) throw new RuntimeException("工艺文件详细内容不存在");
-            Equipment equipment = equipmentMapper.selectById(file.getEquipmentId());
-            if (equipment == null) throw new RuntimeException("设备信息不存在");
-            excelFilePath = com.zssystem.util.ProcessFileExcelGenerator.generateProcessFileExcel(
-                    file, detail, equipment, uploadPath);
-            file.setFilePath(excelFilePath);
-            java.io.File excelFile = new java.io.File(excelFilePath);
-            if (!excelFile.exists()) throw new RuntimeException("Excel文件生成失败");
-            file.setFileSize(excelFile.length());
-            file.setFileType("xlsx");
-            processFileMapper.updateById(file);
-            insertSignaturesToExcel(excelFilePath, fileId);
-        } else {
-            insertSignaturesToExcel(excelFilePath, fileId);
+        String basePath = ensureBaseExcelAndGetPath(file);
+        boolean controlledSeal = file.getStatus() != null && file.getStatus() == 5;
+        List<com.zssystem.util.ProcessFileExcelUtil.SignatureStamp> stamps = collectSignatureStamps(fileId);
+        java.util.concurrent.locks.Lock readLock = lockManager.forFile(fileId).readLock();
+        readLock.lock();
+        try (java.io.InputStream base = Files.newInputStream(Paths.get(basePath))) {
+            java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream((int) Files.size(Paths.get(basePath)) + 64 * 1024);
+            com.zssystem.util.ProcessFileExcelUtil.composeProcessFileExcel(base, stamps, controlledSeal, out);
+            return out.toByteArray();
+        } finally {
+            readLock.unlock();
         }
-        if (file.getStatus() != null && file.getStatus() == 5) {
+    }
+
+    /**
+     * 确保底稿 Excel 已生成，返回底稿路径
+     * 底稿只在表单首次下载或文件丢失时生成一次，之后保持不变，签名和受控章在合成时叠加
+     */
+    private String ensureBaseExcelAndGetPath(ProcessFile file) throws IOException {
+        if (needGenerateBase(file)) {
+            java.util.concurrent.locks.Lock writeLock = lockManager.forFile(file.getId()).writeLock();
+            writeLock.lock();
             try {
-                com.zssystem.util.ProcessFileExcelUtil.insertControlledSealToExcel(excelFilePath);
-            } catch (Exception e) {
-                System.err.println("插入受控章失败: " + e.getMessage());
+                // 拿到写锁后重新读取，其他请求可能已生成底稿
+                ProcessFile latest = processFileMapper.selectById(file.getId());
+                if (latest == null) {
+                    throw new RuntimeException("文件不存在");
+                }
+                if (needGenerateBase(latest)) {
+                    generateBaseExcel(latest);
+                }
+                file.setFilePath(latest.getFilePath());
+                file.setFileType(latest.getFileType());
+            } finally {
+                writeLock.unlock();
             }
         }
+        String excelFilePath = file.getFilePath();
         if (!Files.exists(Paths.get(excelFilePath))) {
             throw new RuntimeException("Excel文件生成失败或不存在");
         }
-        com.zssystem.util.ProcessFileExcelUtil.applyPrintSettingsToFile(excelFilePath);
         return excelFilePath;
     }
 
-    private void insertSignaturesToExcel(String excelFilePath, Long fileId) {
-        if (signatureService == null) return;
+    private boolean needGenerateBase(ProcessFile file) {
+        String excelFilePath = file.getFilePath();
+        return "form".equals(file.getFileType())
+                || excelFilePath == null || excelFilePath.isEmpty()
+                || !Files.exists(Paths.get(excelFilePath));
+    }
+
+    private void generateBaseExcel(ProcessFile file) throws IOException {
+        com.zssystem.entity.ProcessFileDetail detail = processFileDetailMapper.selectOne(
+                new LambdaQueryWrapper<com.zssystem.entity.ProcessFileDetail>()
+                        .eq(com.zssystem.entity.ProcessFileDetail::getFileId, file.getId()).last("LIMIT 1"));
+        if (detail == null) throw new RuntimeException("工艺文件详细内容不存在");
+        Equipment equipment = equipmentMapper.selectById(file.getEquipmentId());
+        if (equipment == null) throw new RuntimeException("设备信息不存在");
+        String excelFilePath = com.zssystem.util.ProcessFileExcelGenerator.generateProcessFileExcel(
+                file, detail, equipment, uploadPath);
+        file.setFilePath(excelFilePath);
+        java.io.File excelFile = new java.io.File(excelFilePath);
+        if (!excelFile.exists()) throw new RuntimeException("Excel文件生成失败");
+        file.setFileSize(excelFile.length());
+        file.setFileType("xlsx");
+        processFileMapper.updateById(file);
+    }
+
+    private List<com.zssystem.util.ProcessFileExcelUtil.SignatureStamp> collectSignatureStamps(Long fileId) {
+        List<com.zssystem.util.ProcessFileExcelUtil.SignatureStamp> stamps = new ArrayList<>();
+        if (signatureService == null) return stamps;
         try {
             List<com.zssystem.vo.ProcessFileSignatureVO> signatures = signatureService.getSignaturesByFileId(fileId);
             if (signatures != null) {
                 for (com.zssystem.vo.ProcessFileSignatureVO s : signatures) {
                     String sp = s.getSignatureImagePath();
                     if (sp != null && !sp.isEmpty() && new java.io.File(sp).exists()) {
-                        com.zssystem.util.ProcessFileExcelGenerator.insertSignatureToGeneratedExcel(
-                                excelFilePath, sp, s.getSignatureType());
+                        stamps.add(new com.zssystem.util.ProcessFileExcelUtil.SignatureStamp(s.getSignatureType(), sp));
                     }
                 }
             }
         } catch (Exception e) {
-            System.err.println("插入签名失败: " + e.getMessage());
+            System.err.println("查询签名失败: " + e.getMessage());
         }
+        return stamps;
     }
     
     @Override
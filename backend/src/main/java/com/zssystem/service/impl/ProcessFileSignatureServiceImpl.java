@@ -39,6 +39,9 @@ public class ProcessFileSignatureServiceImpl implements ProcessFileSignatureServ
     @Autowired
     private com.zssystem.mapper.ProcessFileMapper processFileMapper;
     
+    @Autowired
+    private ProcessFileRenderCache renderCache;
+    
     @Value("${file.upload.path}")
     private String uploadPath;
     
@@ -82,33 +85,13 @@ public class ProcessFileSignatureServiceImpl implements ProcessFileSignatureServ
         
         signatureMapper.insert(signature);
         
-        // 4. 将签名图片插入到工艺文件Excel中
+        // 4. 生成签名叠加层（裁剪空白后单独保存），Excel 在下载/预览时由底稿与叠加层合成，这里不再改写底稿
         try {
-            System.out.println("准备将签名插入到Excel文件...");
-            System.out.println("工艺文件路径: " + processFile.getFilePath());
-            System.out.println("签名图片路径: " + signatureImagePath);
-            System.out.println("签名类型: " + signatureDTO.getSignatureType());
-            
-            boolean success = ProcessFileExcelUtil.insertSignatureToExcel(
-                processFile.getFilePath(),
-                signatureImagePath,
-                signatureDTO.getSignatureType()
-            );
-            
-            if (success) {
-                System.out.println("✓ 签名图片已成功插入到Excel文件");
-            } else {
-                System.err.println("✗ 警告: 签名图片插入Excel失败，但签名记录已保存");
-                System.err.println("请检查:");
-                System.err.println("  1. Excel文件是否存在: " + processFile.getFilePath());
-                System.err.println("  2. Excel文件中是否包含相应的标签（编制人/审核人/会签/批准人）");
-                System.err.println("  3. 签名图片是否存在: " + signatureImagePath);
-            }
+            ProcessFileExcelUtil.saveSignatureOverlay(signatureImagePath);
         } catch (Exception e) {
-            System.err.println("✗ 插入签名到Excel时发生异常: " + e.getMessage());
-            e.printStackTrace();
-            // 不抛出异常，因为签名记录已保存，Excel更新失败不影响签名功能
+            System.err.println("✗ 生成签名叠加层失败，将在合成时重新裁剪: " + e.getMessage());
         }
+        renderCache.evict(fileId);
         
         return signature.getId();
     }
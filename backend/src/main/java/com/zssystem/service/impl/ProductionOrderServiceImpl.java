@@ -42,6 +42,9 @@ public class ProductionOrderServiceImpl implements ProductionOrderService {
     @Autowired
     private ProductionScheduleMapper scheduleMapper;
 
+    @Autowired
+    private ScheduleRemainingIndex remainingIndex;
+
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
 
     private static final Map<Integer, String> STATUS_MAP = new HashMap<>();
@@ -322,6 +325,7 @@ public class ProductionOrderServiceImpl implements ProductionOrderService {
         // 如果该机台号没有其他订单了，删除对应的排程计划
         if (remainingOrders.isEmpty() && machineNo != null) {
             scheduleMapper.physicalDeleteByMachineNo(machineNo);
+            remainingIndex.evict(machineNo);
         }
     }
 
@@ -0,0 +1,373 @@
+package com.zssystem.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zssystem.entity.Employee;
+import com.zssystem.entity.Equipment;
+import com.zssystem.entity.ProductionOrder;
+import com.zssystem.entity.ProductionOrderProduct;
+import com.zssystem.entity.ProductionPlan;
+import com.zssystem.entity.ProductionRecord;
+import com.zssystem.entity.ProductionSchedule;
+import com.zssystem.mapper.EmployeeMapper;
+import com.zssystem.mapper.EquipmentMapper;
+import com.zssystem.mapper.ProductionOrderMapper;
+import com.zssystem.mapper.ProductionOrderProductMapper;
+import com.zssystem.mapper.ProductionPlanMapper;
+import com.zssystem.mapper.ProductionScheduleMapper;
+import com.zssystem.util.BeanUtil;
+import com.zssystem.vo.ProductionRecordVO;
+import com.zssystem.vo.excel.ProductionRecordExportVO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 生产记录批量装配器
+ * 一页（或一批）记录先收集所有外键，每张关联表只执行一次 IN 查询，再在内存中拼装 VO，
+ * 避免逐行查询设备、订单、产品、排程、计划、操作员造成的 N+1 问题
+ */
+@Component
+public class ProductionRecordHydrator {
+
+    /** 每个机台最多显示的排程天数 */
+    private static final int MAX_SCHEDULE_DAYS = 30;
+
+    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter DATE_TIME_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Autowired
+    private EquipmentMapper equipmentMapper;
+
+    @Autowired
+    private ProductionOrderMapper orderMapper;
+
+    @Autowired
+    private ProductionOrderProductMapper orderProductMapper;
+
+    @Autowired
+    private ProductionScheduleMapper scheduleMapper;
+
+    @Autowired
+    private ProductionPlanMapper planMapper;
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    @Autowired
+    private ScheduleRemainingIndex remainingIndex;
+
+    /**
+     * 批量转换为列表/详情VO
+     */
+    public List<ProductionRecordVO> toVOList(List<ProductionRecord> records) {
+        if (records.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Context ctx = load(records, true);
+        List<ProductionRecordVO> result = new ArrayList<>(records.size());
+        for (ProductionRecord record : records) {
+            result.add(toVO(record, ctx));
+        }
+        return result;
+    }
+
+    /**
+     * 批量转换为导出VO
+     */
+    public List<ProductionRecordExportVO> toExportList(List<ProductionRecord> records) {
+        if (records.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Context ctx = load(records, false);
+        List<ProductionRecordExportVO> result = new ArrayList<>(records.size());
+        for (ProductionRecord record : records) {
+            result.add(toExportVO(record, ctx));
+        }
+        return result;
+    }
+
+    /**
+     * 一次性加载本批记录涉及的全部关联数据
+     * @param includeRefs 是否加载计划、操作员（导出不需要）
+     */
+    private Context load(List<ProductionRecord> records, boolean includeRefs) {
+        Context ctx = new Context();
+
+        ctx.equipments = selectByIds(collect(records, ProductionRecord::getEquipmentId),
+                equipmentMapper::selectBatchIds, Equipment::getId);
+        ctx.orders = selectByIds(collect(records, ProductionRecord::getOrderId),
+                orderMapper::selectBatchIds, ProductionOrder::getId);
+
+        if (!ctx.orders.isEmpty()) {
+            List<ProductionOrderProduct> products = orderProductMapper.selectList(
+                new LambdaQueryWrapper<ProductionOrderProduct>()
+                    .in(ProductionOrderProduct::getOrderId, ctx.orders.keySet())
+                    .orderByAsc(ProductionOrderProduct::getOrderId)
+                    .orderByAsc(ProductionOrderProduct::getSortOrder)
+            );
+            ctx.productsByOrder = products.stream()
+                .collect(Collectors.groupingBy(ProductionOrderProduct::getOrderId));
+        }
+
+        // 排程列表按设备机台号一次查询，每个机台保留前30天
+        Set<String> machineNos = new LinkedHashSet<>();
+        ctx.equipments.values().forEach(e -> addIfNotNull(machineNos, e.getMachineNo()));
+        if (!machineNos.isEmpty()) {
+            List<ProductionSchedule> schedules = scheduleMapper.selectList(
+                new LambdaQueryWrapper<ProductionSchedule>()
+                    .in(ProductionSchedule::getMachineNo, machineNos)
+                    .eq(ProductionSchedule::getIsSunday, 0)
+                    .orderByAsc(ProductionSchedule::getMachineNo)
+                    .orderByAsc(ProductionSchedule::getScheduleDate)
+            );
+            for (ProductionSchedule s : schedules) {
+                List<ProductionSchedule> list = ctx.schedulesByMachine
+                    .computeIfAbsent(s.getMachineNo(), k -> new ArrayList<>());
+                if (list.size() < MAX_SCHEDULE_DAYS) {
+                    list.add(s);
+                }
+            }
+        }
+
+        // 剩余数量走索引：订单机台号用于列表/详情，设备机台号用于导出
+        ctx.orders.values().forEach(o -> addIfNotNull(machineNos, o.getMachineNo()));
+        remainingIndex.preload(machineNos);
+
+        if (includeRefs) {
+            ctx.plans = selectByIds(collect(records, ProductionRecord::getPlanId),
+                    planMapper::selectBatchIds, ProductionPlan::getId);
+            ctx.employees = selectByIds(collect(records, ProductionRecord::getOperatorId),
+                    employeeMapper::selectBatchIds, Employee::getId);
+        }
+        return ctx;
+    }
+
+    private ProductionRecordVO toVO(ProductionRecord record, Context ctx) {
+        ProductionRecordVO vo = BeanUtil.copyProperties(record, ProductionRecordVO.class);
+
+        // 填充设备详细信息
+        Equipment equipment = ctx.equipments.get(record.getEquipmentId());
+        if (equipment != null) {
+            vo.setEquipmentNo(equipment.getEquipmentNo());
+            vo.setEquipmentName(equipment.getEquipmentName());
+            vo.setGroupName(equipment.getGroupName());
+            vo.setMachineNo(equipment.getMachineNo());
+            vo.setEquipmentModel(equipment.getEquipmentModel());
+            vo.setRobotModel(equipment.getRobotModel());
+            vo.setEnableDate(equipment.getEnableDate());
+            vo.setServiceLife(equipment.getServiceLife());
+            vo.setMoldTempMachine(equipment.getMoldTempMachine());
+            vo.setChiller(equipment.getChiller());
+            vo.setBasicMold(equipment.getBasicMold());
+            vo.setSpareMold1(equipment.getSpareMold1());
+            vo.setSpareMold2(equipment.getSpareMold2());
+            vo.setSpareMold3(equipment.getSpareMold3());
+        }
+
+        // 填充订单信息和产品列表
+        ProductionOrder order = ctx.orders.get(record.getOrderId());
+        if (order != null) {
+            vo.setOrderNo(order.getOrderNo());
+            List<ProductionRecordVO.ProductInfo> productInfos = ctx.productsOf(order.getId()).stream().map(p -> {
+                ProductionRecordVO.ProductInfo info = new ProductionRecordVO.ProductInfo();
+                info.setProductName(p.getProductName());
+                info.setProductCode(p.getProductCode());
+                info.setOrderQuantity(p.getOrderQuantity());
+                info.setDailyCapacity(p.getDailyCapacity());
+                // 从排程中获取剩余数量（最新一天的剩余数量）
+                info.setRemainingQuantity(remainingIndex.getLatestRemaining(order.getMachineNo(), p.getProductName()));
+                return info;
+            }).collect(Collectors.toList());
+            vo.setProducts(productInfos);
+
+            // 设置第一个产品名称（兼容旧代码）
+            if (!productInfos.isEmpty()) {
+                vo.setProductName(productInfos.get(0).getProductName());
+            }
+        }
+
+        // 填充排程情况（根据机台号）
+        if (vo.getMachineNo() != null) {
+            List<ProductionRecordVO.ScheduleInfo> scheduleInfos = ctx.schedulesOf(vo.getMachineNo()).stream().map(s -> {
+                ProductionRecordVO.ScheduleInfo info = new ProductionRecordVO.ScheduleInfo();
+                info.setScheduleDate(s.getScheduleDate());
+                info.setDayNumber(s.getDayNumber());
+                info.setProductName(s.getProductName());
+                info.setProductionQuantity(s.getProductionQuantity());
+                info.setDailyCapacity(s.getDailyCapacity());
+                info.setRemainingQuantity(s.getRemainingQuantity());
+                return info;
+            }).collect(Collectors.toList());
+            vo.setSchedules(scheduleInfos);
+        }
+
+        // 填充计划信息
+        ProductionPlan plan = ctx.plans.get(record.getPlanId());
+        if (plan != null) {
+            vo.setPlanNo(plan.getPlanNo());
+        }
+
+        // 填充操作员信息
+        Employee employee = ctx.employees.get(record.getOperatorId());
+        if (employee != null) {
+            vo.setOperatorName(employee.getName());
+        }
+        return vo;
+    }
+
+    private ProductionRecordExportVO toExportVO(ProductionRecord record, Context ctx) {
+        ProductionRecordExportVO exportVO = new ProductionRecordExportVO();
+        exportVO.setRecordNo(record.getRecordNo());
+
+        // 填充设备详细信息
+        Equipment equipment = ctx.equipments.get(record.getEquipmentId());
+        if (equipment != null) {
+            exportVO.setGroupName(orDash(equipment.getGroupName()));
+            exportVO.setMachineNo(orDash(equipment.getMachineNo()));
+            exportVO.setEquipmentNo(equipment.getEquipmentNo());
+            exportVO.setEquipmentName(equipment.getEquipmentName());
+            exportVO.setEquipmentModel(orDash(equipment.getEquipmentModel()));
+            exportVO.setRobotModel(orDash(equipment.getRobotModel()));
+            exportVO.setEnableDate(equipment.getEnableDate() != null ? equipment.getEnableDate().format(DATE_FMT) : "-");
+            // 直接使用设备的使用年限字段（已根据购买日期计算，格式：X年X个月）
+            exportVO.setServiceLife(orDash(equipment.getServiceLife()));
+            exportVO.setMoldTempMachine(orDash(equipment.getMoldTempMachine()));
+            exportVO.setChiller(orDash(equipment.getChiller()));
+            exportVO.setBasicMold(orDash(equipment.getBasicMold()));
+            exportVO.setSpareMold1(orDash(equipment.getSpareMold1()));
+            exportVO.setSpareMold2(orDash(equipment.getSpareMold2()));
+            exportVO.setSpareMold3(orDash(equipment.getSpareMold3()));
+        } else {
+            exportVO.setGroupName("-");
+            exportVO.setMachineNo("-");
+            exportVO.setEquipmentNo("-");
+            exportVO.setEquipmentName("-");
+            exportVO.setEquipmentModel("-");
+            exportVO.setRobotModel("-");
+            exportVO.setEnableDate("-");
+            exportVO.setServiceLife("-");
+            exportVO.setMoldTempMachine("-");
+            exportVO.setChiller("-");
+            exportVO.setBasicMold("-");
+            exportVO.setSpareMold1("-");
+            exportVO.setSpareMold2("-");
+            exportVO.setSpareMold3("-");
+        }
+
+        // 填充产品信息（剩余数量按设备机台号取最新排程）
+        String machineNo = equipment != null ? equipment.getMachineNo() : null;
+        ProductionOrder order = ctx.orders.get(record.getOrderId());
+        List<ProductionOrderProduct> products = order != null ? ctx.productsOf(order.getId()) : Collections.emptyList();
+        if (!products.isEmpty()) {
+            List<String> productNames = new ArrayList<>();
+            List<String> orderQuantities = new ArrayList<>();
+            List<String> dailyCapacities = new ArrayList<>();
+            List<String> remainingQuantities = new ArrayList<>();
+            for (ProductionOrderProduct p : products) {
+                productNames.add(p.getProductName());
+                orderQuantities.add(String.valueOf(p.getOrderQuantity()));
+                dailyCapacities.add(String.valueOf(p.getDailyCapacity()));
+                Integer remaining = remainingIndex.getLatestRemaining(machineNo, p.getProductName());
+                remainingQuantities.add(String.valueOf(remaining != null ? remaining : p.getOrderQuantity()));
+            }
+            exportVO.setProductName(String.join(" / ", productNames));
+            exportVO.setOrderQuantity(String.join(" / ", orderQuantities));
+            exportVO.setDailyCapacity(String.join(" / ", dailyCapacities));
+            exportVO.setRemainingQuantity(String.join(" / ", remainingQuantities));
+        } else {
+            exportVO.setProductName("-");
+            exportVO.setOrderQuantity("-");
+            exportVO.setDailyCapacity("-");
+            exportVO.setRemainingQuantity("-");
+        }
+
+        // 填充排程情况（汇总）
+        List<ProductionSchedule> schedules = machineNo != null ? ctx.schedulesOf(machineNo) : Collections.emptyList();
+        if (!schedules.isEmpty()) {
+            exportVO.setScheduleDates(schedules.stream()
+                .map(s -> s.getScheduleDate().format(DATE_FMT))
+                .collect(Collectors.joining(", ")));
+            exportVO.setScheduleProducts(schedules.stream()
+                .map(s -> s.getProductName() + "(" + s.getProductionQuantity() + "件)")
+                .collect(Collectors.joining(", ")));
+        } else {
+            exportVO.setScheduleDates("-");
+            exportVO.setScheduleProducts("-");
+        }
+
+        // 格式化日期和时间
+        exportVO.setProductionDate(record.getProductionDate() != null ? record.getProductionDate().format(DATE_FMT) : "-");
+        exportVO.setStartTime(record.getStartTime() != null ? record.getStartTime().format(DATE_TIME_FMT) : "-");
+        exportVO.setEndTime(record.getEndTime() != null ? record.getEndTime().format(DATE_TIME_FMT) : "-");
+
+        exportVO.setQuantity(record.getQuantity());
+        exportVO.setDefectQuantity(record.getDefectQuantity() != null ? record.getDefectQuantity() : 0);
+
+        // 计算合格率
+        int total = exportVO.getQuantity() + exportVO.getDefectQuantity();
+        if (total > 0) {
+            double rate = (double) exportVO.getQuantity() / total * 100;
+            exportVO.setPassRate(String.format("%.1f%%", rate));
+        } else {
+            exportVO.setPassRate("0.0%");
+        }
+
+        exportVO.setRemark(orDash(record.getRemark()));
+        return exportVO;
+    }
+
+    private static <T> Set<Long> collect(List<T> list, Function<T, Long> getter) {
+        return list.stream().map(getter).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    private static <T> Map<Long, T> selectByIds(Collection<Long> ids,
+                                                Function<Collection<Long>, List<T>> loader,
+                                                Function<T, Long> idGetter) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return loader.apply(ids).stream().collect(Collectors.toMap(idGetter, t -> t, (a, b) -> a));
+    }
+
+    private static void addIfNotNull(Set<String> set, String value) {
+        if (value != null) {
+            set.add(value);
+        }
+    }
+
+    private static String orDash(String value) {
+        return value != null ? value : "-";
+    }
+
+    /**
+     * 单批次的关联数据
+     */
+    private static class Context {
+        Map<Long, Equipment> equipments = Collections.emptyMap();
+        Map<Long, ProductionOrder> orders = Collections.emptyMap();
+        Map<Long, List<ProductionOrderProduct>> productsByOrder = Collections.emptyMap();
+        Map<String, List<ProductionSchedule>> schedulesByMachine = new HashMap<>();
+        Map<Long, ProductionPlan> plans = Collections.emptyMap();
+        Map<Long, Employee> employees = Collections.emptyMap();
+
+        List<ProductionOrderProduct> productsOf(Long orderId) {
+            return productsByOrder.getOrDefault(orderId, Collections.emptyList());
+        }
+
+        List<ProductionSchedule> schedulesOf(String machineNo) {
+            return schedulesByMachine.getOrDefault(machineNo, Collections.emptyList());
+        }
+    }
+}
@@ -11,32 +11,46 @@ import com.zssystem.entity.ProductionOrder;
 import com.zssystem.entity.ProductionOrderProduct;
 import com.zssystem.entity.ProductionPlan;
 import com.zssystem.entity.ProductionRecord;
-import com.zssystem.entity.ProductionSchedule;
 import com.zssystem.mapper.EmployeeMapper;
 import com.zssystem.mapper.EquipmentMapper;
 import com.zssystem.mapper.ProductionOrderMapper;
 import com.zssystem.mapper.ProductionOrderProductMapper;
+import com.zssystem.mapper.ProductionDailyRollupMapper;
 import com.zssystem.mapper.ProductionPlanMapper;
 import com.zssystem.mapper.ProductionRecordMapper;
-import com.zssystem.mapper.ProductionScheduleMapper;
 import com.zssystem.service.ProductionOrderService;
 import com.zssystem.service.ProductionPlanService;
 import com.zssystem.service.ProductionRecordService;
+import com.zssystem.service.ProductionRollupService;
 import com.zssystem.util.BeanUtil;
 import com.zssystem.util.CodeGenerator;
 import com.zssystem.vo.ProductionRecordVO;
 import com.zssystem.vo.ProductionStatisticsVO;
 import com.zssystem.vo.excel.ProductionRecordExportVO;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class ProductionRecordServiceImpl implements ProductionRecordService {
 
@@ -49,26 +63,38 @@ public class ProductionRecordServiceImpl implements ProductionRecordService {
     @Autowired
     private ProductionPlanMapper planMapper;
 
-    @Autowired
-    private EmployeeMapper employeeMapper;
-
     @Autowired
     private EquipmentMapper equipmentMapper;
 
     @Autowired
     private ProductionOrderProductMapper orderProductMapper;
 
-    @Autowired
-    private ProductionScheduleMapper scheduleMapper;
-
     @Autowired
     private ProductionOrderService orderService;
 
     @Autowired
     private ProductionPlanService planService;
 
+    @Autowired
+    private ProductionRecordHydrator recordHydrator;
+
+    @Autowired
+    private ProductionDailyRollupMapper rollupMapper;
+
+    @Autowired
+    private ProductionRollupService rollupService;
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
 
+    /** 导出时每批装配、写出的记录数 */
+    private static final int EXPORT_CHUNK_SIZE = 500;
+
     @Override
     public IPage<ProductionRecordVO> getRecordList(ProductionRecordQueryDTO queryDTO) {
         Page<ProductionRecord> page = new Page<>(queryDTO.getPageNum(), queryDTO.getPageSize());
@@ -85,118 +111,11 @@ public class ProductionRecordServiceImpl implements ProductionRecordService {
                 .orderByDesc(ProductionRecord::getCreateTime);
 
         IPage<ProductionRecord> recordPage = recordMapper.selectPage(page, wrapper);
-        return recordPage.convert(record -> {
-            ProductionRecordVO vo = BeanUtil.copyProperties(record, ProductionRecordVO.class);
-            
-            // 填充设备详细信息
-            if (record.getEquipmentId() != null) {
-                Equipment equipment = equipmentMapper.selectById(record.getEquipmentId());
-                if (equipment != null) {
-                    vo.setEquipmentNo(equipment.getEquipmentNo());
-                    vo.setEquipmentName(equipment.getEquipmentName());
-                    vo.setGroupName(equipment.getGroupName());
-                    vo.setMachineNo(equipment.getMachineNo());
-                    vo.setEquipmentModel(equipment.getEquipmentModel());
-                    vo.setRobotModel(equipment.getRobotModel());
-                    vo.setEnableDate(equipment.getEnableDate());
-                    vo.setServiceLife(equipment.getServiceLife());
-                    vo.setMoldTempMachine(equipment.getMoldTempMachine());
-                    vo.setChiller(equipment.getChiller());
-                    vo.setBasicMold(equipment.getBasicMold());
-                    vo.setSpareMold1(equipment.getSpareMold1());
-                    vo.setSpareMold2(equipment.getSpareMold2());
-                    vo.setSpareMold3(equipment.getSpareMold3());
-                }
-            }
-            
-            // 填充订单信息和产品列表
-            if (record.getOrderId() != null) {
-                ProductionOrder order = orderMapper.selectById(record.getOrderId());
-                if (order != null) {
-                    vo.setOrderNo(order.getOrderNo());
-                    
-                    // 查询订单产品列表
-                    List<ProductionOrderProduct> products = orderProductMapper.selectList(
-                        new LambdaQueryWrapper<ProductionOrderProduct>()
-                            .eq(ProductionOrderProduct::getOrderId, order.getId())
-                            .orderByAsc(ProductionOrderProduct::getSortOrder)
-                    );
-                    
-                    // 转换为VO
-                    List<ProductionRecordVO.ProductInfo> productInfos = products.stream().map(p -> {
-                        ProductionRecordVO.ProductInfo info = new ProductionRecordVO.ProductInfo();
-                        info.setProductName(p.getProductName());
-                        info.setProductCode(p.getProductCode());
-                        info.setOrderQuantity(p.getOrderQuantity());
-                        info.setDailyCapacity(p.getDailyCapacity());
-                        
-                        // 从排程中获取剩余数量（最新一天的剩余数量）
-                        if (order.getMachineNo() != null) {
-                            ProductionSchedule latestSchedule = scheduleMapper.selectOne(
-                                new LambdaQueryWrapper<ProductionSchedule>()
-                                    .eq(ProductionSchedule::getMachineNo, order.getMachineNo())
-                                    .eq(ProductionSchedule::getProductName, p.getProductName())
-                                    .eq(ProductionSchedule::getIsSunday, 0)
-                                    .orderByDesc(ProductionSchedule::getScheduleDate)
-                                    .last("LIMIT 1")
-                            );
-                            if (latestSchedule != null) {
-                                info.setRemainingQuantity(latestSchedule.getRemainingQuantity());
-                            }
-                        }
-                        
-                        return info;
-                    }).collect(Collectors.toList());
-                    vo.setProducts(productInfos);
-                    
-                    // 设置第一个产品名称（兼容旧代码）
-                    if (!productInfos.isEmpty()) {
-                        vo.setProductName(productInfos.get(0).getProductName());
-                    }
-                }
-            }
-            
-            // 填充排程情况（根据机台号查询）
-            if (vo.getMachineNo() != null) {
-                List<ProductionSchedule> schedules = scheduleMapper.selectList(
-                    new LambdaQueryWrapper<ProductionSchedule>()
-                        .eq(ProductionSchedule::getMachineNo, vo.getMachineNo())
-                        .eq(ProductionSchedule::getIsSunday, 0)
-                        .orderByAsc(ProductionSchedule::getScheduleDate)
-                        .last("LIMIT 30") // 最多显示30天的排程
-                );
-                
-                List<ProductionRecordVO.ScheduleInfo> scheduleInfos = schedules.stream().map(s -> {
-                    ProductionRecordVO.ScheduleInfo info = new ProductionRecordVO.ScheduleInfo();
-                    info.setScheduleDate(s.getScheduleDate());
-                    info.setDayNumber(s.getDayNumber());
-                    info.setProductName(s.getProductName());
-                    info.setProductionQuantity(s.getProductionQuantity());
-                    info.setDailyCapacity(s.getDailyCapacity());
-                    info.setRemainingQuantity(s.getRemainingQuantity());
-                    return info;
-                }).collect(Collectors.toList());
-                vo.setSchedules(scheduleInfos);
-            }
-            
-            // 填充计划信息
-            if (record.getPlanId() != null) {
-                ProductionPlan plan = planMapper.selectById(record.getPlanId());
-                if (plan != null) {
-                    vo.setPlanNo(plan.getPlanNo());
-                }
-            }
-            
-            // 填充操作员信息
-            if (record.getOperatorId() != null) {
-                Employee employee = employeeMapper.selectById(record.getOperatorId());
-                if (employee != null) {
-                    vo.setOperatorName(employee.getName());
-                }
-            }
-            
-            return vo;
-        });
+        // 整页批量装配关联数据，避免逐行查询
+        List<ProductionRecordVO> voList = recordHydrator.toVOList(recordPage.getRecords());
+        IPage<ProductionRecordVO> voPage = new Page<>(recordPage.getCurrent(), recordPage.getSize(), recordPage.getTotal());
+        voPage.setRecords(voList);
+        return voPage;
     }
 
     @Override
@@ -205,115 +124,7 @@ public class ProductionRecordServiceImpl implements ProductionRecordService {
         if (record == null) {
             throw new RuntimeException("生产记录不存在");
         }
-        ProductionRecordVO vo = BeanUtil.copyProperties(record, ProductionRecordVO.class);
-        
-        // 填充设备详细信息
-        if (record.getEquipmentId() != null) {
-            Equipment equipment = equipmentMapper.selectById(record.getEquipmentId());
-            if (equipment != null) {
-                vo.setEquipmentNo(equipment.getEquipmentNo());
-                vo.setEquipmentName(equipment.getEquipmentName());
-                vo.setGroupName(equipment.getGroupName());
-                vo.setMachineNo(equipment.getMachineNo());
-                vo.setEquipmentModel(equipment.getEquipmentModel());
-                vo.setRobotModel(equipment.getRobotModel());
-                vo.setEnableDate(equipment.getEnableDate());
-                vo.setServiceLife(equipment.getServiceLife());
-                vo.setMoldTempMachine(equipment.getMoldTempMachine());
-                vo.setChiller(equipment.getChiller());
-                vo.setBasicMold(equipment.getBasicMold());
-                vo.setSpareMold1(equipment.getSpareMold1());
-                vo.setSpareMold2(equipment.getSpareMold2());
-                vo.setSpareMold3(equipment.getSpareMold3());
-            }
-        }
-        
-        // 填充订单信息和产品列表
-        if (record.getOrderId() != null) {
-            ProductionOrder order = orderMapper.selectById(record.getOrderId());
-            if (order != null) {
-                vo.setOrderNo(order.getOrderNo());
-                
-                // 查询订单产品列表
-                List<ProductionOrderProduct> products = orderProductMapper.selectList(
-                    new LambdaQueryWrapper<ProductionOrderProduct>()
-                        .eq(ProductionOrderProduct::getOrderId, order.getId())
-                        .orderByAsc(ProductionOrderProduct::getSortOrder)
-                );
-                
-                // 转换为VO
-                List<ProductionRecordVO.ProductInfo> productInfos = products.stream().map(p -> {
-                    ProductionRecordVO.ProductInfo info = new ProductionRecordVO.ProductInfo();
-                    info.setProductName(p.getProductName());
-                    info.setProductCode(p.getProductCode());
-                    info.setOrderQuantity(p.getOrderQuantity());
-                    info.setDailyCapacity(p.getDailyCapacity());
-                    
-                    // 从排程中获取剩余数量
-                    if (order.getMachineNo() != null) {
-                        ProductionSchedule latestSchedule = scheduleMapper.selectOne(
-                            new LambdaQueryWrapper<ProductionSchedule>()
-                                .eq(ProductionSchedule::getMachineNo, order.getMachineNo())
-                                .eq(ProductionSchedule::getProductName, p.getProductName())
-                                .eq(ProductionSchedule::getIsSunday, 0)
-                                .orderByDesc(ProductionSchedule::getScheduleDate)
-                                .last("LIMIT 1")
-                        );
-                        if (latestSchedule != null) {
-                            info.setRemainingQuantity(latestSchedule.getRemainingQuantity());
-                        }
-                    }
-                    
-                    return info;
-                }).collect(Collectors.toList());
-                vo.setProducts(productInfos);
-                
-                if (!productInfos.isEmpty()) {
-                    vo.setProductName(productInfos.get(0).getProductName());
-                }
-            }
-        }
-        
-        // 填充排程情况
-        if (vo.getMachineNo() != null) {
-            List<ProductionSchedule> schedules = scheduleMapper.selectList(
-                new LambdaQueryWrapper<ProductionSchedule>()
-                    .eq(ProductionSchedule::getMachineNo, vo.getMachineNo())
-                    .eq(ProductionSchedule::getIsSunday, 0)
-                    .orderByAsc(ProductionSchedule::getScheduleDate)
-                    .last("LIMIT 30")
-            );
-            
-            List<ProductionRecordVO.ScheduleInfo> scheduleInfos = schedules.stream().map(s -> {
-                ProductionRecordVO.ScheduleInfo info = new ProductionRecordVO.ScheduleInfo();
-                info.setScheduleDate(s.getScheduleDate());
-                info.setDayNumber(s.getDayNumber());
-                info.setProductName(s.getProductName());
-                info.setProductionQuantity(s.getProductionQuantity());
-                info.setDailyCapacity(s.getDailyCapacity());
-                info.setRemainingQuantity(s.getRemainingQuantity());
-                return info;
-            }).collect(Collectors.toList());
-            vo.setSchedules(scheduleInfos);
-        }
-        
-        // 填充计划信息
-        if (record.getPlanId() != null) {
-            ProductionPlan plan = planMapper.selectById(record.getPlanId());
-            if (plan != null) {
-                vo.setPlanNo(plan.getPlanNo());
-            }
-        }
-        
-        // 填充操作员信息
-        if (record.getOperatorId() != null) {
-            Employee employee = employeeMapper.selectById(record.getOperatorId());
-            if (employee != null) {
-                vo.setOperatorName(employee.getName());
-            }
-        }
-        
-        return vo;
+        return recordHydrator.toVOList(Collections.singletonList(record)).get(0);
     }
 
     @Override
@@ -373,6 +184,7 @@ public class ProductionRecordServiceImpl implements ProductionRecordService {
         }
         
         recordMapper.insert(record);
+        rollupService.applyRecord(record, 1);
 
         // 更新订单完成数量
         orderService.updateCompletedQuantity(saveDTO.getOrderId(), saveDTO.getQuantity());
@@ -394,6 +206,9 @@ public class ProductionRecordServiceImpl implements ProductionRecordService {
         // 计算数量变化
         Integer quantityDiff = saveDTO.getQuantity() - record.getQuantity();
 
+        // 保留旧值，修改后从日汇总中移出旧值、计入新值（日期、设备、产品都可能变化）
+        ProductionRecord before = BeanUtil.copyProperties(record, ProductionRecord.class);
+
         BeanUtil.copyProperties(saveDTO, record, "id", "recordNo", "createTime", "updateTime", "deleted");
         
         // 更新设备编号（如果设备ID变化）
@@ -423,7 +238,10 @@ public class ProductionRecordServiceImpl implements ProductionRecordService {
             }
         }
         
+        // 先写生产记录再写汇总，与汇总重算的加锁顺序一致
         recordMapper.updateById(record);
+        rollupService.applyRecord(before, -1);
+        rollupService.applyRecord(record, 1);
 
         // 如果数量有变化，更新订单和计划的完成数量
         if (quantityDiff != 0) {
@@ -444,6 +262,7 @@ public class ProductionRecordServiceImpl implements ProductionRecordService {
 
         // 删除记录
         recordMapper.deleteById(id);
+        rollupService.applyRecord(record, -1);
 
         // 更新订单完成数量（减去删除的记录数量）
         orderService.updateCompletedQuantity(record.getOrderId(), -record.getQuantity());
@@ -456,30 +275,89 @@ public class ProductionRecordServiceImpl implements ProductionRecordService {
 
     @Override
     public List<ProductionStatisticsVO> getStatistics(String dimension, LocalDate startDate, LocalDate endDate) {
-        List<ProductionStatisticsVO> statistics = new ArrayList<>();
-        
-        // 这里简化实现，实际应该使用SQL聚合查询
-        // 按日期统计
-        if ("date".equals(dimension)) {
-            LambdaQueryWrapper<ProductionRecord> wrapper = new LambdaQueryWrapper<>();
-            wrapper.ge(startDate != null, ProductionRecord::getProductionDate, startDate)
-                    .le(endDate != null, ProductionRecord::getProductionDate, endDate);
-            
-            List<ProductionRecord> records = recordMapper.selectList(wrapper);
-            // 按日期分组统计
-            // 简化实现，实际应该使用SQL GROUP BY
-            // 这里只是示例，实际应该使用MyBatis的SQL查询
+        if (dimension == null || dimension.isBlank()) {
+            throw new RuntimeException("统计维度不能为空");
+        }
+        List<ProductionStatisticsVO> statistics;
+        // 日期、机台、产品维度查生产日汇总表；操作员、订单维度直接在生产记录上 GROUP BY
+        switch (dimension) {
+            case "date":
+                statistics = rollupMapper.sumByDate(startDate, endDate);
+                break;
+            case "machine":
+            case "equipment":
+                statistics = rollupMapper.sumByEquipment(startDate, endDate);
+                Map<Long, Equipment> equipments = selectByIds(statistics, equipmentMapper::selectBatchIds, Equipment::getId);
+                for (ProductionStatisticsVO vo : statistics) {
+                    Equipment equipment = equipments.get(Long.valueOf(vo.getDimensionValue()));
+                    String machineNo = equipment == null ? null
+                            : equipment.getMachineNo() != null && !equipment.getMachineNo().isBlank()
+                                ? equipment.getMachineNo() : equipment.getEquipmentNo();
+                    vo.setDimensionValue(machineNo != null ? machineNo : "-");
+                }
+                break;
+            case "product":
+                statistics = rollupMapper.sumByProduct(startDate, endDate);
+                for (ProductionStatisticsVO vo : statistics) {
+                    if (vo.getDimensionValue() == null || vo.getDimensionValue().isEmpty()) {
+                        vo.setDimensionValue("-");
+                    }
+                }
+                break;
+            case "operator":
+                statistics = recordMapper.sumByOperator(startDate, endDate);
+                Map<Long, Employee> employees = selectByIds(statistics, employeeMapper::selectBatchIds, Employee::getId);
+                for (ProductionStatisticsVO vo : statistics) {
+                    Employee employee = vo.getDimensionValue() != null ? employees.get(Long.valueOf(vo.getDimensionValue())) : null;
+                    vo.setDimensionValue(employee != null ? employee.getName() : "-");
+                }
+                break;
+            case "order":
+                statistics = recordMapper.sumByOrder(startDate, endDate);
+                Map<Long, ProductionOrder> orders = selectByIds(statistics, orderMapper::selectBatchIds, ProductionOrder::getId);
+                for (ProductionStatisticsVO vo : statistics) {
+                    ProductionOrder order = vo.getDimensionValue() != null ? orders.get(Long.valueOf(vo.getDimensionValue())) : null;
+                    vo.setDimensionValue(order != null ? order.getOrderNo() : "-");
+                }
+                break;
+            default:
+                throw new RuntimeException("不支持的统计维度：" + dimension);
         }
         
-        // 其他维度的统计类似实现
+        for (ProductionStatisticsVO vo : statistics) {
+            vo.setDimension(dimension);
+            // 合格率 = 良品数量 / (良品数量 + 不良品数量)
+            int total = vo.getTotalQuantity() + vo.getTotalDefectQuantity();
+            vo.setPassRate(total > 0 ? Math.round((double) vo.getTotalQuantity() / total * 1000) / 10.0 : 0.0);
+        }
         return statistics;
     }
+    
+    /**
+     * 按统计结果中的ID（dimensionValue）批量查询关联对象
+     */
+    private static <T> Map<Long, T> selectByIds(List<ProductionStatisticsVO> statistics,
+                                               Function<Collection<Long>, List<T>> loader,
+                                               Function<T, Long> idGetter) {
+        Set<Long> ids = statistics.stream()
+                .map(ProductionStatisticsVO::getDimensionValue)
+                .filter(Objects::nonNull)
+                .map(Long::valueOf)
+                .filter(id -> id > 0)
+                .collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return loader.apply(ids).stream().collect(Collectors.toMap(idGetter, Function.identity(), (a, b) -> a));
+    }
 
     @Override
-    public List<ProductionRecordExportVO> getExportData(ProductionRecordQueryDTO queryDTO) {
-        // 查询所有符合条件的记录（不分页）
+    @Transactional(readOnly = true)
+    public void exportRecordData(ProductionRecordQueryDTO queryDTO, Consumer<ProductionRecordExportVO> consumer) {
+        // 查询所有符合条件的记录（不分页），游标逐批读取
         LambdaQueryWrapper<ProductionRecord> wrapper = new LambdaQueryWrapper<>();
-        wrapper.like(queryDTO.getRecordNo() != null && !queryDTO.getRecordNo().isBlank(), 
+        wrapper.eq(ProductionRecord::getDeleted, 0)
+                .like(queryDTO.getRecordNo() != null && !queryDTO.getRecordNo().isBlank(), 
                         ProductionRecord::getRecordNo, queryDTO.getRecordNo())
                 .eq(queryDTO.getOrderId() != null, ProductionRecord::getOrderId, queryDTO.getOrderId())
                 .eq(queryDTO.getPlanId() != null, ProductionRecord::getPlanId, queryDTO.getPlanId())
@@ -490,179 +368,35 @@ public class ProductionRecordServiceImpl implements ProductionRecordService {
                 .orderByDesc(ProductionRecord::getProductionDate)
                 .orderByDesc(ProductionRecord::getCreateTime);
 
-        List<ProductionRecord> records = recordMapper.selectList(wrapper);
-        
-        return records.stream().map(record -> {
-            ProductionRecordExportVO exportVO = new ProductionRecordExportVO();
-            exportVO.setRecordNo(record.getRecordNo());
-            
-            // 填充设备详细信息
-            Equipment equipment = null;
-            if (record.getEquipmentId() != null) {
-                equipment = equipmentMapper.selectById(record.getEquipmentId());
-            }
-            
-            if (equipment != null) {
-                exportVO.setGroupName(equipment.getGroupName() != null ? equipment.getGroupName() : "-");
-                exportVO.setMachineNo(equipment.getMachineNo() != null ? equipment.getMachineNo() : "-");
-                exportVO.setEquipmentNo(equipment.getEquipmentNo());
-                exportVO.setEquipmentName(equipment.getEquipmentName());
-                exportVO.setEquipmentModel(equipment.getEquipmentModel() != null ? equipment.getEquipmentModel() : "-");
-                exportVO.setRobotModel(equipment.getRobotModel() != null ? equipment.getRobotModel() : "-");
-                exportVO.setEnableDate(equipment.getEnableDate() != null ? equipment.getEnableDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")) : "-");
-                // 直接使用设备的使用年限字段（已根据购买日期计算，格式：X年X个月）
-                exportVO.setServiceLife(equipment.getServiceLife() != null ? equipment.getServiceLife() : "-");
-                exportVO.setMoldTempMachine(equipment.getMoldTempMachine() != null ? equipment.getMoldTempMachine() : "-");
-                exportVO.setChiller(equipment.getChiller() != null ? equipment.getChiller() : "-");
-                exportVO.setBasicMold(equipment.getBasicMold() != null ? equipment.getBasicMold() : "-");
-                exportVO.setSpareMold1(equipment.getSpareMold1() != null ? equipment.getSpareMold1() : "-");
-                exportVO.setSpareMold2(equipment.getSpareMold2() != null ? equipment.getSpareMold2() : "-");
-                exportVO.setSpareMold3(equipment.getSpareMold3() != null ? equipment.getSpareMold3() : "-");
-            } else {
-                exportVO.setGroupName("-");
-                exportVO.setMachineNo("-");
-                exportVO.setEquipmentNo("-");
-                exportVO.setEquipmentName("-");
-                exportVO.setEquipmentModel("-");
-                exportVO.setRobotModel("-");
-                exportVO.setEnableDate("-");
-                exportVO.setServiceLife("-");
-                exportVO.setMoldTempMachine("-");
-                exportVO.setChiller("-");
-                exportVO.setBasicMold("-");
-                exportVO.setSpareMold1("-");
-                exportVO.setSpareMold2("-");
-                exportVO.setSpareMold3("-");
-            }
-            
-            // 填充产品信息和排程情况
-            String machineNo = equipment != null ? equipment.getMachineNo() : null;
-            if (record.getOrderId() != null) {
-                ProductionOrder order = orderMapper.selectById(record.getOrderId());
-                if (order != null) {
-                    // 查询订单产品列表
-                    List<ProductionOrderProduct> products = orderProductMapper.selectList(
-                        new LambdaQueryWrapper<ProductionOrderProduct>()
-                            .eq(ProductionOrderProduct::getOrderId, order.getId())
-                            .orderByAsc(ProductionOrderProduct::getSortOrder)
-                    );
-                    
-                    if (!products.isEmpty()) {
-                        // 合并产品信息
-                        List<String> productNames = new ArrayList<>();
-                        List<String> orderQuantities = new ArrayList<>();
-                        List<String> dailyCapacities = new ArrayList<>();
-                        List<String> remainingQuantities = new ArrayList<>();
-                        
-                        for (ProductionOrderProduct p : products) {
-                            productNames.add(p.getProductName());
-                            orderQuantities.add(String.valueOf(p.getOrderQuantity()));
-                            dailyCapacities.add(String.valueOf(p.getDailyCapacity()));
-                            
-                            // 从排程中获取剩余数量
-                            if (machineNo != null) {
-                                ProductionSchedule latestSchedule = scheduleMapper.selectOne(
-                                    new LambdaQueryWrapper<ProductionSchedule>()
-                                        .eq(ProductionSchedule::getMachineNo, machineNo)
-                                        .eq(ProductionSchedule::getProductName, p.getProductName())
-                                        .eq(ProductionSchedule::getIsSunday, 0)
-                                        .orderByDesc(ProductionSchedule::getScheduleDate)
-                                        .last("LIMIT 1")
-                                );
-                                if (latestSchedule != null) {
-                                    remainingQuantities.add(String.valueOf(latestSchedule.getRemainingQuantity()));
-                                } else {
-                                    remainingQuantities.add(String.valueOf(p.getOrderQuantity()));
-                                }
-                            } else {
-                                remainingQuantities.add(String.valueOf(p.getOrderQuantity()));
-                            }
-                        }
-                        
-                        exportVO.setProductName(String.join(" / ", productNames));
-                        exportVO.setOrderQuantity(String.join(" / ", orderQuantities));
-                        exportVO.setDailyCapacity(String.join(" / ", dailyCapacities));
-                        exportVO.setRemainingQuantity(String.join(" / ", remainingQuantities));
-                    } else {
-                        exportVO.setProductName("-");
-                        exportVO.setOrderQuantity("-");
-                        exportVO.setDailyCapacity("-");
-                        exportVO.setRemainingQuantity("-");
-                    }
-                } else {
-                    exportVO.setProductName("-");
-                    exportVO.setOrderQuantity("-");
-                    exportVO.setDailyCapacity("-");
-                    exportVO.setRemainingQuantity("-");
-                }
-            } else {
-                exportVO.setProductName("-");
-                exportVO.setOrderQuantity("-");
-                exportVO.setDailyCapacity("-");
-                exportVO.setRemainingQuantity("-");
-            }
-            
-            // 填充排程情况（汇总）
-            if (machineNo != null) {
-                List<ProductionSchedule> schedules = scheduleMapper.selectList(
-                    new LambdaQueryWrapper<ProductionSchedule>()
-                        .eq(ProductionSchedule::getMachineNo, machineNo)
-                        .eq(ProductionSchedule::getIsSunday, 0)
-                        .orderByAsc(ProductionSchedule::getScheduleDate)
-                        .last("LIMIT 30")
-                );
-                
-                if (!schedules.isEmpty()) {
-                    List<String> scheduleDates = schedules.stream()
-                        .map(s -> s.getScheduleDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")))
-                        .collect(Collectors.toList());
-                    List<String> scheduleProducts = schedules.stream()
-                        .map(s -> s.getProductName() + "(" + s.getProductionQuantity() + "件)")
-                        .collect(Collectors.toList());
-                    
-                    exportVO.setScheduleDates(String.join(", ", scheduleDates));
-                    exportVO.setScheduleProducts(String.join(", ", scheduleProducts));
-                } else {
-                    exportVO.setScheduleDates("-");
-                    exportVO.setScheduleProducts("-");
+        long begin = System.currentTimeMillis();
+        Runtime runtime = Runtime.getRuntime();
+        long peakMemory = runtime.totalMemory() - runtime.freeMemory();
+        int rows = 0;
+        // 流式读取期间本连接不能执行其他查询，关联数据在新的只读事务（另一个连接）中装配
+        TransactionTemplate hydrateTx = new TransactionTemplate(transactionManager);
+        hydrateTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        hydrateTx.setReadOnly(true);
+        // 每攒够一批记录就批量装配设备、订单、排程等关联数据并交给写出端，内存中只保留一批
+        try (Cursor<ProductionRecord> cursor = recordMapper.selectCursor(wrapper)) {
+            List<ProductionRecord> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+            for (ProductionRecord record : cursor) {
+                chunk.add(record);
+                if (chunk.size() >= EXPORT_CHUNK_SIZE) {
+                    hydrateTx.execute(status -> recordHydrator.toExportList(chunk)).forEach(consumer);
+                    rows += chunk.size();
+                    chunk.clear();
+                    peakMemory = Math.max(peakMemory, runtime.totalMemory() - runtime.freeMemory());
                 }
-            } else {
-                exportVO.setScheduleDates("-");
-                exportVO.setScheduleProducts("-");
-            }
-            
-            // 格式化日期和时间
-            if (record.getProductionDate() != null) {
-                exportVO.setProductionDate(record.getProductionDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-            } else {
-                exportVO.setProductionDate("-");
-            }
-            if (record.getStartTime() != null) {
-                exportVO.setStartTime(record.getStartTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-            } else {
-                exportVO.setStartTime("-");
             }
-            if (record.getEndTime() != null) {
-                exportVO.setEndTime(record.getEndTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-            } else {
-                exportVO.setEndTime("-");
+            if (!chunk.isEmpty()) {
+                hydrateTx.execute(status -> recordHydrator.toExportList(chunk)).forEach(consumer);
+                rows += chunk.size();
+                peakMemory = Math.max(peakMemory, runtime.totalMemory() - runtime.freeMemory());
             }
-            
-            exportVO.setQuantity(record.getQuantity());
-            exportVO.setDefectQuantity(record.getDefectQuantity() != null ? record.getDefectQuantity() : 0);
-            
-            // 计算合格率
-            int total = exportVO.getQuantity() + exportVO.getDefectQuantity();
-            if (total > 0) {
-                double rate = (double) exportVO.getQuantity() / total * 100;
-                exportVO.setPassRate(String.format("%.1f%%", rate));
-            } else {
-                exportVO.setPassRate("0.0%");
-            }
-            
-            exportVO.setRemark(record.getRemark() != null ? record.getRemark() : "-");
-            
-            return exportVO;
-        }).collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new RuntimeException("读取生产记录失败", e);
+        }
+        log.info("生产记录导出完成：{}行，耗时{}ms，堆内存峰值{}MB",
+                rows, System.currentTimeMillis() - begin, peakMemory / (1024 * 1024));
     }
 }
@@ -0,0 +1,248 @@
+package com.zssystem.service.impl;
+
+import com.zssystem.entity.ProductionDailyRollup;
+import com.zssystem.entity.ProductionRecord;
+import com.zssystem.entity.ProductionRollupCheckpoint;
+import com.zssystem.mapper.ProductionDailyRollupMapper;
+import com.zssystem.mapper.ProductionRecordMapper;
+import com.zssystem.mapper.ProductionRollupCheckpointMapper;
+import com.zssystem.service.ProductionRollupService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+@Slf4j
+@Service
+public class ProductionRollupServiceImpl implements ProductionRollupService {
+
+    /** 增量任务在高水位表中的名称 */
+    private static final String JOB_NAME = "production_daily_rollup";
+
+    /** 多行 INSERT 每批行数 */
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    @Autowired
+    private ProductionDailyRollupMapper rollupMapper;
+
+    @Autowired
+    private ProductionRecordMapper recordMapper;
+
+    @Autowired
+    private ProductionRollupCheckpointMapper checkpointMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${production.rollup.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${production.rollup.max-chunks-per-run:20}")
+    private int maxChunksPerRun;
+
+    @Value("${production.rollup.backfill-days:7}")
+    private int backfillDays;
+
+    @Value("${production.rollup.backfill-pause-millis:200}")
+    private long backfillPauseMillis;
+
+    /** 最近一次回填任务（执行中或已结束），未执行过为 null */
+    private volatile BackfillProgress backfill;
+
+    private volatile Thread backfillThread;
+
+    @Override
+    public void applyRecord(ProductionRecord record, int sign) {
+        if (record.getProductionDate() == null) {
+            return;
+        }
+        int quantity = record.getQuantity() != null ? record.getQuantity() : 0;
+        int defectQuantity = record.getDefectQuantity() != null ? record.getDefectQuantity() : 0;
+        rollupMapper.applyDelta(record.getProductionDate(),
+                record.getEquipmentId() != null ? record.getEquipmentId() : 0L,
+                record.getProductName() != null ? record.getProductName() : "",
+                sign, sign * quantity, sign * defectQuantity);
+    }
+
+    @Override
+    public synchronized int refreshChanged() {
+        ProductionRollupCheckpoint checkpoint = checkpointMapper.selectById(JOB_NAME);
+        if (checkpoint == null) {
+            checkpoint = new ProductionRollupCheckpoint();
+            checkpoint.setJobName(JOB_NAME);
+            checkpoint.setLastUpdateTime(LocalDateTime.of(1970, 1, 1, 0, 0));
+            checkpoint.setLastRecordId(0L);
+            checkpointMapper.insert(checkpoint);
+        }
+
+        // 每批读取一段变更记录，重算其生产日期的汇总并推进高水位；单次运行最多处理若干批，剩余的留给下次
+        int processed = 0;
+        for (int i = 0; i < maxChunksPerRun; i++) {
+            List<ProductionRecord> changed = recordMapper.selectChangedSince(
+                    checkpoint.getLastUpdateTime(), checkpoint.getLastRecordId(), chunkSize);
+            if (changed.isEmpty()) {
+                break;
+            }
+            Set<LocalDate> dates = new TreeSet<>();
+            for (ProductionRecord record : changed) {
+                if (record.getProductionDate() != null) {
+                    dates.add(record.getProductionDate());
+                }
+            }
+            ProductionRecord last = changed.get(changed.size() - 1);
+            checkpoint.setLastUpdateTime(last.getUpdateTime());
+            checkpoint.setLastRecordId(last.getId());
+            ProductionRollupCheckpoint next = checkpoint;
+            rebuildDates(dates, () -> checkpointMapper.updateById(next));
+            processed += changed.size();
+            if (changed.size() < chunkSize) {
+                break;
+            }
+        }
+        return processed;
+    }
+
+    @Override
+    public synchronized Map<String, Object> startBackfill(LocalDate startDate, LocalDate endDate) {
+        BackfillProgress current = backfill;
+        if (current != null && current.finishedAt == null) {
+            throw new RuntimeException("生产汇总回填正在执行，请稍后再试");
+        }
+        LocalDate from = startDate != null ? startDate : recordMapper.selectMinProductionDate();
+        LocalDate to = endDate != null ? endDate : recordMapper.selectMaxProductionDate();
+        BackfillProgress progress = new BackfillProgress(from, to);
+        backfill = progress;
+        if (from == null || to == null || to.isBefore(from)) {
+            progress.finishedAt = LocalDateTime.now();
+            return progress.toMap();
+        }
+        Thread thread = new Thread(() -> runBackfill(progress), "rollup-backfill");
+        thread.setDaemon(true);
+        backfillThread = thread;
+        thread.start();
+        return progress.toMap();
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        ProductionRollupCheckpoint checkpoint = checkpointMapper.selectById(JOB_NAME);
+        Map<String, Object> incremental = new LinkedHashMap<>();
+        incremental.put("lastUpdateTime", checkpoint != null ? checkpoint.getLastUpdateTime() : null);
+        incremental.put("lastRecordId", checkpoint != null ? checkpoint.getLastRecordId() : null);
+        incremental.put("updateTime", checkpoint != null ? checkpoint.getUpdateTime() : null);
+        status.put("checkpoint", incremental);
+        BackfillProgress progress = backfill;
+        status.put("backfill", progress != null ? progress.toMap() : null);
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Thread thread = backfillThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * 在后台线程上执行回填：按天数分段，每段一个短事务（锁定该段生产记录聚合并重写汇总），
+     * 段与段之间暂停，避免长时间阻塞生产记录的写入
+     */
+    private void runBackfill(BackfillProgress progress) {
+        LocalDate to = progress.endDate;
+        try {
+            for (LocalDate chunkStart = progress.startDate; !chunkStart.isAfter(to); chunkStart = chunkStart.plusDays(backfillDays)) {
+                LocalDate chunkEnd = chunkStart.plusDays(backfillDays - 1);
+                if (chunkEnd.isAfter(to)) {
+                    chunkEnd = to;
+                }
+                Set<LocalDate> dates = new TreeSet<>();
+                for (LocalDate d = chunkStart; !d.isAfter(chunkEnd); d = d.plusDays(1)) {
+                    dates.add(d);
+                }
+                rebuildDates(dates, null);
+                progress.doneDays += dates.size();
+                progress.lastDate = chunkEnd;
+                if (backfillPauseMillis > 0 && chunkEnd.isBefore(to)) {
+                    Thread.sleep(backfillPauseMillis);
+                }
+            }
+            log.info("生产日汇总回填完成：{} ~ {}，共{}天", progress.startDate, to, progress.doneDays);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.error = "回填被中断";
+            log.warn("生产日汇总回填被中断，已完成至{}", progress.lastDate);
+        } catch (Exception e) {
+            progress.error = e.getMessage();
+            log.error("生产日汇总回填失败，已完成至{}", progress.lastDate, e);
+        } finally {
+            progress.finishedAt = LocalDateTime.now();
+            backfillThread = null;
+        }
+    }
+
+    /** 回填任务进度 */
+    private static final class BackfillProgress {
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final long totalDays;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile long doneDays;
+        private volatile LocalDate lastDate;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        private BackfillProgress(LocalDate startDate, LocalDate endDate) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.totalDays = startDate != null && endDate != null && !endDate.isBefore(startDate)
+                    ? endDate.toEpochDay() - startDate.toEpochDay() + 1 : 0;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("running", finishedAt == null);
+            map.put("startDate", startDate);
+            map.put("endDate", endDate);
+            map.put("totalDays", totalDays);
+            map.put("doneDays", doneDays);
+            map.put("lastDate", lastDate);
+            map.put("startedAt", startedAt);
+            map.put("finishedAt", finishedAt);
+            map.put("error", error);
+            return map;
+        }
+    }
+
+    /**
+     * 重算指定日期的汇总：在同一短事务内对这些日期的生产记录加共享锁并聚合，再删除旧汇总、写入新汇总。
+     * 加锁顺序与生产记录的增删改一致（先生产记录、后汇总表），并发写入要么已提交并被聚合读到，
+     * 要么等本事务提交后再把增量叠加到新汇总上
+     * @param afterWrite 同一事务内需要一起提交的操作（如推进高水位），可为空
+     */
+    private void rebuildDates(Set<LocalDate> dates, Runnable afterWrite) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!dates.isEmpty()) {
+                List<ProductionDailyRollup> rows = recordMapper.aggregateDaily(dates);
+                rollupMapper.deleteByDates(dates);
+                for (int i = 0; i < rows.size(); i += INSERT_BATCH_SIZE) {
+                    rollupMapper.insertBatch(rows.subList(i, Math.min(i + INSERT_BATCH_SIZE, rows.size())));
+                }
+            }
+            if (afterWrite != null) {
+                afterWrite.run();
+            }
+        });
+    }
+}
@@ -10,25 +10,53 @@ import com.zssystem.mapper.EquipmentMapper;
 import com.zssystem.mapper.ProductionOrderMapper;
 import com.zssystem.mapper.ProductionOrderProductMapper;
 import com.zssystem.mapper.ProductionScheduleMapper;
+import com.zssystem.service.PlantCalendarService;
 import com.zssystem.service.ProductionScheduleService;
 import com.zssystem.util.BeanUtil;
+import com.zssystem.util.schedule.ScheduleEngine;
 import com.zssystem.vo.ProductionScheduleVO;
 import com.zssystem.vo.ProductionScheduleDetailVO;
 import com.zssystem.vo.ScheduleDayVO;
+import com.zssystem.vo.ScheduleRegenerateResultVO;
 import com.zssystem.vo.excel.ProductionScheduleExportVO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class ProductionScheduleServiceImpl implements ProductionScheduleService {
 
+    /** 多行 INSERT 每批行数 */
+    private static final int INSERT_BATCH_SIZE = 500;
+
     @Autowired
     private ProductionScheduleMapper scheduleMapper;
 
@@ -41,9 +69,39 @@ public class ProductionScheduleServiceImpl implements ProductionScheduleService
     @Autowired
     private ProductionOrderProductMapper orderProductMapper;
 
+    @Autowired
+    private ScheduleRemainingIndex remainingIndex;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlantCalendarService calendarService;
+
+    @Value("${schedule.regenerate.parallelism:4}")
+    private int regenerateParallelism;
+
+    @Value("${schedule.regenerate.queue-capacity:500}")
+    private int regenerateQueueCapacity;
+
+    /** 重新排程线程池，所有请求共用，同时占用的线程和数据库连接不超过 parallelism */
+    private ThreadPoolExecutor regenerateExecutor;
+
+    @Value("${schedule.feasibility-days:30}")
+    private int feasibilityDays;
+
     @Override
     @Transactional
     public ProductionScheduleVO generateSchedule(String machineNo, LocalDate startDate) {
+        return generateSchedule(machineNo, startDate, null);
+    }
+
+    @Override
+    @Transactional
+    public ProductionScheduleVO generateSchedule(String machineNo, LocalDate startDate, LocalDate endDate) {
+        if (endDate != null && endDate.isBefore(startDate)) {
+            throw new RuntimeException("排程截止日期不能早于开始日期");
+        }
         // 1. 查询机台号对应的设备信息（可选）
         Equipment equipment = equipmentMapper.selectOne(
             new LambdaQueryWrapper<Equipment>()
@@ -62,16 +120,8 @@ public class ProductionScheduleServiceImpl implements ProductionScheduleService
             throw new RuntimeException("该机台号未配置生产订单");
         }
         
-        // 3. 查询所有订单的产品（按订单创建时间和产品排序）
-        List<ProductionOrderProduct> allProducts = new ArrayList<>();
-        for (ProductionOrder order : orders) {
-            List<ProductionOrderProduct> products = orderProductMapper.selectList(
-                new LambdaQueryWrapper<ProductionOrderProduct>()
-                    .eq(ProductionOrderProduct::getOrderId, order.getId())
-                    .orderByAsc(ProductionOrderProduct::getSortOrder)
-            );
-            allProducts.addAll(products);
-        }
+        // 3. 查询所有订单的产品（一次查询，按订单创建时间和产品排序）
+        List<ProductionOrderProduct> allProducts = loadOrderProducts(orders);
         
         if (allProducts.isEmpty()) {
             throw new RuntimeException("该机台号的订单未配置产品");
@@ -81,118 +131,58 @@ public class ProductionScheduleServiceImpl implements ProductionScheduleService
         // 由于唯一约束 uk_equipment_day (equipment_id, day_number) 不包含 deleted 字段，
         // 逻辑删除的记录仍然会被唯一约束检查，所以需要使用物理删除
         scheduleMapper.physicalDeleteByMachineNo(machineNo);
-        
-        // 5. 生成排程（避开星期天）
-        List<ScheduleDayVO> scheduleDays = new ArrayList<>();
-        int currentProductIndex = 0;
-        int currentProductDays = 0; // 当前产品已生产天数
-        ProductionOrderProduct currentProduct = allProducts.get(currentProductIndex);
-        int remainingQuantity = currentProduct.getOrderQuantity();
-        int dayNumber = 0; // 排程天数（排除星期天）
-        LocalDate currentDate = startDate;
-        boolean allProductsCompleted = false; // 标记所有产品是否完成
-        
-        // 持续生成排程，直到所有产品完成或达到本月最后一天
-        // 计算本月最后一天（排程开始日期所在月份的最后一天）
-        LocalDate monthEndDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
-        
-        // 计算本月内的工作日数量（排除星期天），用于判断是否所有工作日都已排程完毕
-        int monthWorkDaysCount = 0;
-        LocalDate workDayCheckDate = startDate;
-        while (!workDayCheckDate.isAfter(monthEndDate)) {
-            if (workDayCheckDate.getDayOfWeek() != DayOfWeek.SUNDAY) {
-                monthWorkDaysCount++;
-            }
-            workDayCheckDate = workDayCheckDate.plusDays(1);
+        remainingIndex.evict(machineNo);
+        
+        // 5. 生成排程（按机台工作日历避开休息日、节假日和停机日），由排程引擎在内存中算完，最后批量写入
+        // 未指定截止日期时排到开始日期所在月份的最后一天
+        LocalDate scheduleEndDate = endDate != null ? endDate : startDate.withDayOfMonth(startDate.lengthOfMonth());
+        int[] orderQuantities = new int[allProducts.size()];
+        int[] dailyCapacities = new int[allProducts.size()];
+        for (int i = 0; i < allProducts.size(); i++) {
+            ProductionOrderProduct product = allProducts.get(i);
+            orderQuantities[i] = product.getOrderQuantity() != null ? product.getOrderQuantity() : 0;
+            dailyCapacities[i] = product.getDailyCapacity() != null ? product.getDailyCapacity() : 0;
         }
-        
-        while (currentDate.isBefore(monthEndDate.plusDays(1)) && currentProductIndex < allProducts.size()) {
-            // 如果已经排程完本月内所有工作日，提前停止
-            if (dayNumber >= monthWorkDaysCount) {
-                break;
-            }
-            // 先计算当前产品的剩余数量
-            remainingQuantity = currentProduct.getOrderQuantity() - 
-                               (currentProduct.getDailyCapacity() * currentProductDays);
-            
-            // 如果剩余数量 <= 0，不另算一天进行排程，直接切换到下一个产品
-            if (remainingQuantity <= 0) {
-                if (currentProductIndex < allProducts.size() - 1) {
-                    // 切换到下一个产品
-                    currentProductIndex++;
-                    currentProduct = allProducts.get(currentProductIndex);
-                    currentProductDays = 0;
-                    remainingQuantity = currentProduct.getOrderQuantity();
-                    // 继续循环，不增加dayNumber，不创建排程记录
-                    continue;
-                } else {
-                    // 最后一个产品的剩余数量 <= 0，所有产品已完成
-                    allProductsCompleted = true;
-                    break;
-                }
-            }
-            
-            // 判断是否为星期天，如果是则跳过（不插入数据库记录，避免唯一约束冲突）
-            DayOfWeek dayOfWeek = currentDate.getDayOfWeek();
-            if (dayOfWeek == DayOfWeek.SUNDAY) {
-                // 星期天不计入排程天数，直接跳过，不插入数据库记录
-                // 这样可以避免 uk_equipment_day (equipment_id, day_number) 唯一约束冲突
-                currentDate = currentDate.plusDays(1);
-                continue;
-            }
-            
-            dayNumber++;
-            
-            // 创建排程记录（剩余数量>0时才创建）
+        ScheduleEngine.Plan plan = ScheduleEngine.plan(orderQuantities, dailyCapacities,
+                calendarService.getMachineCalendar(machineNo), startDate, scheduleEndDate);
+        
+        List<ScheduleDayVO> scheduleDays = new ArrayList<>(plan.getDayCount());
+        List<ProductionSchedule> schedules = new ArrayList<>(plan.getDayCount());
+        LocalDateTime now = LocalDateTime.now();
+        plan.forEachDay((dayNumber, date, productIndex, remainingQuantity) -> {
+            ProductionOrderProduct product = allProducts.get(productIndex);
             ProductionSchedule schedule = new ProductionSchedule();
             schedule.setMachineNo(machineNo);
             if (equipment != null) {
                 schedule.setEquipmentId(equipment.getId());
                 schedule.setEquipmentNo(equipment.getEquipmentNo());
             }
-            schedule.setScheduleDate(currentDate);
+            schedule.setScheduleDate(date);
             schedule.setDayNumber(dayNumber);
-            schedule.setProductCode(currentProduct.getProductCode());
-            schedule.setProductName(currentProduct.getProductName());
-            schedule.setProductionQuantity(currentProduct.getDailyCapacity());
-            schedule.setDailyCapacity(currentProduct.getDailyCapacity());
+            schedule.setProductCode(product.getProductCode());
+            schedule.setProductName(product.getProductName());
+            schedule.setProductionQuantity(product.getDailyCapacity());
+            schedule.setDailyCapacity(product.getDailyCapacity());
             schedule.setRemainingQuantity(remainingQuantity);
-            schedule.setOrderId(currentProduct.getOrderId());
+            schedule.setOrderId(product.getOrderId());
             schedule.setIsSunday(0);
-            scheduleMapper.insert(schedule);
+            schedule.setCreateTime(now);
+            schedule.setUpdateTime(now);
+            schedules.add(schedule);
             
-            // 添加到VO
             ScheduleDayVO dayVO = new ScheduleDayVO();
             dayVO.setDayNumber(dayNumber);
-            dayVO.setScheduleDate(currentDate);
-            dayVO.setProductName(currentProduct.getProductName());
-            dayVO.setProductionQuantity(currentProduct.getDailyCapacity());
-            dayVO.setDailyCapacity(currentProduct.getDailyCapacity());
+            dayVO.setScheduleDate(date);
+            dayVO.setProductName(product.getProductName());
+            dayVO.setProductionQuantity(product.getDailyCapacity());
+            dayVO.setDailyCapacity(product.getDailyCapacity());
             dayVO.setRemainingQuantity(remainingQuantity);
             scheduleDays.add(dayVO);
-            
-            currentProductDays++;
-            currentDate = currentDate.plusDays(1);
-        }
+        });
         
-        // 6. 判断是否能在本月内完成所有产品的生产目标
-        boolean canComplete = false;
-        if (allProductsCompleted) {
-            // 所有产品都已完成，计划完成
-            canComplete = true;
-        } else {
-            // 复用之前计算的monthWorkDaysCount
-            // 计算所有产品的总需求天数（排除星期天）
-            int totalRequiredDays = 0;
-            for (ProductionOrderProduct product : allProducts) {
-                if (product.getDailyCapacity() > 0) {
-                    // 向上取整：需要的天数 = (订单数量 + 产能 - 1) / 产能
-                    int daysNeeded = (product.getOrderQuantity() + product.getDailyCapacity() - 1) / product.getDailyCapacity();
-                    totalRequiredDays += daysNeeded;
-                }
-            }
-            // 判断在本月工作日内是否能完成
-            canComplete = totalRequiredDays <= monthWorkDaysCount;
+        // 多行 INSERT 分批写入
+        for (int i = 0; i < schedules.size(); i += INSERT_BATCH_SIZE) {
+            scheduleMapper.insertBatch(schedules.subList(i, Math.min(i + INSERT_BATCH_SIZE, schedules.size())));
         }
         
         // 6. 构建返回VO
@@ -206,78 +196,170 @@ public class ProductionScheduleServiceImpl implements ProductionScheduleService
         }
         vo.setScheduleStartDate(startDate);
         vo.setScheduleDays(scheduleDays);
-        vo.setCanCompleteTarget(canComplete);
+        vo.setCanCompleteTarget(plan.isCanCompleteTarget());
         
         return vo;
     }
 
-    @Override
-    public List<ProductionScheduleVO> getScheduleList(ProductionScheduleQueryDTO queryDTO) {
-        // 查询所有有排程记录的机台号（从排程表中查询，而不是从订单表）
-        LambdaQueryWrapper<ProductionSchedule> scheduleWrapper = new LambdaQueryWrapper<>();
-        if (queryDTO.getMachineNo() != null && !queryDTO.getMachineNo().isBlank()) {
-            scheduleWrapper.eq(ProductionSchedule::getMachineNo, queryDTO.getMachineNo());
+    @PostConstruct
+    public void initRegenerateExecutor() {
+        if (regenerateParallelism <= 0) {
+            throw new IllegalStateException("schedule.regenerate.parallelism 必须大于 0，当前为 " + regenerateParallelism);
         }
-        if (queryDTO.getStartDate() != null) {
-            scheduleWrapper.ge(ProductionSchedule::getScheduleDate, queryDTO.getStartDate());
+        if (regenerateQueueCapacity <= 0) {
+            throw new IllegalStateException("schedule.regenerate.queue-capacity 必须大于 0，当前为 " + regenerateQueueCapacity);
         }
-        
-        // 获取唯一的机台号列表（从排程表中）
-        List<ProductionSchedule> allSchedules = scheduleMapper.selectList(scheduleWrapper);
-        List<String> machineNos = allSchedules.stream()
-            .map(ProductionSchedule::getMachineNo)
+        AtomicInteger index = new AtomicInteger();
+        regenerateExecutor = new ThreadPoolExecutor(regenerateParallelism, regenerateParallelism,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(regenerateQueueCapacity), r -> {
+                    Thread t = new Thread(r, "schedule-regenerate-" + index.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    public void shutdownRegenerateExecutor() {
+        if (regenerateExecutor != null) {
+            regenerateExecutor.shutdown();
+        }
+    }
+
+    @Override
+    public List<ScheduleRegenerateResultVO> regenerateAllSchedules(LocalDate startDate) {
+        // 所有存在待排程/排程中订单的机台
+        List<String> machineNos = orderMapper.selectList(
+            new LambdaQueryWrapper<ProductionOrder>()
+                .select(ProductionOrder::getMachineNo)
+                .in(ProductionOrder::getStatus, 0, 1)
+                .isNotNull(ProductionOrder::getMachineNo)
+        ).stream()
+            .map(ProductionOrder::getMachineNo)
             .distinct()
+            .sorted()
             .collect(Collectors.toList());
-        
         if (machineNos.isEmpty()) {
             return new ArrayList<>();
         }
         
-        LocalDate startDate = queryDTO.getStartDate();
-        
-        // 为每个机台号生成排程VO
-        return machineNos.stream().map(machineNo -> {
-            return getScheduleByMachineNo(machineNo, startDate);
-        }).collect(Collectors.toList());
+        // 各机台在共用线程池上并行执行，每个机台单独事务，互不影响；
+        // 线程池排满时被拒绝的机台记为失败结果，已提交的机台照常执行，返回结果如实反映每个机台
+        List<CompletableFuture<ScheduleRegenerateResultVO>> futures = new ArrayList<>(machineNos.size());
+        for (String machineNo : machineNos) {
+            try {
+                futures.add(CompletableFuture.supplyAsync(() -> regenerateOne(machineNo, startDate), regenerateExecutor));
+            } catch (RejectedExecutionException e) {
+                futures.add(CompletableFuture.completedFuture(rejectedResult(machineNo)));
+            }
+        }
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    private ScheduleRegenerateResultVO rejectedResult(String machineNo) {
+        log.warn("机台{}重新排程未执行：任务繁忙", machineNo);
+        ScheduleRegenerateResultVO result = new ScheduleRegenerateResultVO();
+        result.setMachineNo(machineNo);
+        result.setSuccess(false);
+        result.setMessage("重新排程任务繁忙，未执行，请稍后重试");
+        result.setCostMillis(0L);
+        return result;
+    }
+    
+    private ScheduleRegenerateResultVO regenerateOne(String machineNo, LocalDate startDate) {
+        ScheduleRegenerateResultVO result = new ScheduleRegenerateResultVO();
+        result.setMachineNo(machineNo);
+        long begin = System.currentTimeMillis();
+        try {
+            ProductionScheduleVO vo = transactionTemplate.execute(status -> generateSchedule(machineNo, startDate));
+            result.setSuccess(true);
+            result.setScheduleDayCount(vo != null ? vo.getScheduleDays().size() : 0);
+            result.setCanCompleteTarget(vo != null ? vo.getCanCompleteTarget() : null);
+        } catch (Exception e) {
+            log.warn("机台{}重新排程失败: {}", machineNo, e.getMessage());
+            result.setSuccess(false);
+            result.setMessage(e.getMessage());
+        }
+        result.setCostMillis(System.currentTimeMillis() - begin);
+        return result;
+    }
+    
+    /**
+     * 一次查询所有订单的产品，按订单顺序、产品排序拼接
+     */
+    private List<ProductionOrderProduct> loadOrderProducts(List<ProductionOrder> orders) {
+        List<Long> orderIds = orders.stream().map(ProductionOrder::getId).collect(Collectors.toList());
+        Map<Long, List<ProductionOrderProduct>> productsByOrder = orderProductMapper.selectList(
+            new LambdaQueryWrapper<ProductionOrderProduct>()
+                .in(ProductionOrderProduct::getOrderId, orderIds)
+                .orderByAsc(ProductionOrderProduct::getSortOrder)
+        ).stream().collect(Collectors.groupingBy(ProductionOrderProduct::getOrderId));
+        List<ProductionOrderProduct> allProducts = new ArrayList<>();
+        for (Long orderId : orderIds) {
+            allProducts.addAll(productsByOrder.getOrDefault(orderId, Collections.emptyList()));
+        }
+        return allProducts;
+    }
+
+    @Override
+    public List<ProductionScheduleVO> getScheduleList(ProductionScheduleQueryDTO queryDTO) {
+        String machineNo = queryDTO.getMachineNo() != null && !queryDTO.getMachineNo().isBlank()
+                ? queryDTO.getMachineNo() : null;
+        return loadScheduleBoard(machineNo, queryDTO.getStartDate());
     }
 
     @Override
     public ProductionScheduleVO getScheduleByMachineNo(String machineNo, LocalDate startDate) {
-        // 查询机台号对应的设备信息（可选）
+        List<ProductionScheduleVO> board = loadScheduleBoard(machineNo, startDate);
+        if (!board.isEmpty()) {
+            return board.get(0);
+        }
+        
+        // 如果没有排程，返回空VO
         Equipment equipment = equipmentMapper.selectOne(
             new LambdaQueryWrapper<Equipment>()
                 .eq(Equipment::getMachineNo, machineNo)
         );
-        
-        // 查询该机台号的排程（显示所有排程记录，按日期排序）
+        ProductionScheduleVO vo = new ProductionScheduleVO();
+        vo.setMachineNo(machineNo);
+        fillEquipment(vo, equipment);
+        vo.setScheduleStartDate(startDate);
+        vo.setScheduleDays(new ArrayList<>());
+        vo.setCanCompleteTarget(false);
+        return vo;
+    }
+    
+    /**
+     * 排程看板：一次按机台号、日期排序查询窗口内的全部排程，边读边按机台分组；
+     * 设备信息按机台号批量查询，未完成机台的总需求天数由数据库按机台汇总，查询次数与机台数无关
+     * @param machineNo 机台号，为空时查询所有机台
+     * @param startDate 开始日期，为空时不限制
+     */
+    private List<ProductionScheduleVO> loadScheduleBoard(String machineNo, LocalDate startDate) {
         LambdaQueryWrapper<ProductionSchedule> scheduleWrapper = new LambdaQueryWrapper<>();
-        scheduleWrapper.eq(ProductionSchedule::getMachineNo, machineNo);
-        if (startDate != null) {
-            scheduleWrapper.ge(ProductionSchedule::getScheduleDate, startDate);
-        }
-        scheduleWrapper.orderByAsc(ProductionSchedule::getScheduleDate)
+        scheduleWrapper.select(ProductionSchedule::getMachineNo, ProductionSchedule::getScheduleDate,
+                ProductionSchedule::getDayNumber, ProductionSchedule::getProductName,
+                ProductionSchedule::getProductionQuantity, ProductionSchedule::getDailyCapacity,
+                ProductionSchedule::getRemainingQuantity);
+        scheduleWrapper.eq(machineNo != null, ProductionSchedule::getMachineNo, machineNo)
+               .ge(startDate != null, ProductionSchedule::getScheduleDate, startDate)
+               .orderByAsc(ProductionSchedule::getMachineNo)
+               .orderByAsc(ProductionSchedule::getScheduleDate)
                .orderByAsc(ProductionSchedule::getDayNumber);
         
-        List<ProductionSchedule> schedules = scheduleMapper.selectList(scheduleWrapper);
-        
-        if (schedules.isEmpty()) {
-            // 如果没有排程，返回空VO
-            ProductionScheduleVO vo = new ProductionScheduleVO();
-            vo.setMachineNo(machineNo);
-            if (equipment != null) {
-                vo.setEquipmentId(equipment.getId());
-                vo.setEquipmentNo(equipment.getEquipmentNo());
-                vo.setEquipmentName(equipment.getEquipmentName());
-                vo.setGroupName(equipment.getGroupName());
+        // 结果已按机台号排序，机台号变化即开始新的一组
+        List<ProductionScheduleVO> board = new ArrayList<>();
+        List<LocalDate> firstDates = new ArrayList<>();
+        scheduleMapper.selectList(scheduleWrapper, context -> {
+            ProductionSchedule schedule = context.getResultObject();
+            ProductionScheduleVO current = board.isEmpty() ? null : board.get(board.size() - 1);
+            if (current == null || !current.getMachineNo().equals(schedule.getMachineNo())) {
+                current = new ProductionScheduleVO();
+                current.setMachineNo(schedule.getMachineNo());
+                current.setScheduleStartDate(startDate);
+                current.setScheduleDays(new ArrayList<>());
+                board.add(current);
+                firstDates.add(schedule.getScheduleDate());
             }
-            vo.setScheduleStartDate(startDate);
-            vo.setScheduleDays(new ArrayList<>());
-            vo.setCanCompleteTarget(false);
-            return vo;
-        }
-        
-        // 转换为VO
-        List<ScheduleDayVO> scheduleDays = schedules.stream().map(schedule -> {
             ScheduleDayVO dayVO = new ScheduleDayVO();
             dayVO.setDayNumber(schedule.getDayNumber());
             dayVO.setScheduleDate(schedule.getScheduleDate());
@@ -285,112 +367,128 @@ public class ProductionScheduleServiceImpl implements ProductionScheduleService
             dayVO.setProductionQuantity(schedule.getProductionQuantity());
             dayVO.setDailyCapacity(schedule.getDailyCapacity());
             dayVO.setRemainingQuantity(schedule.getRemainingQuantity());
-            return dayVO;
-        }).collect(Collectors.toList());
+            current.getScheduleDays().add(dayVO);
+        });
+        if (board.isEmpty()) {
+            return board;
+        }
         
-        // 判断是否完成目标
-        boolean canComplete = false;
-        if (!scheduleDays.isEmpty()) {
-            // 检查最后一个排程的剩余数量
-            ScheduleDayVO lastDay = scheduleDays.get(scheduleDays.size() - 1);
-            // 如果最后一个排程的剩余数量 <= 0，说明所有产品都已完成
-            if (lastDay.getRemainingQuantity() <= 0) {
-                canComplete = true;
-            } else {
-                // 如果还有剩余数量，计算所有产品的总需求天数
-                // 查询该机台号的所有订单产品
-                List<ProductionOrder> orders = orderMapper.selectList(
-                    new LambdaQueryWrapper<ProductionOrder>()
-                        .eq(ProductionOrder::getMachineNo, machineNo)
-                        .in(ProductionOrder::getStatus, 0, 1)
-                );
-                
-                List<ProductionOrderProduct> allProducts = new ArrayList<>();
-                for (ProductionOrder order : orders) {
-                    List<ProductionOrderProduct> products = orderProductMapper.selectList(
-                        new LambdaQueryWrapper<ProductionOrderProduct>()
-                            .eq(ProductionOrderProduct::getOrderId, order.getId())
-                            .orderByAsc(ProductionOrderProduct::getSortOrder)
-                    );
-                    allProducts.addAll(products);
-                }
-                
-                // 计算总需求天数
-                int totalRequiredDays = 0;
-                for (ProductionOrderProduct product : allProducts) {
-                    if (product.getDailyCapacity() > 0) {
-                        int daysNeeded = (product.getOrderQuantity() + product.getDailyCapacity() - 1) / product.getDailyCapacity();
-                        totalRequiredDays += daysNeeded;
-                    }
-                }
-                
-                // 判断在30天内是否能完成
-                canComplete = totalRequiredDays <= 30;
+        List<String> machineNos = board.stream().map(ProductionScheduleVO::getMachineNo).collect(Collectors.toList());
+        
+        // 设备信息：一次查询，同一机台号有多台设备时取第一条
+        Map<String, Equipment> equipmentByMachine = new HashMap<>();
+        for (Equipment equipment : equipmentMapper.selectList(
+                new LambdaQueryWrapper<Equipment>().in(Equipment::getMachineNo, machineNos))) {
+            equipmentByMachine.putIfAbsent(equipment.getMachineNo(), equipment);
+        }
+        
+        // 最后一天仍有剩余数量的机台，才需要按总需求天数判断能否完成
+        Set<String> unfinished = new HashSet<>();
+        for (ProductionScheduleVO vo : board) {
+            List<ScheduleDayVO> days = vo.getScheduleDays();
+            Integer lastRemaining = days.get(days.size() - 1).getRemainingQuantity();
+            if (lastRemaining != null && lastRemaining > 0) {
+                unfinished.add(vo.getMachineNo());
+            }
+        }
+        Map<String, Integer> requiredDaysByMachine = new HashMap<>();
+        if (!unfinished.isEmpty()) {
+            for (Map<String, Object> row : orderProductMapper.sumRequiredDaysByMachine(unfinished)) {
+                Object requiredDays = row.get("requiredDays");
+                requiredDaysByMachine.put((String) row.get("machineNo"),
+                        requiredDays != null ? ((Number) requiredDays).intValue() : 0);
             }
         }
         
-        ProductionScheduleVO vo = new ProductionScheduleVO();
-        vo.setMachineNo(machineNo);
+        for (int i = 0; i < board.size(); i++) {
+            ProductionScheduleVO vo = board.get(i);
+            fillEquipment(vo, equipmentByMachine.get(vo.getMachineNo()));
+            
+            // 判断是否完成目标：最后一个排程的剩余数量 <= 0 说明所有产品都已完成，
+            // 否则在可行性窗口内（按机台日历统计工作日）比较总需求天数
+            boolean canComplete = true;
+            if (unfinished.contains(vo.getMachineNo())) {
+                LocalDate windowStart = firstDates.get(i);
+                int windowWorkDays = calendarService.getMachineCalendar(vo.getMachineNo())
+                    .countWorkingDays(windowStart, windowStart.plusDays(feasibilityDays - 1));
+                canComplete = requiredDaysByMachine.getOrDefault(vo.getMachineNo(), 0) <= windowWorkDays;
+            }
+            vo.setCanCompleteTarget(canComplete);
+        }
+        return board;
+    }
+    
+    private void fillEquipment(ProductionScheduleVO vo, Equipment equipment) {
         if (equipment != null) {
             vo.setEquipmentId(equipment.getId());
             vo.setEquipmentNo(equipment.getEquipmentNo());
             vo.setEquipmentName(equipment.getEquipmentName());
             vo.setGroupName(equipment.getGroupName());
         }
-        vo.setScheduleStartDate(startDate);
-        vo.setScheduleDays(scheduleDays);
-        vo.setCanCompleteTarget(canComplete);
-        
-        return vo;
     }
 
     @Override
-    public List<ProductionScheduleExportVO> getExportData(ProductionScheduleQueryDTO queryDTO) {
+    @Transactional(readOnly = true)
+    public void exportScheduleData(ProductionScheduleQueryDTO queryDTO, Consumer<ProductionScheduleExportVO> consumer) {
         // 获取排程开始日期（用于过滤和生成日期列）
         if (queryDTO.getStartDate() == null) {
             throw new RuntimeException("排程开始日期不能为空");
         }
         LocalDate startDate = queryDTO.getStartDate();
+        String machineNo = queryDTO.getMachineNo() != null && !queryDTO.getMachineNo().isBlank()
+                ? queryDTO.getMachineNo() : null;
         
-        // 查询所有符合排程开始日期的排程记录（按机台号分组）
-        LambdaQueryWrapper<ProductionSchedule> scheduleWrapper = new LambdaQueryWrapper<>();
-        if (queryDTO.getMachineNo() != null && !queryDTO.getMachineNo().isBlank()) {
-            scheduleWrapper.eq(ProductionSchedule::getMachineNo, queryDTO.getMachineNo());
-        }
-        // 按排程开始日期过滤：只导出排程日期 >= 开始日期的记录
-        scheduleWrapper.ge(ProductionSchedule::getScheduleDate, startDate);
-        
-        // 获取所有符合条件的排程记录
-        List<ProductionSchedule> allSchedules = scheduleMapper.selectList(scheduleWrapper);
-        
-        // 按机台号分组
-        java.util.Map<String, List<ProductionSchedule>> schedulesByMachine = allSchedules.stream()
-            .collect(Collectors.groupingBy(ProductionSchedule::getMachineNo));
-        
-        List<ProductionScheduleExportVO> exportList = new ArrayList<>();
-        
-        // 为每个机台号创建一行导出数据
-        for (java.util.Map.Entry<String, List<ProductionSchedule>> entry : schedulesByMachine.entrySet()) {
-            String machineNo = entry.getKey();
-            List<ProductionSchedule> machineSchedules = entry.getValue();
-            
-            // 查询设备信息
-            Equipment equipment = equipmentMapper.selectOne(
+        // 游标遍历期间不能再执行其他查询，设备和订单产品先一次查好
+        Map<String, Equipment> equipmentByMachine = new HashMap<>();
+        for (Equipment equipment : equipmentMapper.selectList(
                 new LambdaQueryWrapper<Equipment>()
-                    .eq(Equipment::getMachineNo, machineNo)
-            );
-            
-            // 按日期排序
-            machineSchedules.sort((a, b) -> a.getScheduleDate().compareTo(b.getScheduleDate()));
-            
-            // 为每个机台号创建一行导出数据（合并所有产品的排程信息）
-            ProductionScheduleExportVO exportVO = createExportVOByMachine(
-                equipment, machineSchedules, startDate
-            );
-            exportList.add(exportVO);
+                    .eq(machineNo != null, Equipment::getMachineNo, machineNo)
+                    .isNotNull(Equipment::getMachineNo))) {
+            equipmentByMachine.putIfAbsent(equipment.getMachineNo(), equipment);
         }
+        Map<Long, List<ProductionOrderProduct>> productsByOrder = orderProductMapper.selectByScheduleWindow(machineNo, startDate)
+            .stream().collect(Collectors.groupingBy(ProductionOrderProduct::getOrderId));
+        List<LocalDate> dateList = buildExportDateList(startDate);
+        
+        // 排程按机台号排序逐行读取，机台号变化时输出上一个机台的一行，内存中只保留一个机台的排程
+        try (Cursor<ProductionSchedule> cursor = scheduleMapper.streamByMachine(machineNo, startDate)) {
+            List<ProductionSchedule> machineSchedules = new ArrayList<>();
+            for (ProductionSchedule schedule : cursor) {
+                if (!machineSchedules.isEmpty()
+                        && !machineSchedules.get(0).getMachineNo().equals(schedule.getMachineNo())) {
+                    consumer.accept(createExportVOByMachine(
+                        equipmentByMachine.get(machineSchedules.get(0).getMachineNo()),
+                        machineSchedules, dateList, productsByOrder));
+                    machineSchedules = new ArrayList<>();
+                }
+                machineSchedules.add(schedule);
+            }
+            if (!machineSchedules.isEmpty()) {
+                consumer.accept(createExportVOByMachine(
+                    equipmentByMachine.get(machineSchedules.get(0).getMachineNo()),
+                    machineSchedules, dateList, productsByOrder));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("读取排程数据失败", e);
+        }
+    }
+    
+    /**
+     * 生成本月内的日期列表（从开始日期起，到本月最后一天，排除星期天）
+     */
+    private List<LocalDate> buildExportDateList(LocalDate startDate) {
+        List<LocalDate> dateList = new ArrayList<>();
+        LocalDate currentDate = startDate;
+        // 计算本月最后一天（排程开始日期所在月份的最后一天）
+        LocalDate monthEndDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
         
-        return exportList;
+        while (!currentDate.isAfter(monthEndDate)) {
+            if (currentDate.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                dateList.add(currentDate);
+            }
+            currentDate = currentDate.plusDays(1);
+        }
+        return dateList;
     }
     
     /**
@@ -399,7 +497,8 @@ public class ProductionScheduleServiceImpl implements ProductionScheduleService
     private ProductionScheduleExportVO createExportVOByMachine(
             Equipment equipment,
             List<ProductionSchedule> allSchedules,
-            LocalDate startDate) {
+            List<LocalDate> dateList,
+            Map<Long, List<ProductionOrderProduct>> productsByOrder) {
         ProductionScheduleExportVO exportVO = new ProductionScheduleExportVO();
         
         // 填充设备信息
@@ -438,26 +537,21 @@ public class ProductionScheduleServiceImpl implements ProductionScheduleService
             java.util.Set<String> productNames = allSchedules.stream()
                 .map(ProductionSchedule::getProductName)
                 .filter(name -> name != null && !name.equals("-"))
-                .collect(java.util.stream.Collectors.toSet());
+                .collect(Collectors.toCollection(LinkedHashSet::new));
             exportVO.setProductName(String.join(", ", productNames));
             
             // 获取所有排程记录关联的订单ID
             java.util.Set<Long> orderIds = allSchedules.stream()
                 .map(ProductionSchedule::getOrderId)
                 .filter(id -> id != null)
-                .collect(java.util.stream.Collectors.toSet());
+                .collect(Collectors.toCollection(LinkedHashSet::new));
             
             // 查询订单产品信息，获取订单数量和产能
             List<String> orderQuantityList = new ArrayList<>();
             List<String> dailyCapacityList = new ArrayList<>();
             
             for (Long orderId : orderIds) {
-                List<ProductionOrderProduct> products = orderProductMapper.selectList(
-                    new LambdaQueryWrapper<ProductionOrderProduct>()
-                        .eq(ProductionOrderProduct::getOrderId, orderId)
-                        .orderByAsc(ProductionOrderProduct::getSortOrder)
-                );
-                
+                List<ProductionOrderProduct> products = productsByOrder.getOrDefault(orderId, Collections.emptyList());
                 for (ProductionOrderProduct product : products) {
                     if (product.getOrderQuantity() != null) {
                         orderQuantityList.add(product.getOrderQuantity().toString());
@@ -494,19 +588,6 @@ public class ProductionScheduleServiceImpl implements ProductionScheduleService
                 (existing, replacement) -> existing // 如果有重复日期，保留第一个
             ));
         
-        // 生成本月内的日期列表（从开始日期起，到本月最后一天，排除星期天）
-        java.util.List<LocalDate> dateList = new ArrayList<>();
-        LocalDate currentDate = startDate;
-        // 计算本月最后一天（排程开始日期所在月份的最后一天）
-        LocalDate monthEndDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
-        
-        while (!currentDate.isAfter(monthEndDate)) {
-            if (currentDate.getDayOfWeek() != DayOfWeek.SUNDAY) {
-                dateList.add(currentDate);
-            }
-            currentDate = currentDate.plusDays(1);
-        }
-        
         // 设置每天的排程数据（使用实际日期匹配）
         // 注意：由于每个日期需要3列（产品名称、排产数量、剩余数量），
         // 这里先设置占位值，实际数据将通过自定义RowWriteHandler写入
@@ -566,12 +647,17 @@ public class ProductionScheduleServiceImpl implements ProductionScheduleService
     @Transactional
     public void deleteScheduleByMachineNo(String machineNo) {
         scheduleMapper.physicalDeleteByMachineNo(machineNo);
+        remainingIndex.evict(machineNo);
     }
 
     @Override
     @Transactional
     public void deleteScheduleById(Long id) {
+        ProductionSchedule schedule = scheduleMapper.selectById(id);
         scheduleMapper.deleteById(id);
+        if (schedule != null) {
+            remainingIndex.evict(schedule.getMachineNo());
+        }
     }
 
     @Override
@@ -0,0 +1,189 @@
+package com.zssystem.service.impl;
+
+import com.zssystem.vo.QrArtifactVO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 设备扫码产物缓存：按 (设备ID, 产物类型, 月份) 保存渲染好的 SVG/PDF 及 ETag、Last-Modified。
+ * 点检、交接班、工艺文件、设备信息变更时由对应服务调用 {@link #invalidate(Long)}，
+ * 被失效的设备记入待刷新集合，由后台任务重新预渲染；同一产物同时被多次请求时只渲染一次。
+ * 按产物总字节数淘汰最久未用的条目（工艺卡 SVG 内嵌图片，单条可达数 MB）。
+ */
+@Component
+public class QrArtifactCache {
+
+    /** 产物类型 */
+    public enum Kind {
+        CHECK_PDF, CHECK_SVG, PROCESS_FILE_PDF, PROCESS_FILE_SVG, HANDOVER_SVG
+    }
+
+    /** 产物渲染逻辑（只需填充内容、类型和文件名） */
+    @FunctionalInterface
+    public interface Renderer {
+        QrArtifactVO render() throws Exception;
+    }
+
+    @Value("${qr.artifact.max-bytes:134217728}")
+    private long maxBytes;
+
+    /** 设备ID:类型:月份 -> 产物，按访问顺序淘汰最久未用的条目 */
+    private final LinkedHashMap<String, QrArtifactVO> artifacts = new LinkedHashMap<>(64, 0.75f, true);
+
+    /** 缓存中产物的总字节数 */
+    private long totalBytes;
+
+    private final Map<String, CompletableFuture<QrArtifactVO>> rendering = new ConcurrentHashMap<>();
+
+    /** 待后台重新预渲染的设备 */
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    /** 设备ID -> 失效版本号：渲染期间该设备发生失效时不写入缓存，避免把旧数据放回；其他设备的渲染不受影响 */
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 取产物；未缓存时渲染并缓存。渲染结果为 null（如设备无启用工艺卡）时不缓存，返回 null
+     */
+    public QrArtifactVO get(Long equipmentId, Kind kind, String month, Renderer renderer) throws Exception {
+        String key = key(equipmentId, kind, month);
+        QrArtifactVO cached;
+        synchronized (this) {
+            cached = artifacts.get(key);
+        }
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<QrArtifactVO> created = new CompletableFuture<>();
+        CompletableFuture<QrArtifactVO> existing = rendering.putIfAbsent(key, created);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof Exception ex ? ex : e;
+            }
+        }
+        try {
+            long renderVersion = versionOf(equipmentId);
+            QrArtifactVO artifact = renderer.render();
+            if (artifact != null) {
+                artifact.setEtag("\"" + digest(artifact.getBody()) + "\"");
+                artifact.setLastModified(System.currentTimeMillis() / 1000 * 1000);
+                synchronized (this) {
+                    if (versionOf(equipmentId) == renderVersion) {
+                        put(key, artifact);
+                    }
+                }
+            }
+            created.complete(artifact);
+            return artifact;
+        } catch (Exception | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            rendering.remove(key, created);
+        }
+    }
+
+    public synchronized boolean contains(Long equipmentId, Kind kind, String month) {
+        return artifacts.containsKey(key(equipmentId, kind, month));
+    }
+
+    /**
+     * 使指定设备的全部产物失效并登记待刷新；处于事务中时在提交后再失效一次
+     */
+    public void invalidate(Long equipmentId) {
+        if (equipmentId == null) {
+            return;
+        }
+        evictEquipment(equipmentId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictEquipment(equipmentId);
+                }
+            });
+        }
+    }
+
+    /**
+     * 取出并清空待刷新的设备
+     */
+    public Set<Long> drainDirty() {
+        Set<Long> drained = new HashSet<>();
+        for (Long equipmentId : dirty) {
+            if (dirty.remove(equipmentId)) {
+                drained.add(equipmentId);
+            }
+        }
+        return drained;
+    }
+
+    private void evictEquipment(Long equipmentId) {
+        String prefix = equipmentId + ":";
+        synchronized (this) {
+            versions.merge(equipmentId, 1L, Long::sum);
+            Iterator<Map.Entry<String, QrArtifactVO>> it = artifacts.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, QrArtifactVO> e = it.next();
+                if (e.getKey().startsWith(prefix)) {
+                    totalBytes -= e.getValue().getBody().length;
+                    it.remove();
+                }
+            }
+        }
+        dirty.add(equipmentId);
+    }
+
+    /**
+     * 放入产物并按总字节数淘汰最久未用的其他条目；单个产物超出上限时不缓存
+     */
+    private void put(String key, QrArtifactVO artifact) {
+        long size = artifact.getBody().length;
+        if (size > maxBytes) {
+            return;
+        }
+        QrArtifactVO previous = artifacts.put(key, artifact);
+        totalBytes += size - (previous != null ? previous.getBody().length : 0);
+        Iterator<Map.Entry<String, QrArtifactVO>> it = artifacts.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, QrArtifactVO> eldest = it.next();
+            if (eldest.getKey().equals(key)) {
+                continue;
+            }
+            totalBytes -= eldest.getValue().getBody().length;
+            it.remove();
+        }
+    }
+
+    private long versionOf(Long equipmentId) {
+        return versions.getOrDefault(equipmentId, 0L);
+    }
+
+    private static String key(Long equipmentId, Kind kind, String month) {
+        return equipmentId + ":" + kind + ":" + (month != null ? month : "");
+    }
+
+    private static String digest(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
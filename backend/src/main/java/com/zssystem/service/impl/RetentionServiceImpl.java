@@ -0,0 +1,212 @@
+package com.zssystem.service.impl;
+
+import com.zssystem.entity.HandoverRecord;
+import com.zssystem.entity.Site5sAreaPhoto;
+import com.zssystem.mapper.HandoverRecordMapper;
+import com.zssystem.mapper.Site5sAreaPhotoMapper;
+import com.zssystem.service.PhotoStorageService;
+import com.zssystem.service.RetentionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 文件保留期清理实现
+ * 每个类别按 ID 分批读取过期记录（每批只取 id 和路径），一条 UPDATE ... WHERE id IN 清除该批路径，
+ * 再在少量 I/O 线程上并行删除文件。先清路径后删文件：中途中断时最多留下无人引用的文件，由照片垃圾回收兜底。
+ * 照片按内容哈希存储，仍被其他记录引用或刚被复用的照片不删除。
+ */
+@Slf4j
+@Service
+public class RetentionServiceImpl implements RetentionService {
+
+    /** 删除文件的结果：文件不存在 */
+    private static final long ABSENT = -1;
+    /** 删除文件的结果：删除失败 */
+    private static final long FAILED = -2;
+    /** 删除文件的结果：删除前复查时需要保留 */
+    private static final long KEPT = -3;
+
+    @Value("${retention.batch-size:500}")
+    private int batchSize;
+
+    @Value("${retention.io-threads:4}")
+    private int ioThreads;
+
+    @Value("${retention.handover-photo-days:15}")
+    private int handoverPhotoDays;
+
+    @Value("${retention.site5s-photo-days:365}")
+    private int site5sPhotoDays;
+
+    @Autowired
+    private HandoverRecordMapper handoverRecordMapper;
+
+    @Autowired
+    private Site5sAreaPhotoMapper areaPhotoMapper;
+
+    @Autowired
+    private PhotoStorageService photoStorageService;
+
+    /** 一条过期记录 */
+    private record Expired(Long id, String path) {
+    }
+
+    /** 按 ID 读取下一批过期记录 */
+    @FunctionalInterface
+    private interface BatchLoader {
+        List<Expired> load(long afterId, int limit);
+    }
+
+    /**
+     * 一个类别的清理策略
+     * @param days 保留天数，小于等于 0 表示不清理
+     * @param clearer 批量清除一批记录的路径
+     * @param files 清除路径后可以删除的文件
+     * @param keep 删除前对每个文件的复查，为 true 时保留
+     */
+    private record Policy(String name, int days, BatchLoader loader, Consumer<List<Long>> clearer,
+                          Function<List<String>, List<Path>> files, Predicate<Path> keep) {
+    }
+
+    @Override
+    public synchronized Map<String, Map<String, Object>> runAll() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        AtomicInteger index = new AtomicInteger();
+        ExecutorService ioPool = Executors.newFixedThreadPool(Math.max(1, ioThreads), r -> {
+            Thread t = new Thread(r, "retention-io-" + index.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            for (Policy policy : policies()) {
+                if (policy.days() <= 0) {
+                    continue;
+                }
+                try {
+                    result.put(policy.name(), run(policy, ioPool));
+                } catch (Exception e) {
+                    log.error("文件保留期清理失败: {}", policy.name(), e);
+                    result.put(policy.name(), Map.of("error", String.valueOf(e.getMessage())));
+                }
+            }
+        } finally {
+            ioPool.shutdown();
+        }
+        return result;
+    }
+
+    private List<Policy> policies() {
+        List<Policy> policies = new ArrayList<>();
+
+        LocalDateTime handoverBefore = LocalDateTime.now().minusDays(handoverPhotoDays);
+        policies.add(new Policy("handoverPhoto", handoverPhotoDays,
+                (afterId, limit) -> handoverRecordMapper.selectExpiredPhotos(handoverBefore, afterId, limit).stream()
+                        .map(r -> new Expired(r.getId(), r.getPhotoPath()))
+                        .toList(),
+                handoverRecordMapper::clearPhotoPaths,
+                photoStorageService::releasable,
+                photoStorageService::recentlyUsed));
+
+        LocalDate site5sBefore = LocalDate.now().minusDays(site5sPhotoDays);
+        Long site5sMaxId = site5sPhotoDays > 0 ? areaPhotoMapper.selectMaxIdBefore(site5sBefore) : null;
+        policies.add(new Policy("site5sPhoto", site5sPhotoDays,
+                (afterId, limit) -> site5sMaxId == null ? List.of()
+                        : areaPhotoMapper.selectExpiredPhotos(site5sBefore, afterId, site5sMaxId, limit).stream()
+                        .map(p -> new Expired(p.getId(), p.getPhotoPath()))
+                        .toList(),
+                areaPhotoMapper::clearPhotoPaths,
+                photoStorageService::releasable,
+                photoStorageService::recentlyUsed));
+
+        return policies;
+    }
+
+    private Map<String, Object> run(Policy policy, ExecutorService ioPool) {
+        long start = System.currentTimeMillis();
+        long rows = 0;
+        long files = 0;
+        long freedBytes = 0;
+        long failures = 0;
+        long afterId = 0;
+        while (true) {
+            List<Expired> batch = policy.loader().load(afterId, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            afterId = batch.get(batch.size() - 1).id();
+            List<Long> ids = new ArrayList<>(batch.size());
+            List<String> paths = new ArrayList<>(batch.size());
+            for (Expired e : batch) {
+                ids.add(e.id());
+                paths.add(e.path());
+            }
+            policy.clearer().accept(ids);
+            rows += batch.size();
+
+            List<CompletableFuture<Long>> deletions = new ArrayList<>();
+            for (Path file : policy.files().apply(paths)) {
+                deletions.add(CompletableFuture.supplyAsync(() -> deleteFile(file, policy.keep()), ioPool));
+            }
+            for (CompletableFuture<Long> deletion : deletions) {
+                long size = deletion.join();
+                if (size == FAILED) {
+                    failures++;
+                } else if (size >= 0) {
+                    files++;
+                    freedBytes += size;
+                }
+            }
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("retentionDays", policy.days());
+        stats.put("rowCount", rows);
+        stats.put("fileCount", files);
+        stats.put("freedBytes", freedBytes);
+        stats.put("failureCount", failures);
+        stats.put("durationMillis", System.currentTimeMillis() - start);
+        return stats;
+    }
+
+    /**
+     * 删除文件，删除前先做策略的复查
+     * @return 删除的字节数；文件不存在返回 {@link #ABSENT}，失败返回 {@link #FAILED}，需保留返回 {@link #KEPT}
+     */
+    private static long deleteFile(Path file, Predicate<Path> keep) {
+        if (keep.test(file)) {
+            return KEPT;
+        }
+        try {
+            long size = Files.size(file);
+            Files.delete(file);
+            return size;
+        } catch (NoSuchFileException e) {
+            return ABSENT;
+        } catch (IOException e) {
+            log.warn("删除过期文件失败: {} - {}", file, e.getMessage());
+            return FAILED;
+        }
+    }
+}
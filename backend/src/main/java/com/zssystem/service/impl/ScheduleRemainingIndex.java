@@ -0,0 +1,124 @@
+package com.zssystem.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zssystem.entity.ProductionSchedule;
+import com.zssystem.mapper.ProductionScheduleMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 排程"最新剩余数量"索引
+ * 按 (机台号, 产品名称) 缓存最新一天（非星期天）排程的剩余数量，按机台整体加载、整体失效，
+ * 读取为 O(1)；排程生成、删除及订单删除时由对应服务调用 {@link #evict(String)}
+ */
+@Component
+public class ScheduleRemainingIndex {
+
+    @Autowired
+    private ProductionScheduleMapper scheduleMapper;
+
+    /** 机台号 -> (产品名称 -> 最新剩余数量)，无排程的机台缓存空表 */
+    private final Map<String, Map<String, Integer>> index = new ConcurrentHashMap<>();
+
+    /** 机台号 -> 失效版本号：加载期间该机台发生失效时放弃写入，避免把旧数据放回缓存；检查与写入、失效都在 this 上同步 */
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 获取指定机台、产品的最新剩余数量（未排程返回 null）
+     */
+    public Integer getLatestRemaining(String machineNo, String productName) {
+        if (machineNo == null) {
+            return null;
+        }
+        Map<String, Integer> products = index.get(machineNo);
+        if (products == null) {
+            // 直接使用本次加载结果，即使因并发失效未写入缓存
+            products = load(Collections.singleton(machineNo)).get(machineNo);
+        }
+        return products.get(productName);
+    }
+
+    /**
+     * 批量加载尚未缓存的机台（一次 IN 查询）
+     */
+    public void preload(Collection<String> machineNos) {
+        Set<String> missing = machineNos.stream()
+            .filter(m -> m != null && !index.containsKey(m))
+            .collect(Collectors.toSet());
+        if (!missing.isEmpty()) {
+            load(missing);
+        }
+    }
+
+    /**
+     * 加载指定机台的索引并写入缓存（加载期间被失效的机台不写入），返回全部加载结果
+     */
+    private Map<String, Map<String, Integer>> load(Set<String> machineNos) {
+        Map<String, Long> loadVersions = new HashMap<>();
+        for (String machineNo : machineNos) {
+            loadVersions.put(machineNo, versionOf(machineNo));
+        }
+        List<ProductionSchedule> schedules = scheduleMapper.selectList(
+            new LambdaQueryWrapper<ProductionSchedule>()
+                .select(ProductionSchedule::getMachineNo, ProductionSchedule::getProductName,
+                        ProductionSchedule::getRemainingQuantity, ProductionSchedule::getScheduleDate)
+                .in(ProductionSchedule::getMachineNo, machineNos)
+                .eq(ProductionSchedule::getIsSunday, 0)
+                .orderByAsc(ProductionSchedule::getScheduleDate)
+        );
+        Map<String, Map<String, Integer>> loaded = new HashMap<>();
+        for (String machineNo : machineNos) {
+            loaded.put(machineNo, new HashMap<>());
+        }
+        // 按日期升序遍历，后出现的覆盖先出现的，即为最新一天
+        for (ProductionSchedule s : schedules) {
+            loaded.computeIfAbsent(s.getMachineNo(), k -> new HashMap<>()).put(s.getProductName(), s.getRemainingQuantity());
+        }
+        synchronized (this) {
+            loaded.forEach((machineNo, products) -> {
+                if (versionOf(machineNo) == loadVersions.get(machineNo)) {
+                    index.putIfAbsent(machineNo, products);
+                }
+            });
+        }
+        return loaded;
+    }
+
+    /**
+     * 使指定机台的索引失效；处于事务中时在提交后执行
+     */
+    public void evict(String machineNo) {
+        if (machineNo == null) {
+            return;
+        }
+        invalidate(machineNo);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(machineNo);
+                }
+            });
+        }
+    }
+
+    private synchronized void invalidate(String machineNo) {
+        versions.merge(machineNo, 1L, Long::sum);
+        index.remove(machineNo);
+    }
+
+    private long versionOf(String machineNo) {
+        return versions.getOrDefault(machineNo, 0L);
+    }
+}
@@ -18,29 +18,31 @@ import com.zssystem.mapper.Site5sAreaScheduleMapper;
 import com.zssystem.mapper.SysRoleMapper;
 import com.zssystem.mapper.SysUserMapper;
 import com.zssystem.mapper.SysUserRoleMapper;
+import com.zssystem.service.PhotoIngestService;
+import com.zssystem.service.PhotoStorageService;
 import com.zssystem.service.Site5sAreaService;
 import com.zssystem.util.BeanUtil;
-import com.zssystem.util.FileUtil;
 import com.zssystem.util.SecurityUtil;
 import com.zssystem.vo.*;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -50,6 +52,7 @@ public class Site5sAreaServiceImpl implements Site5sAreaService {
     private static final int SLOT_MORNING = 1;
     private static final int SLOT_EVENING = 2;
     private static final int TOLERANCE_MINUTES = 30;
+    private static final DateTimeFormatter HH_MM = DateTimeFormatter.ofPattern("HH:mm");
 
     @Autowired
     private Site5sAreaMapper areaMapper;
@@ -72,8 +75,11 @@ public class Site5sAreaServiceImpl implements Site5sAreaService {
     @Autowired
     private SysUserRoleMapper userRoleMapper;
 
-    @Value("${file.upload.site5s-area-photos}")
-    private String areaPhotosPath;
+    @Autowired
+    private PhotoIngestService photoIngestService;
+
+    @Autowired
+    private PhotoStorageService photoStorageService;
 
     @Override
     public IPage<Site5sAreaVO> getAreaList(Site5sAreaQueryDTO queryDTO) {
@@ -154,20 +160,7 @@ public class Site5sAreaServiceImpl implements Site5sAreaService {
 
     @Override
     public AreaDailyStatusVO getTasks(LocalDate photoDate) {
-        Long currentUserId = SecurityUtil.getCurrentUserId();
-        boolean isManager = SecurityUtil.hasRoleCode("INJECTION_MANAGER") || SecurityUtil.hasRole("注塑部经理");
-
-        List<Site5sArea> areas = areaMapper.selectList(
-                new LambdaQueryWrapper<Site5sArea>()
-                        .eq(Site5sArea::getStatus, 1)
-                        .orderByAsc(Site5sArea::getSortOrder)
-                        .orderByAsc(Site5sArea::getId));
-
-        if (!isManager && currentUserId != null) {
-            areas = areas.stream()
-                    .filter(a -> currentUserId.equals(a.getResponsibleUserId()) || currentUserId.equals(a.getResponsibleUserId2()))
-                    .collect(Collectors.toList());
-        }
+        List<Site5sArea> areas = listVisibleAreas();
 
         Set<Long> dayOffAreaIds = dayOffMapper.selectList(
                         new LambdaQueryWrapper<Site5sAreaDayOff>()
@@ -176,56 +169,27 @@ public class Site5sAreaServiceImpl implements Site5sAreaService {
                 .map(Site5sAreaDayOff::getAreaId)
                 .collect(Collectors.toSet());
 
-        List<AreaTaskVO> taskList = new ArrayList<>();
-        for (Site5sArea area : areas) {
-            LocalTime morningTime = area.getMorningPhotoTime() != null ? area.getMorningPhotoTime() : LocalTime.of(8, 0);
-            LocalTime eveningTime = area.getEveningPhotoTime() != null ? area.getEveningPhotoTime() : LocalTime.of(16, 0);
-
-            List<AreaTaskSlotVO> slots = new ArrayList<>();
-            int completedOnTime = 0;
-
-            for (int slotIndex : new int[]{SLOT_MORNING, SLOT_EVENING}) {
-                LocalTime scheduledTime = slotIndex == SLOT_MORNING ? morningTime : eveningTime;
-                AreaTaskSlotVO slot = new AreaTaskSlotVO();
-                slot.setSlotIndex(slotIndex);
-                slot.setScheduledTime(scheduledTime);
-                slot.setToleranceMinutes(TOLERANCE_MINUTES);
-                Site5sAreaPhoto photo = photoMapper.selectOne(
-                        new LambdaQueryWrapper<Site5sAreaPhoto>()
-                                .eq(Site5sAreaPhoto::getAreaId, area.getId())
-                                .eq(Site5sAreaPhoto::getPhotoDate, photoDate)
-                                .eq(Site5sAreaPhoto::getSlotIndex, slotIndex));
-                if (photo != null) {
-                    slot.setCompleted(true);
-                    slot.setOnTime(photo.getIsOnTime() != null && photo.getIsOnTime() == 1);
-                    slot.setPhotoId(photo.getId());
-                    slot.setUploaderName(photo.getUploaderName());
-                    slot.setUploadTimeStr(photo.getUploadTime() != null
-                            ? photo.getUploadTime().format(DateTimeFormatter.ofPattern("HH:mm")) : "");
-                    if (Boolean.TRUE.equals(slot.getOnTime())) completedOnTime++;
-                } else {
-                    slot.setCompleted(false);
-                    slot.setOnTime(null);
+        // 当日全部区域的拍照记录一次查出，按 区域ID -> 时段 分组
+        Map<Long, Site5sAreaPhoto[]> photosByArea = new HashMap<>();
+        if (!areas.isEmpty()) {
+            List<Long> areaIds = areas.stream().map(Site5sArea::getId).collect(Collectors.toList());
+            List<Site5sAreaPhoto> photos = photoMapper.selectList(
+                    new LambdaQueryWrapper<Site5sAreaPhoto>()
+                            .in(Site5sAreaPhoto::getAreaId, areaIds)
+                            .eq(Site5sAreaPhoto::getPhotoDate, photoDate));
+            for (Site5sAreaPhoto photo : photos) {
+                Integer slotIndex = photo.getSlotIndex();
+                if (slotIndex != null && (slotIndex == SLOT_MORNING || slotIndex == SLOT_EVENING)) {
+                    photosByArea.computeIfAbsent(photo.getAreaId(), k -> new Site5sAreaPhoto[2])[slotIndex - 1] = photo;
                 }
-                slots.add(slot);
             }
+        }
+        Map<Long, String> userNames = getUserNames(areas);
 
-            boolean dayOff = dayOffAreaIds.contains(area.getId());
-            AreaTaskVO task = new AreaTaskVO();
-            task.setAreaId(area.getId());
-            task.setAreaCode(area.getAreaCode());
-            task.setAreaName(area.getAreaName());
-            task.setCheckItem(area.getCheckItem());
-            task.setResponsibleUserId(area.getResponsibleUserId());
-            task.setResponsibleUserName(getUserName(area.getResponsibleUserId()));
-            task.setResponsibleUserId2(area.getResponsibleUserId2());
-            task.setResponsibleUserName2(getUserName(area.getResponsibleUserId2()));
-            task.setTotalSlots(2);
-            task.setCompletedSlots((int) slots.stream().filter(AreaTaskSlotVO::getCompleted).count());
-            task.setDayOff(dayOff);
-            task.setStatus(dayOff ? 2 : (completedOnTime >= 2 ? 1 : 0));
-            task.setSlots(slots);
-            taskList.add(task);
+        List<AreaTaskVO> taskList = new ArrayList<>();
+        for (Site5sArea area : areas) {
+            Site5sAreaPhoto[] slotPhotos = photosByArea.getOrDefault(area.getId(), new Site5sAreaPhoto[2]);
+            taskList.add(buildTask(area, slotPhotos[0], slotPhotos[1], dayOffAreaIds.contains(area.getId()), userNames));
         }
 
         AreaDailyStatusVO vo = new AreaDailyStatusVO();
@@ -234,15 +198,111 @@ public class Site5sAreaServiceImpl implements Site5sAreaService {
         return vo;
     }
 
+    /**
+     * 日期范围内的拍照任务：区域、负责人只查一次，拍照记录和放假记录各用一次范围查询，
+     * 再在内存中按 区域 × 日期 × 时段 组装。每天的结果与 {@link #getTasks(LocalDate)} 一致。
+     */
     @Override
     public List<AreaDailyStatusVO> getTasksRange(LocalDate startDate, LocalDate endDate) {
         List<AreaDailyStatusVO> result = new ArrayList<>();
-        for (LocalDate d = startDate; !d.isAfter(endDate); d = d.plusDays(1)) {
-            result.add(getTasks(d));
+        if (endDate.isBefore(startDate)) {
+            return result;
+        }
+        long span = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        if (span > TASKS_RANGE_MAX_DAYS) {
+            throw new RuntimeException("查询范围不能超过" + TASKS_RANGE_MAX_DAYS + "天");
+        }
+        List<Site5sArea> areas = listVisibleAreas();
+        int areaCount = areas.size();
+        int dayCount = (int) span;
+
+        Map<Long, Integer> areaIndex = new HashMap<>();
+        for (int a = 0; a < areaCount; a++) {
+            areaIndex.put(areas.get(a).getId(), a);
+        }
+
+        // 拍照矩阵：下标 (区域 * 天数 + 日) * 2 + (时段 - 1)，值为 photos 中的下标，-1 表示未拍
+        int[] photoMatrix = new int[Math.multiplyExact(areaCount * 2, dayCount)];
+        Arrays.fill(photoMatrix, -1);
+        List<Site5sAreaPhoto> photos = List.of();
+        if (areaCount > 0) {
+            photos = photoMapper.selectList(
+                    new LambdaQueryWrapper<Site5sAreaPhoto>()
+                            .select(Site5sAreaPhoto::getId, Site5sAreaPhoto::getAreaId, Site5sAreaPhoto::getPhotoDate,
+                                    Site5sAreaPhoto::getSlotIndex, Site5sAreaPhoto::getUploaderName,
+                                    Site5sAreaPhoto::getUploadTime, Site5sAreaPhoto::getIsOnTime)
+                            .in(Site5sAreaPhoto::getAreaId, areaIndex.keySet())
+                            .ge(Site5sAreaPhoto::getPhotoDate, startDate)
+                            .le(Site5sAreaPhoto::getPhotoDate, endDate));
+            for (int i = 0; i < photos.size(); i++) {
+                Site5sAreaPhoto photo = photos.get(i);
+                Integer a = areaIndex.get(photo.getAreaId());
+                Integer slotIndex = photo.getSlotIndex();
+                if (a == null || photo.getPhotoDate() == null || slotIndex == null
+                        || (slotIndex != SLOT_MORNING && slotIndex != SLOT_EVENING)) {
+                    continue;
+                }
+                int d = (int) ChronoUnit.DAYS.between(startDate, photo.getPhotoDate());
+                photoMatrix[(a * dayCount + d) * 2 + slotIndex - 1] = i;
+            }
+        }
+
+        // 放假位图：下标 区域 * 天数 + 日
+        BitSet dayOff = new BitSet(areaCount * dayCount);
+        if (areaCount > 0) {
+            List<Site5sAreaDayOff> dayOffs = dayOffMapper.selectList(
+                    new LambdaQueryWrapper<Site5sAreaDayOff>()
+                            .ge(Site5sAreaDayOff::getOffDate, startDate)
+                            .le(Site5sAreaDayOff::getOffDate, endDate));
+            for (Site5sAreaDayOff off : dayOffs) {
+                Integer a = areaIndex.get(off.getAreaId());
+                if (a != null && off.getOffDate() != null) {
+                    dayOff.set(a * dayCount + (int) ChronoUnit.DAYS.between(startDate, off.getOffDate()));
+                }
+            }
+        }
+
+        Map<Long, String> userNames = getUserNames(areas);
+        for (int d = 0; d < dayCount; d++) {
+            List<AreaTaskVO> taskList = new ArrayList<>(areaCount);
+            for (int a = 0; a < areaCount; a++) {
+                int base = (a * dayCount + d) * 2;
+                int morning = photoMatrix[base];
+                int evening = photoMatrix[base + 1];
+                taskList.add(buildTask(areas.get(a),
+                        morning >= 0 ? photos.get(morning) : null,
+                        evening >= 0 ? photos.get(evening) : null,
+                        dayOff.get(a * dayCount + d), userNames));
+            }
+            AreaDailyStatusVO vo = new AreaDailyStatusVO();
+            vo.setStatusDate(startDate.plusDays(d));
+            vo.setAreas(taskList);
+            result.add(vo);
         }
         return result;
     }
 
+    /**
+     * 启用的区域（按排序号）；非注塑部经理只看自己负责的区域
+     */
+    private List<Site5sArea> listVisibleAreas() {
+        Long currentUserId = SecurityUtil.getCurrentUserId();
+        boolean isManager = SecurityUtil.hasRoleCode("INJECTION_MANAGER") || SecurityUtil.hasRole("注塑部经理");
+
+        List<Site5sArea> areas = areaMapper.selectList(
+                new LambdaQueryWrapper<Site5sArea>()
+                        .eq(Site5sArea::getStatus, 1)
+                        .orderByAsc(Site5sArea::getSortOrder)
+                        .orderByAsc(Site5sArea::getId));
+
+        if (!isManager && currentUserId != null) {
+            areas = areas.stream()
+                    .filter(a -> currentUserId.equals(a.getResponsibleUserId()) || currentUserId.equals(a.getResponsibleUserId2()))
+                    .collect(Collectors.toList());
+        }
+        return areas;
+    }
+
     @Override
     @Transactional
     public Long uploadPhoto(Long areaId, Integer slotIndex, LocalDate photoDate, MultipartFile file,
@@ -283,16 +343,9 @@ public class Site5sAreaServiceImpl implements Site5sAreaService {
             throw new RuntimeException("该区域该时段已上传过照片");
         }
 
-        String yearMonth = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy/MM"));
-        String saveDir = areaPhotosPath + "/" + yearMonth;
-        FileUtil.createDirectoryIfNotExists(saveDir);
-        String ext = file.getOriginalFilename() != null && file.getOriginalFilename().contains(".")
-                ? file.getOriginalFilename().substring(file.getOriginalFilename().lastIndexOf("."))
-                : ".jpg";
-        String fileName = "AP_" + System.currentTimeMillis() + ext;
-        String fullPath = saveDir + "/" + fileName;
+        String fullPath;
         try {
-            file.transferTo(new File(fullPath));
+            fullPath = photoStorageService.store(file, PhotoStorageService.Category.SITE5S_AREA);
         } catch (Exception e) {
             throw new RuntimeException("照片保存失败: " + e.getMessage());
         }
@@ -347,20 +400,12 @@ public class Site5sAreaServiceImpl implements Site5sAreaService {
     }
 
     @Override
-    public byte[] getPhotoBytes(Long photoId) {
+    public Path getPhotoFile(Long photoId, boolean thumbnail) {
         Site5sAreaPhoto photo = photoMapper.selectById(photoId);
         if (photo == null) {
             throw new RuntimeException("拍照记录不存在");
         }
-        String path = photo.getPhotoPath();
-        if (path == null || path.isBlank()) return null;
-        Path filePath = Paths.get(path);
-        if (!Files.exists(filePath)) return null;
-        try {
-            return Files.readAllBytes(filePath);
-        } catch (Exception e) {
-            throw new RuntimeException("读取照片失败");
-        }
+        return photoIngestService.resolve(photo.getPhotoPath(), thumbnail);
     }
 
     @Override
@@ -380,15 +425,9 @@ public class Site5sAreaServiceImpl implements Site5sAreaService {
         if (!isManager && !isResponsible) {
             throw new RuntimeException("您不是该区域负责人，无法删除拍照记录");
         }
-        String path = photo.getPhotoPath();
-        if (path != null && !path.isBlank()) {
-            try {
-                Files.deleteIfExists(Paths.get(path));
-            } catch (Exception e) {
-                throw new RuntimeException("删除照片文件失败");
-            }
-        }
         photoMapper.deleteByIdPhysical(photoId);
+        // 提交后照片不再被引用时删除文件（相同内容可能被其他记录共用）
+        photoStorageService.release(photo.getPhotoPath());
     }
 
     @Override
@@ -409,14 +448,8 @@ public class Site5sAreaServiceImpl implements Site5sAreaService {
                         .eq(Site5sAreaPhoto::getAreaId, areaId)
                         .eq(Site5sAreaPhoto::getPhotoDate, photoDate));
         for (Site5sAreaPhoto photo : list) {
-            String path = photo.getPhotoPath();
-            if (path != null && !path.isBlank()) {
-                try {
-                    Files.deleteIfExists(Paths.get(path));
-                } catch (Exception ignored) {
-                }
-            }
             photoMapper.deleteByIdPhysical(photo.getId());
+            photoStorageService.release(photo.getPhotoPath());
         }
     }
 
@@ -487,6 +520,76 @@ public class Site5sAreaServiceImpl implements Site5sAreaService {
         return String.format("AREA%03d", count + 1);
     }
 
+    /**
+     * 组装单个区域当日的任务（早、晚两个时段）
+     * @param morningPhoto 早班拍照记录，未拍为 null
+     * @param eveningPhoto 晚班拍照记录，未拍为 null
+     */
+    private AreaTaskVO buildTask(Site5sArea area, Site5sAreaPhoto morningPhoto, Site5sAreaPhoto eveningPhoto,
+                                 boolean dayOff, Map<Long, String> userNames) {
+        LocalTime morningTime = area.getMorningPhotoTime() != null ? area.getMorningPhotoTime() : LocalTime.of(8, 0);
+        LocalTime eveningTime = area.getEveningPhotoTime() != null ? area.getEveningPhotoTime() : LocalTime.of(16, 0);
+
+        List<AreaTaskSlotVO> slots = new ArrayList<>();
+        int completedOnTime = 0;
+
+        for (int slotIndex : new int[]{SLOT_MORNING, SLOT_EVENING}) {
+            LocalTime scheduledTime = slotIndex == SLOT_MORNING ? morningTime : eveningTime;
+            AreaTaskSlotVO slot = new AreaTaskSlotVO();
+            slot.setSlotIndex(slotIndex);
+            slot.setScheduledTime(scheduledTime);
+            slot.setToleranceMinutes(TOLERANCE_MINUTES);
+            Site5sAreaPhoto photo = slotIndex == SLOT_MORNING ? morningPhoto : eveningPhoto;
+            if (photo != null) {
+                slot.setCompleted(true);
+                slot.setOnTime(photo.getIsOnTime() != null && photo.getIsOnTime() == 1);
+                slot.setPhotoId(photo.getId());
+                slot.setUploaderName(photo.getUploaderName());
+                slot.setUploadTimeStr(photo.getUploadTime() != null
+                        ? photo.getUploadTime().format(HH_MM) : "");
+                if (Boolean.TRUE.equals(slot.getOnTime())) completedOnTime++;
+            } else {
+                slot.setCompleted(false);
+                slot.setOnTime(null);
+            }
+            slots.add(slot);
+        }
+
+        AreaTaskVO task = new AreaTaskVO();
+        task.setAreaId(area.getId());
+        task.setAreaCode(area.getAreaCode());
+        task.setAreaName(area.getAreaName());
+        task.setCheckItem(area.getCheckItem());
+        task.setResponsibleUserId(area.getResponsibleUserId());
+        task.setResponsibleUserName(userNames.get(area.getResponsibleUserId()));
+        task.setResponsibleUserId2(area.getResponsibleUserId2());
+        task.setResponsibleUserName2(userNames.get(area.getResponsibleUserId2()));
+        task.setTotalSlots(2);
+        task.setCompletedSlots((int) slots.stream().filter(AreaTaskSlotVO::getCompleted).count());
+        task.setDayOff(dayOff);
+        task.setStatus(dayOff ? 2 : (completedOnTime >= 2 ? 1 : 0));
+        task.setSlots(slots);
+        return task;
+    }
+
+    /**
+     * 批量查询区域负责人姓名（一次查询），用户ID -> 姓名
+     */
+    private Map<Long, String> getUserNames(List<Site5sArea> areas) {
+        Set<Long> userIds = new HashSet<>();
+        for (Site5sArea area : areas) {
+            if (area.getResponsibleUserId() != null) userIds.add(area.getResponsibleUserId());
+            if (area.getResponsibleUserId2() != null) userIds.add(area.getResponsibleUserId2());
+        }
+        Map<Long, String> names = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            for (SysUser u : userMapper.selectBatchIds(userIds)) {
+                names.put(u.getId(), u.getName());
+            }
+        }
+        return names;
+    }
+
     private String getUserName(Long userId) {
         if (userId == null) return null;
         SysUser u = userMapper.selectById(userId);
@@ -0,0 +1,29 @@
+package com.zssystem.task;
+
+import com.zssystem.service.RetentionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 文件保留期清理任务：交接班拍照（默认15天）、5S 区域拍照，超过保留期后删除文件
+ */
+@Component
+public class FileRetentionTask {
+
+    private static final Logger log = LoggerFactory.getLogger(FileRetentionTask.class);
+
+    @Autowired
+    private RetentionService retentionService;
+
+    /** 每天凌晨2点执行 */
+    @Scheduled(cron = "0 0 2 * * ?")
+    public void cleanupExpiredFiles() {
+        Map<String, Map<String, Object>> result = retentionService.runAll();
+        result.forEach((category, stats) -> log.info("文件保留期清理 {}：{}", category, stats));
+    }
+}
@@ -0,0 +1,33 @@
+package com.zssystem.task;
+
+import com.zssystem.service.PhotoStorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 现场照片垃圾回收任务：删除没有任何记录引用的照片（记录已删除、照片已过期清除、上传后未提交等）
+ */
+@Component
+public class PhotoGarbageCollectTask {
+
+    private static final Logger log = LoggerFactory.getLogger(PhotoGarbageCollectTask.class);
+
+    @Autowired
+    private PhotoStorageService photoStorageService;
+
+    /** 每天凌晨3点执行（在交接班照片清理之后） */
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void collectGarbage() {
+        try {
+            Map<String, Object> stats = photoStorageService.collectGarbage();
+            log.info("照片垃圾回收完成：{}", stats);
+        } catch (Exception e) {
+            log.error("照片垃圾回收失败", e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.zssystem.task;
+
+import com.zssystem.service.ProductionRollupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 生产日汇总增量任务：按更新时间高水位读取变更的生产记录，重算涉及日期的汇总。
+ * 新增/修改/删除生产记录时汇总已实时更新，本任务用于兜底校正（如直接改库、实时更新失败）
+ */
+@Component
+public class ProductionRollupTask {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductionRollupTask.class);
+
+    @Autowired
+    private ProductionRollupService rollupService;
+
+    /** 默认每5分钟执行一次 */
+    @Scheduled(fixedDelayString = "${production.rollup.interval-millis:300000}", initialDelay = 60000)
+    public void refreshRollup() {
+        try {
+            int processed = rollupService.refreshChanged();
+            if (processed > 0) {
+                log.info("生产日汇总：处理{}条变更记录", processed);
+            }
+        } catch (Exception e) {
+            log.error("生产日汇总增量任务失败", e);
+        }
+    }
+}
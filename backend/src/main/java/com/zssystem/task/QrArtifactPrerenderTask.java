@@ -0,0 +1,73 @@
+package com.zssystem.task;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zssystem.entity.Equipment;
+import com.zssystem.mapper.EquipmentMapper;
+import com.zssystem.service.EquipmentQrService;
+import com.zssystem.service.impl.QrArtifactCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 设备扫码产物预渲染任务：
+ * 数据变更后重新渲染被失效设备的产物；定期补齐所有设备当月缺失的产物（含启动后首次、跨月）
+ */
+@Component
+public class QrArtifactPrerenderTask {
+
+    private static final Logger log = LoggerFactory.getLogger(QrArtifactPrerenderTask.class);
+
+    @Autowired
+    private EquipmentQrService equipmentQrService;
+
+    @Autowired
+    private QrArtifactCache qrArtifactCache;
+
+    @Autowired
+    private EquipmentMapper equipmentMapper;
+
+    /** 默认每30秒处理一次变更 */
+    @Scheduled(fixedDelayString = "${qr.artifact.refresh-interval-millis:30000}", initialDelay = 30000)
+    public void refreshChanged() {
+        Set<Long> equipmentIds = qrArtifactCache.drainDirty();
+        if (equipmentIds.isEmpty()) {
+            return;
+        }
+        List<Long> existing = equipmentMapper.selectBatchIds(equipmentIds).stream()
+            .map(Equipment::getId)
+            .collect(Collectors.toList());
+        int rendered = prerender(existing);
+        log.info("扫码产物刷新：{}台设备", rendered);
+    }
+
+    /** 默认每小时补齐一次 */
+    @Scheduled(fixedDelayString = "${qr.artifact.sweep-interval-millis:3600000}", initialDelay = 60000)
+    public void prerenderAll() {
+        List<Long> equipmentIds = equipmentMapper.selectList(
+            new LambdaQueryWrapper<Equipment>().select(Equipment::getId)
+        ).stream().map(Equipment::getId).collect(Collectors.toList());
+        long start = System.currentTimeMillis();
+        int rendered = prerender(equipmentIds);
+        log.info("扫码产物预渲染：{}台设备，耗时{}ms", rendered, System.currentTimeMillis() - start);
+    }
+
+    private int prerender(List<Long> equipmentIds) {
+        int rendered = 0;
+        for (Long equipmentId : equipmentIds) {
+            try {
+                equipmentQrService.prerenderArtifacts(equipmentId);
+                rendered++;
+            } catch (Exception e) {
+                log.warn("扫码产物预渲染失败，设备ID: {}，{}", equipmentId, e.getMessage());
+            }
+        }
+        return rendered;
+    }
+}
@@ -0,0 +1,187 @@
+package com.zssystem.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 文件下载输出：流式写出，不把整个文件读入内存
+ * 支持强 ETag（If-None-Match 返回 304）、单段 Range（206，配合 If-Range）、HEAD 请求；
+ * 磁盘文件在 Tomcat 支持 sendfile 时交给容器零拷贝发送，否则用 FileChannel.transferTo 写出。
+ */
+public class DownloadUtil {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /** 小于此大小的文件直接写出，不值得走 sendfile */
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    /**
+     * 输出磁盘文件，ETag 由文件大小和修改时间生成
+     * @param fileName 下载文件名，为 null 时不加 Content-Disposition
+     * @param inline true 为浏览器内显示，false 为附件下载
+     */
+    public static void writeFile(Path file, String contentType, String fileName, boolean inline,
+                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long length = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        long[] range = prepare(length, etag, lastModified, contentType, fileName, inline, request, response);
+        if (range == null) {
+            return;
+        }
+        long start = range[0];
+        long count = range[1] - range[0] + 1;
+        if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, target);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * 输出内存中的内容（如已缓存的合成文件），不再复制
+     * @param etag 强 ETag（含引号）
+     */
+    public static void writeBytes(byte[] body, String etag, long lastModified, String contentType, String fileName,
+                                  boolean inline, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long[] range = prepare(body.length, etag, lastModified, contentType, fileName, inline, request, response);
+        if (range == null) {
+            return;
+        }
+        OutputStream out = response.getOutputStream();
+        out.write(body, (int) range[0], (int) (range[1] - range[0] + 1));
+        out.flush();
+    }
+
+    /**
+     * 写响应头并确定输出范围
+     * @return 要输出的 [起始, 结束]（含），已完整响应（304、416、HEAD）时返回 null
+     */
+    private static long[] prepare(long length, String etag, long lastModified, String contentType, String fileName,
+                                  boolean inline, HttpServletRequest request, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (lastModified > 0) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return null;
+        }
+
+        response.setContentType(contentType);
+        if (fileName != null) {
+            String encoded = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replaceAll("\\+", "%20");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    (inline ? "inline" : "attachment") + "; filename*=UTF-8''" + encoded);
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // If-Range 与当前 ETag 不一致时忽略 Range，返回完整内容
+        if (rangeHeader != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] parsed = parseRange(rangeHeader, length);
+            if (parsed == null) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return null;
+            }
+            if (parsed.length == 2) {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        response.setContentLengthLong(end - start + 1);
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || length == 0) {
+            return null;
+        }
+        return new long[]{start, end};
+    }
+
+    /**
+     * 解析单段 Range：bytes=a-b、bytes=a-、bytes=-n
+     * @return [起始, 结束]；多段或格式不支持时返回空数组（按完整内容响应）；范围无法满足时返回 null
+     */
+    private static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+            if (start >= length || start > end) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
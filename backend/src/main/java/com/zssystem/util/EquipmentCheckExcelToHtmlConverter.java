@@ -50,7 +50,7 @@ public class EquipmentCheckExcelToHtmlConverter {
         """;
 
     /** 点检表列数：分类(0) + 项目(1-12合并) + 30日(13-42) = 43 */
-    private static final int MAX_COLS = 43;
+    public static final int MAX_COLS = 43;
 
     public static String convertToHtml(InputStream inputStream) throws IOException {
         try (Workbook workbook = WorkbookFactory.create(inputStream)) {
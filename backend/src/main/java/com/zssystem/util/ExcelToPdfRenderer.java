@@ -0,0 +1,360 @@
+package com.zssystem.util;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.util.Units;
+import org.apache.poi.xssf.usermodel.XSSFClientAnchor;
+import org.apache.poi.xssf.usermodel.XSSFDrawing;
+import org.apache.poi.xssf.usermodel.XSSFPicture;
+import org.apache.poi.xssf.usermodel.XSSFPictureData;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Excel 直接绘制为 PDF
+ * 按工作表的列宽、行高、合并区域和图片锚点计算坐标，通过 PDFBox 直接输出表格线、文字和图片，
+ * 不经过 HTML；整张表按比例缩放到一页 A4 横向。图片按原始数据嵌入（JPEG 原样写入），不做 base64 转换。
+ */
+public class ExcelToPdfRenderer {
+
+    /** 中文字体在 classpath 中的位置 */
+    public static final String FONT_RESOURCE = "/fonts/NotoSansSC-Regular.ttf";
+
+    /** A4 横向 */
+    private static final PDRectangle PAGE_SIZE = new PDRectangle(PDRectangle.A4.getHeight(), PDRectangle.A4.getWidth());
+
+    /** 页边距 1.5mm */
+    private static final float PAGE_MARGIN = 1.5f * 72 / 25.4f;
+
+    /** 单元格内文字左右留白（缩放前，pt） */
+    private static final float CELL_PADDING = 2f;
+
+    private static final float LINE_SPACING = 1.15f;
+
+    private static final float MIN_FONT_SIZE = 2f;
+
+    /**
+     * 将工作簿第一个工作表绘制为 PDF 的一页，追加到 document
+     * @param font 文字字体（需包含中文字形）
+     * @param maxCols 绘制的列数（从 A 列起）
+     */
+    public static void drawFirstSheet(Workbook workbook, int maxCols, PDDocument document, PDFont font) throws IOException {
+        Sheet sheet = workbook.getSheetAt(0);
+        int rowCount = sheet.getLastRowNum() + 1;
+
+        // 列、行的起始坐标（pt，未缩放）
+        float[] colX = new float[maxCols + 1];
+        for (int c = 0; c < maxCols; c++) {
+            colX[c + 1] = colX[c] + sheet.getColumnWidthInPixels(c) * 72f / Units.PIXEL_DPI;
+        }
+        float[] rowY = new float[rowCount + 1];
+        for (int r = 0; r < rowCount; r++) {
+            Row row = sheet.getRow(r);
+            rowY[r + 1] = rowY[r] + (row != null ? row.getHeightInPoints() : sheet.getDefaultRowHeightInPoints());
+        }
+        float tableWidth = colX[maxCols];
+        float tableHeight = rowY[rowCount];
+        if (tableWidth <= 0 || tableHeight <= 0) {
+            document.addPage(new PDPage(PAGE_SIZE));
+            return;
+        }
+
+        float availableWidth = PAGE_SIZE.getWidth() - 2 * PAGE_MARGIN;
+        float availableHeight = PAGE_SIZE.getHeight() - 2 * PAGE_MARGIN;
+        float scale = Math.min(availableWidth / tableWidth, availableHeight / tableHeight);
+        float originX = (PAGE_SIZE.getWidth() - tableWidth * scale) / 2;
+        float originTop = PAGE_SIZE.getHeight() - (PAGE_SIZE.getHeight() - tableHeight * scale) / 2;
+
+        PDPage page = new PDPage(PAGE_SIZE);
+        document.addPage(page);
+        Layout layout = new Layout(colX, rowY, scale, originX, originTop);
+        Map<Character, Boolean> glyphs = new HashMap<>();
+
+        try (PDPageContentStream cs = new PDPageContentStream(document, page)) {
+            CellRangeAddress[][] mergeIndex = indexMergedRegions(sheet, rowCount, maxCols);
+            cs.setLineWidth(Math.max(0.2f, 0.75f * scale));
+            for (int r = 0; r < rowCount; r++) {
+                Row row = sheet.getRow(r);
+                for (int c = 0; c < maxCols; c++) {
+                    CellRangeAddress merge = mergeIndex[r][c];
+                    if (merge != null && (merge.getFirstRow() != r || merge.getFirstColumn() != c)) {
+                        continue; // 合并区域只在左上角单元格绘制一次
+                    }
+                    int lastRow = merge != null ? Math.min(merge.getLastRow(), rowCount - 1) : r;
+                    int lastCol = merge != null ? Math.min(merge.getLastColumn(), maxCols - 1) : c;
+                    float x = layout.x(c);
+                    float width = layout.x(lastCol + 1) - x;
+                    float top = layout.y(r);
+                    float height = top - layout.y(lastRow + 1);
+
+                    cs.addRect(x, top - height, width, height);
+                    cs.stroke();
+
+                    Cell cell = row != null ? row.getCell(c) : null;
+                    String value = getCellValueAsString(cell);
+                    if (!value.isEmpty()) {
+                        drawCellText(cs, font, glyphs, cell.getCellStyle(), workbook, value, x, top, width, height, scale);
+                    }
+                }
+            }
+            // 图片最后绘制，受控章等浮于文字上方
+            if (sheet instanceof XSSFSheet xssfSheet) {
+                drawPictures(cs, document, xssfSheet, layout, maxCols, rowCount);
+            }
+        }
+    }
+
+    private static CellRangeAddress[][] indexMergedRegions(Sheet sheet, int rowCount, int maxCols) {
+        CellRangeAddress[][] index = new CellRangeAddress[rowCount][maxCols];
+        for (int i = 0; i < sheet.getNumMergedRegions(); i++) {
+            CellRangeAddress region = sheet.getMergedRegion(i);
+            for (int r = region.getFirstRow(); r <= Math.min(region.getLastRow(), rowCount - 1); r++) {
+                for (int c = region.getFirstColumn(); c <= Math.min(region.getLastColumn(), maxCols - 1); c++) {
+                    index[r][c] = region;
+                }
+            }
+        }
+        return index;
+    }
+
+    private static void drawCellText(PDPageContentStream cs, PDFont font, Map<Character, Boolean> glyphs,
+                                     CellStyle style, Workbook workbook, String value,
+                                     float x, float top, float width, float height, float scale) throws IOException {
+        String trimmed = value.trim();
+        if ("√".equals(trimmed) || "×".equals(trimmed)) {
+            drawMark("√".equals(trimmed), cs, x, top, width, height, scale);
+            return;
+        }
+        Font cellFont = workbook.getFontAt(style.getFontIndexAsInt());
+        float fontSize = Math.max(MIN_FONT_SIZE, cellFont.getFontHeightInPoints() * scale);
+        float padding = CELL_PADDING * scale;
+        List<String> lines = wrapLines(font, glyphs, value, fontSize, width - 2 * padding);
+        float lineHeight = fontSize * LINE_SPACING;
+        float textHeight = lines.size() * lineHeight;
+
+        float firstBaseline;
+        VerticalAlignment va = style.getVerticalAlignment();
+        if (va == VerticalAlignment.TOP) {
+            firstBaseline = top - fontSize;
+        } else if (va == VerticalAlignment.BOTTOM) {
+            firstBaseline = top - height + (lines.size() - 1) * lineHeight + fontSize * 0.25f;
+        } else {
+            firstBaseline = top - (height - textHeight) / 2 - fontSize;
+        }
+
+        // 超出单元格的文字裁掉，与 Excel 显示一致
+        cs.saveGraphicsState();
+        cs.addRect(x, top - height, width, height);
+        cs.clip();
+        cs.setFont(font, fontSize);
+        HorizontalAlignment ha = style.getAlignment();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            float lineWidth = textWidth(font, line, fontSize);
+            float lineX;
+            if (ha == HorizontalAlignment.CENTER || ha == HorizontalAlignment.CENTER_SELECTION) {
+                lineX = x + (width - lineWidth) / 2;
+            } else if (ha == HorizontalAlignment.RIGHT) {
+                lineX = x + width - padding - lineWidth;
+            } else {
+                lineX = x + padding;
+            }
+            cs.beginText();
+            cs.newLineAtOffset(lineX, firstBaseline - i * lineHeight);
+            cs.showText(line);
+            cs.endText();
+        }
+        cs.restoreGraphicsState();
+    }
+
+    /**
+     * 对号、叉号按线条绘制，与 Excel 中的符号粗细一致，不依赖字体是否包含该字形
+     */
+    private static void drawMark(boolean check, PDPageContentStream cs,
+                                 float x, float top, float width, float height, float scale) throws IOException {
+        float size = Math.min(Math.min(width, height) * 0.6f, 9f * scale);
+        float left = x + (width - size) / 2;
+        float bottom = top - height + (height - size) / 2;
+        cs.saveGraphicsState();
+        cs.setLineWidth(Math.max(0.3f, size / 10));
+        if (check) {
+            cs.moveTo(left + size * 0.15f, bottom + size * 0.5f);
+            cs.lineTo(left + size * 0.4f, bottom + size * 0.2f);
+            cs.lineTo(left + size * 0.85f, bottom + size * 0.85f);
+        } else {
+            cs.moveTo(left + size * 0.15f, bottom + size * 0.15f);
+            cs.lineTo(left + size * 0.85f, bottom + size * 0.85f);
+            cs.moveTo(left + size * 0.85f, bottom + size * 0.15f);
+            cs.lineTo(left + size * 0.15f, bottom + size * 0.85f);
+        }
+        cs.stroke();
+        cs.restoreGraphicsState();
+    }
+
+    /**
+     * 按单元格宽度逐字折行（中文无空格分词），保留原有换行
+     */
+    private static List<String> wrapLines(PDFont font, Map<Character, Boolean> glyphs, String value,
+                                          float fontSize, float maxWidth) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String paragraph : value.replace("\r", "").split("\n", -1)) {
+            String text = printable(font, glyphs, paragraph);
+            StringBuilder line = new StringBuilder();
+            float lineWidth = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char ch = text.charAt(i);
+                float charWidth = font.getStringWidth(String.valueOf(ch)) / 1000 * fontSize;
+                if (lineWidth + charWidth > maxWidth && line.length() > 0) {
+                    lines.add(line.toString());
+                    line.setLength(0);
+                    lineWidth = 0;
+                }
+                line.append(ch);
+                lineWidth += charWidth;
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /** 字体中没有的字符替换为问号，避免整页渲染失败 */
+    private static String printable(PDFont font, Map<Character, Boolean> glyphs, String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch == '\t') {
+                ch = ' ';
+            }
+            boolean supported = glyphs.computeIfAbsent(ch, k -> {
+                try {
+                    font.encode(String.valueOf(k));
+                    return true;
+                } catch (IllegalArgumentException | IOException e) {
+                    return false;
+                }
+            });
+            sb.append(supported ? ch : '?');
+        }
+        return sb.toString();
+    }
+
+    private static float textWidth(PDFont font, String text, float fontSize) throws IOException {
+        return font.getStringWidth(text) / 1000 * fontSize;
+    }
+
+    private static void drawPictures(PDPageContentStream cs, PDDocument document, XSSFSheet sheet,
+                                     Layout layout, int maxCols, int rowCount) throws IOException {
+        XSSFDrawing drawing = sheet.getDrawingPatriarch();
+        if (drawing == null) {
+            return;
+        }
+        // 同一图片数据只嵌入一次
+        Map<String, PDImageXObject> images = new HashMap<>();
+        for (org.apache.poi.ss.usermodel.Shape shape : drawing.getShapes()) {
+            if (!(shape instanceof XSSFPicture picture) || !(picture.getAnchor() instanceof XSSFClientAnchor anchor)) {
+                continue;
+            }
+            if (anchor.getCol1() >= maxCols || anchor.getRow1() >= rowCount) {
+                continue;
+            }
+            XSSFPictureData data = picture.getPictureData();
+            String key = data.getPackagePart().getPartName().getName();
+            PDImageXObject image = images.get(key);
+            if (image == null) {
+                image = PDImageXObject.createFromByteArray(document, data.getData(), key);
+                images.put(key, image);
+            }
+
+            float left = layout.x(Math.min(anchor.getCol1(), maxCols)) + emuToPt(anchor.getDx1()) * layout.scale;
+            float right = layout.x(Math.min(anchor.getCol2(), maxCols)) + emuToPt(anchor.getDx2()) * layout.scale;
+            float top = layout.y(Math.min(anchor.getRow1(), rowCount)) - emuToPt(anchor.getDy1()) * layout.scale;
+            float bottom = layout.y(Math.min(anchor.getRow2(), rowCount)) - emuToPt(anchor.getDy2()) * layout.scale;
+            float boxWidth = right - left;
+            float boxHeight = top - bottom;
+            if (boxWidth <= 0 || boxHeight <= 0) {
+                continue;
+            }
+            // 保持图片比例，居中放入锚点区域
+            float ratio = Math.min(boxWidth / image.getWidth(), boxHeight / image.getHeight());
+            float drawWidth = image.getWidth() * ratio;
+            float drawHeight = image.getHeight() * ratio;
+            cs.drawImage(image, left + (boxWidth - drawWidth) / 2, bottom + (boxHeight - drawHeight) / 2,
+                    drawWidth, drawHeight);
+        }
+    }
+
+    private static float emuToPt(int emu) {
+        return (float) emu / Units.EMU_PER_POINT;
+    }
+
+    private static String getCellValueAsString(Cell cell) {
+        if (cell == null) return "";
+        return switch (cell.getCellType()) {
+            case STRING -> cell.getStringCellValue();
+            case NUMERIC -> {
+                if (DateUtil.isCellDateFormatted(cell)) {
+                    try {
+                        yield cell.getLocalDateTimeCellValue().toString();
+                    } catch (Exception e) {
+                        yield String.valueOf(cell.getNumericCellValue());
+                    }
+                }
+                double n = cell.getNumericCellValue();
+                yield n == (long) n ? String.valueOf((long) n) : String.valueOf(n);
+            }
+            case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
+            case FORMULA -> {
+                try {
+                    yield String.valueOf(cell.getNumericCellValue());
+                } catch (Exception e) {
+                    try {
+                        yield cell.getStringCellValue();
+                    } catch (Exception e2) {
+                        yield "";
+                    }
+                }
+            }
+            default -> "";
+        };
+    }
+
+    /**
+     * 表格坐标到页面坐标的换算（PDF 坐标原点在左下角）
+     */
+    private static final class Layout {
+        private final float[] colX;
+        private final float[] rowY;
+        private final float scale;
+        private final float originX;
+        private final float originTop;
+
+        private Layout(float[] colX, float[] rowY, float scale, float originX, float originTop) {
+            this.colX = colX;
+            this.rowY = rowY;
+            this.scale = scale;
+            this.originX = originX;
+            this.originTop = originTop;
+        }
+
+        /** 第 col 列左边线的横坐标 */
+        float x(int col) {
+            return originX + colX[col] * scale;
+        }
+
+        /** 第 row 行上边线的纵坐标 */
+        float y(int row) {
+            return originTop - rowY[row] * scale;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.zssystem.util;
 
 import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.write.metadata.WriteSheet;
 import com.alibaba.excel.write.style.column.LongestMatchColumnWidthStyleStrategy;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.web.context.request.RequestContextHolder;
@@ -11,13 +13,19 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Excel导出工具类
  */
 public class ExcelUtil {
     
+    /** 流式导出每批写入的行数 */
+    private static final int STREAM_BATCH_SIZE = 500;
+    
     /**
      * 导出Excel（通用方法）
      * @param data 数据列表
@@ -78,6 +86,56 @@ public class ExcelUtil {
         }
     }
     
+    /**
+     * 流式导出Excel：数据由 producer 逐行产生，每攒够一批就写入输出流，不在内存中保留全部数据
+     * @param fileName 文件名（不含扩展名）
+     * @param sheetName Sheet名称
+     * @param clazz 数据类（用于EasyExcel自动生成表头）
+     * @param producer 数据产生方，接收一个逐行写入的回调
+     * @param writeHandlers 自定义WriteHandler列表
+     * @return 写入的数据行数
+     */
+    public static <T> int exportExcelStream(String fileName, String sheetName, Class<T> clazz,
+                                            Consumer<Consumer<T>> producer,
+                                            com.alibaba.excel.write.handler.WriteHandler... writeHandlers) {
+        try {
+            HttpServletResponse response = getResponse();
+            String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8)
+                    .replaceAll("\\+", "%20");
+            
+            response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+            response.setCharacterEncoding("utf-8");
+            response.setHeader("Content-disposition", "attachment;filename*=utf-8''" + encodedFileName + ".xlsx");
+            
+            com.alibaba.excel.write.builder.ExcelWriterBuilder builder = EasyExcel.write(response.getOutputStream(), clazz)
+                    .registerWriteHandler(new LongestMatchColumnWidthStyleStrategy()); // 自动列宽
+            for (com.alibaba.excel.write.handler.WriteHandler handler : writeHandlers) {
+                builder.registerWriteHandler(handler);
+            }
+            
+            try (ExcelWriter excelWriter = builder.build()) {
+                WriteSheet writeSheet = EasyExcel.writerSheet(sheetName).build();
+                List<T> batch = new ArrayList<>(STREAM_BATCH_SIZE);
+                int[] total = {0};
+                producer.accept(row -> {
+                    batch.add(row);
+                    total[0]++;
+                    if (batch.size() >= STREAM_BATCH_SIZE) {
+                        excelWriter.write(batch, writeSheet);
+                        batch.clear();
+                    }
+                });
+                // 最后一批（没有数据时也要写一次，保证输出表头）
+                if (!batch.isEmpty() || total[0] == 0) {
+                    excelWriter.write(batch.isEmpty() ? Collections.emptyList() : batch, writeSheet);
+                }
+                return total[0];
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("导出Excel失败", e);
+        }
+    }
+    
     private static HttpServletResponse getResponse() {
         ServletRequestAttributes attributes = 
             (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
@@ -0,0 +1,228 @@
+package com.zssystem.util;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * 现场照片处理：读取 EXIF 方向、按目标尺寸抽样解码、缩放、JPEG 压缩输出
+ */
+public class PhotoImageUtil {
+
+    /** 缩略图所在子目录（与原图同目录下） */
+    public static final String THUMBNAIL_DIR = "thumb";
+
+    /**
+     * 缩略图路径：原图目录/thumb/原文件名（不含扩展名）.jpg
+     */
+    public static Path thumbnailPath(Path original) {
+        String name = original.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return original.resolveSibling(THUMBNAIL_DIR).resolve(base + ".jpg");
+    }
+
+    public static boolean isJpeg(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return name.endsWith(".jpg") || name.endsWith(".jpeg");
+    }
+
+    /**
+     * 读取 JPEG 的 EXIF 方向（1-8），非 JPEG 或没有方向信息时返回 1
+     */
+    public static int readOrientation(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readUnsignedShort() != 0xFFD8) {
+                return 1;
+            }
+            while (true) {
+                int marker = in.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) {
+                    return 1;
+                }
+                int length = in.readUnsignedShort() - 2;
+                if (length < 0) {
+                    return 1;
+                }
+                if (marker == 0xFFE1) {
+                    byte[] segment = new byte[length];
+                    in.readFully(segment);
+                    int orientation = exifOrientation(segment);
+                    if (orientation > 0) {
+                        return orientation;
+                    }
+                } else {
+                    in.skipNBytes(length);
+                }
+            }
+        } catch (EOFException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * 解析 APP1 段中的 Exif/TIFF 头，找第 0 个 IFD 的 Orientation（0x0112）
+     * @return 方向值，不是 Exif 段或没有该标签时返回 0
+     */
+    private static int exifOrientation(byte[] s) {
+        if (s.length < 14 || s[0] != 'E' || s[1] != 'x' || s[2] != 'i' || s[3] != 'f') {
+            return 0;
+        }
+        int tiff = 6;
+        boolean little = s[tiff] == 'I';
+        int ifd = tiff + readInt(s, tiff + 4, little);
+        if (ifd < tiff || ifd + 2 > s.length) {
+            return 0;
+        }
+        int count = readShort(s, ifd, little);
+        for (int i = 0; i < count; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > s.length) {
+                return 0;
+            }
+            if (readShort(s, entry, little) == 0x0112) {
+                int value = readShort(s, entry + 8, little);
+                return value >= 1 && value <= 8 ? value : 0;
+            }
+        }
+        return 0;
+    }
+
+    private static int readShort(byte[] s, int pos, boolean little) {
+        int a = s[pos] & 0xFF;
+        int b = s[pos + 1] & 0xFF;
+        return little ? (b << 8) | a : (a << 8) | b;
+    }
+
+    private static int readInt(byte[] s, int pos, boolean little) {
+        if (pos + 4 > s.length) {
+            return -1;
+        }
+        int hi = readShort(s, little ? pos + 2 : pos, little);
+        int lo = readShort(s, little ? pos : pos + 2, little);
+        return (hi << 16) | lo;
+    }
+
+    /**
+     * 解码图片；原图长边超过 targetEdge 两倍以上时按整数倍抽样读取，避免把整张大图解码进内存
+     * @return 解码结果，格式不支持时返回 null
+     */
+    public static BufferedImage read(Path file, int targetEdge) throws IOException {
+        try (InputStream raw = Files.newInputStream(file);
+             ImageInputStream in = ImageIO.createImageInputStream(raw)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longEdge = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, longEdge / targetEdge);
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 按 EXIF 方向旋转/翻转为正向，同时转为不透明 RGB（透明部分铺白底）
+     */
+    public static BufferedImage orient(BufferedImage src, int orientation) {
+        int w = src.getWidth();
+        int h = src.getHeight();
+        boolean swap = orientation >= 5;
+        AffineTransform t = new AffineTransform();
+        switch (orientation) {
+            case 2 -> { t.translate(w, 0); t.scale(-1, 1); }
+            case 3 -> { t.translate(w, h); t.quadrantRotate(2); }
+            case 4 -> { t.translate(0, h); t.scale(1, -1); }
+            case 5 -> { t.quadrantRotate(1); t.scale(1, -1); }
+            case 6 -> { t.translate(h, 0); t.quadrantRotate(1); }
+            case 7 -> { t.translate(h, w); t.scale(-1, 1); t.quadrantRotate(3); }
+            case 8 -> { t.translate(0, w); t.quadrantRotate(3); }
+            default -> { }
+        }
+        BufferedImage out = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, out.getWidth(), out.getHeight());
+            g.drawImage(src, t, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    /**
+     * 等比缩小到长边不超过 maxEdge；每次最多缩小一半，保证缩略图清晰
+     */
+    public static BufferedImage scaleToFit(BufferedImage src, int maxEdge) {
+        BufferedImage current = src;
+        int w = src.getWidth();
+        int h = src.getHeight();
+        double scale = (double) maxEdge / Math.max(w, h);
+        if (scale >= 1) {
+            return src;
+        }
+        int targetW = Math.max(1, (int) Math.round(w * scale));
+        int targetH = Math.max(1, (int) Math.round(h * scale));
+        while (w != targetW || h != targetH) {
+            w = Math.max(targetW, w / 2);
+            h = Math.max(targetH, h / 2);
+            BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    /**
+     * 以指定质量（0-1）写出 JPEG
+     */
+    public static void writeJpeg(BufferedImage image, float quality, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (OutputStream os = Files.newOutputStream(target);
+             ImageOutputStream out = ImageIO.createImageOutputStream(os)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -1331,11 +1331,5 @@ public class ProcessFileExcelGenerator {
         }
         return sb.toString();
     }
-    
-    /**
-     * 在Excel中插入签名图片
-     */
-    public static void insertSignatureToGeneratedExcel(String excelFilePath, String signatureImagePath, String signatureType) {
-        ProcessFileExcelUtil.insertSignatureToExcel(excelFilePath, signatureImagePath, signatureType);
-    }
+
 }
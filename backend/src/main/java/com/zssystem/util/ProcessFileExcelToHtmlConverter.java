@@ -13,6 +13,9 @@ import java.util.*;
  */
 public class ProcessFileExcelToHtmlConverter {
 
+    /** 工艺文件列数：A-P */
+    public static final int MAX_COLS = 16;
+
     /** 受控章在 Excel 中的区域：L24:P27（列11-15，行23-26，0-based） */
     private static final int SEAL_COL1 = 11;
     private static final int SEAL_ROW1 = 23;
@@ -59,6 +62,18 @@ public class ProcessFileExcelToHtmlConverter {
         </style>
         """;
 
+    /**
+     * 图片地址生成：传入图片数据和 MIME 类型，返回 img 的 src
+     */
+    @FunctionalInterface
+    public interface ImageSource {
+        String src(byte[] data, String mimeType);
+    }
+
+    /** 默认内嵌为 data URI，HTML 可独立使用（PDF、SVG） */
+    private static final ImageSource INLINE_IMAGES = (data, mime) ->
+            "data:" + mime + ";base64," + Base64.getEncoder().encodeToString(data);
+
     /**
      * 将 Excel 文件转换为 HTML
      */
@@ -68,7 +83,7 @@ public class ProcessFileExcelToHtmlConverter {
             throw new IOException("Excel 文件不存在: " + excelFilePath);
         }
         try (Workbook workbook = WorkbookFactory.create(file)) {
-            return convertWorkbookToHtml(workbook, false);
+            return convertWorkbookToHtml(workbook, false, INLINE_IMAGES);
         }
     }
 
@@ -81,7 +96,7 @@ public class ProcessFileExcelToHtmlConverter {
             throw new IOException("Excel 文件不存在: " + excelFilePath);
         }
         try (Workbook workbook = WorkbookFactory.create(file)) {
-            return convertWorkbookToHtml(workbook, true);
+            return convertWorkbookToHtml(workbook, true, INLINE_IMAGES);
         }
     }
 
@@ -89,8 +104,16 @@ public class ProcessFileExcelToHtmlConverter {
      * 将 Excel 输入流转换为 HTML
      */
     public static String convertToHtml(InputStream inputStream) throws IOException {
+        return convertToHtml(inputStream, INLINE_IMAGES);
+    }
+
+    /**
+     * 将 Excel 输入流转换为 HTML，图片地址由 imageSource 生成（如引用图片接口，避免内嵌 base64）
+     * 同一份图片数据只调用一次 imageSource
+     */
+    public static String convertToHtml(InputStream inputStream, ImageSource imageSource) throws IOException {
         try (Workbook workbook = WorkbookFactory.create(inputStream)) {
-            return convertWorkbookToHtml(workbook, false);
+            return convertWorkbookToHtml(workbook, false, imageSource);
         }
     }
 
@@ -99,18 +122,18 @@ public class ProcessFileExcelToHtmlConverter {
      */
     public static String convertToHtmlForPdf(InputStream inputStream) throws IOException {
         try (Workbook workbook = WorkbookFactory.create(inputStream)) {
-            return convertWorkbookToHtml(workbook, true);
+            return convertWorkbookToHtml(workbook, true, INLINE_IMAGES);
         }
     }
 
-    private static String convertWorkbookToHtml(Workbook workbook, boolean forPdf) throws IOException {
+    private static String convertWorkbookToHtml(Workbook workbook, boolean forPdf, ImageSource imageSource) throws IOException {
         StringBuilder html = new StringBuilder();
         String style = forPdf ? STYLE_PDF : STYLE_WEB;
         html.append("<!DOCTYPE html><html><head><meta charset=\"UTF-8\">").append(style).append("</head><body>");
 
         Sheet sheet = workbook.getSheetAt(0);
         int lastRowNum = sheet.getLastRowNum();
-        int maxCols = 16; // 工艺文件 A-P 列
+        int maxCols = MAX_COLS;
 
         // 收集合并区域
         List<CellRangeAddress> mergedRegions = new ArrayList<>();
@@ -118,8 +141,9 @@ public class ProcessFileExcelToHtmlConverter {
             mergedRegions.add(sheet.getMergedRegion(i));
         }
 
-        // 收集图片：位置 -> base64；受控章单独收集，预览时浮于文字上方
+        // 收集图片：位置 -> 图片地址；受控章单独收集，预览时浮于文字上方
         Map<String, String> cellImages = new HashMap<>();
+        Map<String, String> srcByPart = new HashMap<>();
         String sealImageData = null;
         if (sheet instanceof XSSFSheet xssfSheet) {
             XSSFDrawing drawing = xssfSheet.getDrawingPatriarch();
@@ -132,13 +156,14 @@ public class ProcessFileExcelToHtmlConverter {
                             int col1 = anchor.getCol1();
                             int row2 = anchor.getRow2();
                             int col2 = anchor.getCol2();
-                            byte[] data = picture.getPictureData().getData();
-                            String mime = picture.getPictureData().getMimeType();
-                            String base64 = "data:" + mime + ";base64," + Base64.getEncoder().encodeToString(data);
+                            XSSFPictureData pictureData = picture.getPictureData();
+                            String src = srcByPart.computeIfAbsent(
+                                    pictureData.getPackagePart().getPartName().getName(),
+                                    k -> imageSource.src(pictureData.getData(), pictureData.getMimeType()));
                             if (row1 == SEAL_ROW1 && col1 == SEAL_COL1 && row2 == SEAL_ROW2 && col2 == SEAL_COL2) {
-                                sealImageData = base64;
+                                sealImageData = src;
                             } else {
-                                cellImages.put(row1 + "_" + col1, base64);
+                                cellImages.put(row1 + "_" + col1, src);
                             }
                         }
                     }
@@ -1,5 +1,6 @@
 package com.zssystem.util;
 
+import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFClientAnchor;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
@@ -20,6 +21,7 @@ import java.nio.file.StandardCopyOption;
 /**
  * 工艺文件Excel签名插入工具类
  */
+@Slf4j
 public class ProcessFileExcelUtil {
     
     // 签名位置标识文本
@@ -29,195 +31,231 @@ public class ProcessFileExcelUtil {
     private static final String APPROVER_LABEL = "批准人";
     
     /**
-     * 在工艺文件Excel中插入签名图片
-     * 
-     * @param excelFilePath Excel文件路径
-     * @param signatureImagePath 签名图片路径
-     * @param signatureType 签名类型：SUBMIT-编制人，APPROVE_LEVEL1-审核人，APPROVE_LEVEL2-批准人，APPROVE_LEVEL3-会签
-     * @return 是否成功
+     * 待盖到工艺文件上的一个签名
      */
-    public static boolean insertSignatureToExcel(String excelFilePath, String signatureImagePath, String signatureType) {
-        System.out.println("========== 开始插入签名到Excel ==========");
-        System.out.println("Excel文件路径: " + excelFilePath);
-        System.out.println("签名图片路径: " + signatureImagePath);
-        System.out.println("签名类型: " + signatureType);
-        
-        // 验证Excel文件是否存在
-        File excelFile = new File(excelFilePath);
-        if (!excelFile.exists()) {
-            System.err.println("错误: Excel文件不存在: " + excelFilePath);
-            return false;
+    public static class SignatureStamp {
+        private final String signatureType;
+        private final String imagePath;
+
+        public SignatureStamp(String signatureType, String imagePath) {
+            this.signatureType = signatureType;
+            this.imagePath = imagePath;
         }
-        System.out.println("Excel文件存在，大小: " + excelFile.length() + " 字节");
-        
-        // 验证签名图片是否存在
-        File signatureFile = new File(signatureImagePath);
-        if (!signatureFile.exists()) {
-            System.err.println("错误: 签名图片不存在: " + signatureImagePath);
-            return false;
+
+        public String getSignatureType() {
+            return signatureType;
         }
-        System.out.println("签名图片存在，大小: " + signatureFile.length() + " 字节");
-        
-        try (Workbook wb = WorkbookFactory.create(excelFile);
-             XSSFWorkbook workbook = (XSSFWorkbook) wb) {
-            
-            Sheet sheet = workbook.getSheetAt(0); // 使用第一个Sheet
-            System.out.println("Sheet名称: " + sheet.getSheetName());
-            System.out.println("Sheet总行数: " + (sheet.getLastRowNum() + 1));
-            
-            // 查找签名位置
-            String labelText = getLabelBySignatureType(signatureType);
-            System.out.println("查找标签: " + labelText);
-            
-            CellPosition position = findCellPosition(sheet, labelText);
-            
-            if (position == null) {
-                System.err.println("错误: 未找到标签: " + labelText);
-                System.out.println("尝试搜索所有可能的标签...");
-                // 尝试搜索所有标签，帮助调试
-                searchAllLabels(sheet);
-                return false;
-            }
-            
-            System.out.println("找到标签位置: " + position);
-            
-            // 读取并处理签名图片（裁剪空白区域）
-            byte[] imageBytes = Files.readAllBytes(Paths.get(signatureImagePath));
-            System.out.println("原始签名图片大小: " + imageBytes.length + " 字节");
-            
-            // 裁剪签名图片的空白区域
-            byte[] croppedImageBytes = cropSignatureWhitespace(imageBytes);
-            System.out.println("裁剪后签名图片大小: " + croppedImageBytes.length + " 字节");
-            
-            // 插入图片到Excel（传递签名类型用于特殊处理）
-            insertImageToCell(sheet, position, croppedImageBytes, workbook, signatureType);
-            applyPrintSettings(sheet);
-            // 保存到临时文件再替换，避免 ZIP 读取异常
-            Path tempFile = Files.createTempFile("process_sig_", ".xlsx");
-            try (FileOutputStream fos = new FileOutputStream(tempFile.toFile())) {
-                workbook.write(fos);
-                System.out.println("Excel文件已保存");
-            }
-            Files.move(tempFile, Paths.get(excelFilePath), StandardCopyOption.REPLACE_EXISTING);
-            
-            System.out.println("========== 签名图片已成功插入到Excel ==========");
-            System.out.println("标签: " + labelText + ", 位置: " + position);
-            return true;
-            
-        } catch (Exception e) {
-            System.err.println("========== 插入签名图片到Excel失败 ==========");
-            System.err.println("错误信息: " + e.getMessage());
-            e.printStackTrace();
-            return false;
+
+        public String getImagePath() {
+            return imagePath;
         }
     }
-    
+
     /**
-     * 搜索所有可能的标签（用于调试）
+     * 按需合成工艺文件：从底稿工作簿读取，在内存中叠加全部签名、受控章并应用打印设置，写入输出流。
+     * 底稿文件只读不写；各签名标签的位置通过一次遍历建立索引；单个签名失败（图片不存在、标签缺失）只跳过该签名。
+     *
+     * @param baseWorkbook 底稿工作簿输入流（由调用方关闭）
+     * @param signatures 签名叠加层
+     * @param controlledSeal 是否叠加受控章
+     * @param out 合成结果输出流（由调用方关闭）
      */
-    private static void searchAllLabels(Sheet sheet) {
-        String[] allLabels = {PREPARER_LABEL, REVIEWER_LABEL, COUNTERSIGN_LABEL, APPROVER_LABEL};
-        System.out.println("搜索所有标签:");
-        for (String label : allLabels) {
-            CellPosition pos = findCellPosition(sheet, label);
-            if (pos != null) {
-                System.out.println("  ✓ 找到 '" + label + "' 在位置: " + pos);
-            } else {
-                System.out.println("  ✗ 未找到 '" + label + "'");
-            }
-        }
-        
-        // 打印Row 27和Row 28的所有单元格内容，帮助调试
-        System.out.println("=== Row 27 (Excel第28行) 单元格内容 ===");
-        Row row27 = sheet.getRow(27);
-        if (row27 != null) {
-            for (int col = 0; col <= 15; col++) {
-                Cell cell = row27.getCell(col);
-                String value = cell != null ? getCellValueAsString(cell) : "(null)";
-                if (value != null && !value.isEmpty()) {
-                    System.out.println("  列" + col + ": '" + value + "'");
+    public static void composeProcessFileExcel(InputStream baseWorkbook, java.util.List<SignatureStamp> signatures,
+                                               boolean controlledSeal, OutputStream out) throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook(baseWorkbook)) {
+            XSSFSheet sheet = workbook.getSheetAt(0);
+            if (signatures != null && !signatures.isEmpty()) {
+                java.util.Map<String, CellPosition> positions = indexLabelPositions(sheet);
+                for (SignatureStamp stamp : signatures) {
+                    String label = getLabelBySignatureType(stamp.getSignatureType());
+                    CellPosition position = label != null ? positions.get(label) : null;
+                    if (position == null) {
+                        log.warn("未找到签名标签: {}，签名类型: {}", label, stamp.getSignatureType());
+                        continue;
+                    }
+                    OverlayImage overlay = loadSignatureOverlay(stamp.getImagePath());
+                    if (overlay == null) {
+                        log.warn("签名图片不存在: {}", stamp.getImagePath());
+                        continue;
+                    }
+                    insertImageToCell(sheet, position, overlay, workbook, stamp.getSignatureType());
                 }
             }
-        } else {
-            System.out.println("  Row 27 为空");
+            if (controlledSeal && !addControlledSeal(sheet, workbook)) {
+                log.warn("合成工艺文件: 生成受控章图片失败");
+            }
+            applyPrintSettings(sheet);
+            workbook.write(out);
         }
     }
-    
+
     /**
-     * 根据签名类型获取标签文本
-     * 审批流程：注塑组长提交(编制人) → 车间主任审核(审核人) → 生产技术部经理批准(批准人) → 注塑部经理会签(会签)
+     * 合成工艺文件（字节版）
      */
-    private static String getLabelBySignatureType(String signatureType) {
-        return switch (signatureType) {
-            case "SUBMIT" -> PREPARER_LABEL; // 编制人（注塑组长）
-            case "APPROVE_LEVEL1" -> REVIEWER_LABEL; // 审核人（车间主任）
-            case "APPROVE_LEVEL2" -> APPROVER_LABEL; // 批准人（生产技术部经理）
-            case "APPROVE_LEVEL3" -> COUNTERSIGN_LABEL; // 会签（注塑部经理）
-            default -> null;
-        };
+    public static byte[] composeProcessFileExcel(byte[] baseWorkbook, java.util.List<SignatureStamp> signatures,
+                                                 boolean controlledSeal) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(baseWorkbook.length + 64 * 1024);
+        composeProcessFileExcel(new ByteArrayInputStream(baseWorkbook), signatures, controlledSeal, baos);
+        return baos.toByteArray();
     }
-    
+
+    /**
+     * 签名叠加层文件路径：与签名原图同目录，文件名加 _crop 后缀，保存裁剪掉空白后的图片
+     */
+    public static String signatureOverlayPath(String signatureImagePath) {
+        int dot = signatureImagePath.lastIndexOf('.');
+        int slash = Math.max(signatureImagePath.lastIndexOf('/'), signatureImagePath.lastIndexOf('\\'));
+        String stem = dot > slash ? signatureImagePath.substring(0, dot) : signatureImagePath;
+        return stem + "_crop.png";
+    }
+
+    /**
+     * 签名叠加层：裁剪后的 PNG 及像素尺寸，合成时直接使用，不再解码
+     */
+    private static final class OverlayImage {
+        private final byte[] png;
+        private final int width;
+        private final int height;
+
+        private OverlayImage(byte[] png, int width, int height) {
+            this.png = png;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    /** 叠加层缓存条数上限（每条为裁剪后的小图，约几 KB） */
+    private static final int OVERLAY_CACHE_SIZE = 512;
+
+    /** 签名原图路径@修改时间 -> 叠加层，按访问顺序淘汰；签名图片被替换时修改时间变化，自动换用新图 */
+    private static final java.util.Map<String, OverlayImage> OVERLAY_CACHE =
+            new java.util.LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(java.util.Map.Entry<String, OverlayImage> eldest) {
+                    return size() > OVERLAY_CACHE_SIZE;
+                }
+            };
+
+    /**
+     * 生成签名叠加层（裁剪空白后单独保存）并放入缓存，签名保存时调用；已生成则直接返回
+     *
+     * @return 叠加层图片字节，签名原图不存在时返回 null
+     */
+    public static byte[] saveSignatureOverlay(String signatureImagePath) throws IOException {
+        OverlayImage overlay = signatureOverlay(signatureImagePath);
+        return overlay != null ? overlay.png : null;
+    }
+
     /**
-     * 查找单元格位置（通过搜索文本）
+     * 读取签名叠加层：优先取缓存；历史签名没有叠加层时现场裁剪并补存，补存失败不影响本次合成
      */
-    private static CellPosition findCellPosition(Sheet sheet, String searchText) {
-        if (searchText == null || searchText.trim().isEmpty()) {
-            System.out.println("findCellPosition: 搜索文本为空");
+    private static OverlayImage loadSignatureOverlay(String signatureImagePath) throws IOException {
+        if (signatureImagePath == null || signatureImagePath.isEmpty()) {
             return null;
         }
-        
-        System.out.println("findCellPosition: 开始搜索标签 '" + searchText + "'");
-        System.out.println("findCellPosition: Sheet总行数 = " + (sheet.getLastRowNum() + 1));
-        
-        // 专门搜索第27行（Excel第28行）- 签名标签所在行
-        Row row27 = sheet.getRow(27);
-        if (row27 != null) {
-            System.out.println("findCellPosition: 搜索第27行（Excel第28行）");
-            for (int colIndex = 0; colIndex < 16; colIndex++) {
-                Cell cell = row27.getCell(colIndex);
-                if (cell != null) {
-                    String cellValue = getCellValueAsString(cell);
-                    if (cellValue != null && !cellValue.isEmpty()) {
-                        String trimmedCellValue = cellValue.trim();
-                        String trimmedSearchText = searchText.trim();
-                        
-                        if (trimmedCellValue.equals(trimmedSearchText)) {
-                            System.out.println("findCellPosition: 精确匹配找到标签 '" + searchText + "' 在: 行27, 列" + colIndex);
-                            return new CellPosition(28, colIndex); // 返回下一行
-                        }
-                    }
+        return signatureOverlay(signatureImagePath);
+    }
+
+    private static OverlayImage signatureOverlay(String signatureImagePath) throws IOException {
+        Path imagePath = Paths.get(signatureImagePath);
+        Path overlayPath = Paths.get(signatureOverlayPath(signatureImagePath));
+        boolean hasImage = Files.exists(imagePath);
+        Path source = hasImage ? imagePath : overlayPath;
+        if (!Files.exists(source)) {
+            return null;
+        }
+        long sourceModified = Files.getLastModifiedTime(source).toMillis();
+        String key = signatureImagePath + "@" + sourceModified;
+        synchronized (OVERLAY_CACHE) {
+            OverlayImage cached = OVERLAY_CACHE.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        OverlayImage overlay;
+        // 叠加层文件比原图旧说明原图已被替换，需重新裁剪
+        if (Files.exists(overlayPath)
+                && (!hasImage || Files.getLastModifiedTime(overlayPath).toMillis() >= sourceModified)) {
+            byte[] png = Files.readAllBytes(overlayPath);
+            java.awt.Dimension size = readImageSize(png);
+            overlay = new OverlayImage(png, size.width, size.height);
+        } else {
+            overlay = cropSignature(Files.readAllBytes(imagePath));
+            try {
+                Path tempFile = Files.createTempFile(overlayPath.getParent(), "overlay_", ".png");
+                Files.write(tempFile, overlay.png);
+                Files.move(tempFile, overlayPath, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                log.warn("保存签名叠加层失败: {} - {}", overlayPath, e.getMessage());
+            }
+        }
+        synchronized (OVERLAY_CACHE) {
+            OVERLAY_CACHE.put(key, overlay);
+        }
+        return overlay;
+    }
+
+    /**
+     * 只读取图片头获得尺寸，不解码像素
+     */
+    private static java.awt.Dimension readImageSize(byte[] imageBytes) throws IOException {
+        try (javax.imageio.stream.ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(imageBytes))) {
+            java.util.Iterator<javax.imageio.ImageReader> readers = ImageIO.getImageReaders(in);
+            if (readers.hasNext()) {
+                javax.imageio.ImageReader reader = readers.next();
+                try {
+                    reader.setInput(in, true, true);
+                    return new java.awt.Dimension(reader.getWidth(0), reader.getHeight(0));
+                } finally {
+                    reader.dispose();
                 }
             }
         }
-        
-        // 遍历所有行搜索
+        return new java.awt.Dimension(0, 0);
+    }
+
+    /**
+     * 一次遍历建立全部签名标签的位置索引（标签 -> 签名单元格，即标签下一行）
+     * 优先第27行的精确匹配，其次按行列顺序第一个包含该标签的单元格
+     */
+    private static java.util.Map<String, CellPosition> indexLabelPositions(Sheet sheet) {
+        String[] labels = {PREPARER_LABEL, REVIEWER_LABEL, COUNTERSIGN_LABEL, APPROVER_LABEL};
+        java.util.Map<String, CellPosition> row27Matches = new java.util.HashMap<>();
+        java.util.Map<String, CellPosition> positions = new java.util.HashMap<>();
         for (int rowIndex = 0; rowIndex <= sheet.getLastRowNum(); rowIndex++) {
             Row row = sheet.getRow(rowIndex);
             if (row == null) continue;
-            
-            for (int colIndex = 0; colIndex < row.getLastCellNum(); colIndex++) {
-                Cell cell = row.getCell(colIndex);
-                if (cell == null) continue;
-                
-                String cellValue = getCellValueAsString(cell);
-                if (cellValue != null) {
-                    String trimmedCellValue = cellValue.trim();
-                    String trimmedSearchText = searchText.trim();
-                    
-                    if (trimmedCellValue.equals(trimmedSearchText)) {
-                        System.out.println("findCellPosition: 精确匹配找到标签 '" + searchText + "' 在: 行" + rowIndex + ", 列" + colIndex);
-                        return new CellPosition(rowIndex + 1, colIndex);
+            for (int colIndex = 0; colIndex < Math.max(row.getLastCellNum(), 0); colIndex++) {
+                String cellValue = getCellValueAsString(row.getCell(colIndex));
+                if (cellValue == null || cellValue.isEmpty()) continue;
+                String trimmedCellValue = cellValue.trim();
+                for (String label : labels) {
+                    if (rowIndex == 27 && colIndex < 16 && trimmedCellValue.equals(label)) {
+                        row27Matches.putIfAbsent(label, new CellPosition(28, colIndex));
                     }
-                    if (trimmedCellValue.contains(trimmedSearchText)) {
-                        System.out.println("findCellPosition: 包含匹配找到标签 '" + searchText + "' 在: 行" + rowIndex + ", 列" + colIndex);
-                        return new CellPosition(rowIndex + 1, colIndex);
+                    if (trimmedCellValue.contains(label)) {
+                        positions.putIfAbsent(label, new CellPosition(rowIndex + 1, colIndex));
                     }
                 }
             }
         }
-        
-        System.out.println("findCellPosition: 未找到标签 '" + searchText + "'");
-        return null;
+        positions.putAll(row27Matches);
+        return positions;
+    }
+    
+    /**
+     * 根据签名类型获取标签文本
+     * 审批流程：注塑组长提交(编制人) → 车间主任审核(审核人) → 生产技术部经理批准(批准人) → 注塑部经理会签(会签)
+     */
+    private static String getLabelBySignatureType(String signatureType) {
+        return switch (signatureType) {
+            case "SUBMIT" -> PREPARER_LABEL; // 编制人（注塑组长）
+            case "APPROVE_LEVEL1" -> REVIEWER_LABEL; // 审核人（车间主任）
+            case "APPROVE_LEVEL2" -> APPROVER_LABEL; // 批准人（生产技术部经理）
+            case "APPROVE_LEVEL3" -> COUNTERSIGN_LABEL; // 会签（注塑部经理）
+            default -> null;
+        };
     }
     
     /**
@@ -259,7 +297,7 @@ public class ProcessFileExcelUtil {
                     return null;
             }
         } catch (Exception e) {
-            System.err.println("获取单元格值失败: " + e.getMessage());
+            log.debug("获取单元格值失败: {}", e.getMessage());
             return null;
         }
     }
@@ -268,26 +306,26 @@ public class ProcessFileExcelUtil {
      * 裁剪图片的空白区域（公开方法，供其他类调用）
      */
     public static byte[] cropImageWhitespace(byte[] imageBytes) {
-        return cropSignatureWhitespace(imageBytes);
+        return cropSignature(imageBytes).png;
     }
     
     /**
-     * 裁剪签名图片的空白区域，只保留签名部分
+     * 裁剪签名图片的空白区域，只保留签名部分；同时记下裁剪后的尺寸，插入 Excel 时不再解码
      */
-    private static byte[] cropSignatureWhitespace(byte[] imageBytes) {
+    private static OverlayImage cropSignature(byte[] imageBytes) {
         try {
             // 读取图片
             ByteArrayInputStream bais = new ByteArrayInputStream(imageBytes);
             BufferedImage originalImage = ImageIO.read(bais);
             
             if (originalImage == null) {
-                System.err.println("无法读取签名图片");
-                return imageBytes;
+                log.warn("无法读取签名图片");
+                return new OverlayImage(imageBytes, 0, 0);
             }
             
             int width = originalImage.getWidth();
             int height = originalImage.getHeight();
-            System.out.println("原始图片尺寸: " + width + "x" + height);
+            log.debug("原始图片尺寸: {}x{}", width, height);
             
             // 查找签名的边界（非空白区域）
             int minX = width, minY = height, maxX = 0, maxY = 0;
@@ -319,8 +357,8 @@ public class ProcessFileExcelUtil {
             
             // 检查是否找到签名内容
             if (minX >= maxX || minY >= maxY) {
-                System.out.println("未找到签名内容，使用原图");
-                return imageBytes;
+                log.debug("未找到签名内容，使用原图");
+                return new OverlayImage(imageBytes, width, height);
             }
             
             // 添加少量边距（5像素）
@@ -332,8 +370,7 @@ public class ProcessFileExcelUtil {
             
             int cropWidth = maxX - minX + 1;
             int cropHeight = maxY - minY + 1;
-            System.out.println("签名区域: (" + minX + "," + minY + ") 到 (" + maxX + "," + maxY + ")");
-            System.out.println("裁剪后尺寸: " + cropWidth + "x" + cropHeight);
+            log.debug("签名区域: ({},{}) 到 ({},{})，裁剪后尺寸: {}x{}", minX, minY, maxX, maxY, cropWidth, cropHeight);
             
             // 裁剪图片
             BufferedImage croppedImage = originalImage.getSubimage(minX, minY, cropWidth, cropHeight);
@@ -342,12 +379,11 @@ public class ProcessFileExcelUtil {
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
             ImageIO.write(croppedImage, "png", baos);
             
-            return baos.toByteArray();
+            return new OverlayImage(baos.toByteArray(), cropWidth, cropHeight);
             
         } catch (Exception e) {
-            System.err.println("裁剪签名图片失败: " + e.getMessage());
-            e.printStackTrace();
-            return imageBytes;
+            log.warn("裁剪签名图片失败", e);
+            return new OverlayImage(imageBytes, 0, 0);
         }
     }
     
@@ -355,7 +391,7 @@ public class ProcessFileExcelUtil {
      * 插入图片到指定单元格位置（不改变单元格大小）
      * @param signatureType 签名类型，用于特殊处理（如会签使用N:O列计算缩放）
      */
-    private static void insertImageToCell(Sheet sheet, CellPosition position, byte[] imageBytes, Workbook workbook, String signatureType) {
+    private static void insertImageToCell(Sheet sheet, CellPosition position, OverlayImage image, Workbook workbook, String signatureType) {
         if (!(sheet instanceof XSSFSheet) || !(workbook instanceof XSSFWorkbook)) {
             throw new RuntimeException("仅支持XLSX格式的Excel文件");
         }
@@ -389,7 +425,7 @@ public class ProcessFileExcelUtil {
                 endCol = mergedRegion.getLastColumn();
                 startRow = mergedRegion.getFirstRow();
                 endRow = mergedRegion.getLastRow();
-                System.out.println("检测到合并单元格: 列" + startCol + "-" + endCol + ", 行" + startRow + "-" + endRow);
+                log.debug("检测到合并单元格: 列{}-{}, 行{}-{}", startCol, endCol, startRow, endRow);
                 break;
             }
         }
@@ -403,7 +439,7 @@ public class ProcessFileExcelUtil {
         int scaleEndCol = endCol;
         if ("APPROVE_LEVEL3".equals(signatureType) && startCol == 13 && endCol == 15) {
             scaleEndCol = 14; // 使用N:O列计算缩放
-            System.out.println("会签签名：使用N:O列（13-14）计算缩放，实际单元格范围N:P（13-15）");
+            log.debug("会签签名：使用N:O列（13-14）计算缩放，实际单元格范围N:P（13-15）");
         }
         
         for (int col = startCol; col <= scaleEndCol; col++) {
@@ -422,7 +458,7 @@ public class ProcessFileExcelUtil {
             }
         }
         
-        System.out.println("用于缩放计算的尺寸(像素): " + cellWidthPixels + "x" + cellHeightPixels);
+        log.debug("用于缩放计算的尺寸(像素): {}x{}", cellWidthPixels, cellHeightPixels);
         
         // 创建绘图对象
         XSSFDrawing drawing = xssfSheet.getDrawingPatriarch();
@@ -430,22 +466,15 @@ public class ProcessFileExcelUtil {
             drawing = xssfSheet.createDrawingPatriarch();
         }
         
-        // 读取图片尺寸
-        BufferedImage img = null;
-        try {
-            img = ImageIO.read(new ByteArrayInputStream(imageBytes));
-        } catch (IOException e) {
-            System.err.println("读取图片尺寸失败: " + e.getMessage());
-        }
-        
-        if (img == null) {
-            System.err.println("无法读取签名图片");
+        // 图片尺寸在裁剪或读取叠加层时已得到
+        if (image.width <= 0 || image.height <= 0) {
+            log.warn("无法读取签名图片");
             return;
         }
         
-        int imgWidth = img.getWidth();
-        int imgHeight = img.getHeight();
-        System.out.println("签名图片尺寸(像素): " + imgWidth + "x" + imgHeight);
+        int imgWidth = image.width;
+        int imgHeight = image.height;
+        log.debug("签名图片尺寸(像素): {}x{}", imgWidth, imgHeight);
         
         // 计算缩放比例，使图片适应单元格（留出边距）
         // 边距：水平方向留10%，垂直方向留15%
@@ -467,7 +496,7 @@ public class ProcessFileExcelUtil {
         // 计算缩放后的图片尺寸
         int scaledWidth = (int) (imgWidth * scale);
         int scaledHeight = (int) (imgHeight * scale);
-        System.out.println("缩放比例: " + String.format("%.2f", scale) + ", 缩放后尺寸: " + scaledWidth + "x" + scaledHeight);
+        log.debug("缩放比例: {}, 缩放后尺寸: {}x{}", String.format("%.2f", scale), scaledWidth, scaledHeight);
         
         // 计算图片在单元格内的居中偏移（像素）
         // 对于会签，居中计算也使用N:O列的宽度
@@ -478,10 +507,10 @@ public class ProcessFileExcelUtil {
         offsetXPixels = Math.max(2, offsetXPixels);
         offsetYPixels = Math.max(2, offsetYPixels);
         
-        System.out.println("居中偏移(像素): (" + offsetXPixels + ", " + offsetYPixels + ")");
+        log.debug("居中偏移(像素): ({}, {})", offsetXPixels, offsetYPixels);
         
         // 添加图片到工作簿
-        int pictureIndex = xssfWorkbook.addPicture(imageBytes, Workbook.PICTURE_TYPE_PNG);
+        int pictureIndex = xssfWorkbook.addPicture(image.png, Workbook.PICTURE_TYPE_PNG);
         
         // 创建图片锚点
         // EMU单位：1英寸 = 914400 EMU，1像素 ≈ 9525 EMU (96 DPI)
@@ -507,7 +536,7 @@ public class ProcessFileExcelUtil {
         // 创建图片对象
         XSSFPicture picture = drawing.createPicture(anchor, pictureIndex);
         
-        System.out.println("图片已插入到位置: 行" + startRow + ", 列" + startCol);
+        log.debug("图片已插入到位置: 行{}, 列{}", startRow, startCol);
     }
     
     /** 受控章在 Excel 中的位置：L24:P27（列11-15，行23-26，0-based） */
@@ -517,56 +546,27 @@ public class ProcessFileExcelUtil {
     private static final int SEAL_ROW2 = 26;
     
     /**
-     * 工艺文件会签完成后，在 Excel 区域 L24:P27 加盖受控章（红框 + 红色「受控」）。
-     *
-     * @param excelFilePath Excel 文件路径
-     * @return 是否成功
+     * 在 L24:P27 区域添加受控章图片（只修改内存中的工作簿）
      */
-    public static boolean insertControlledSealToExcel(String excelFilePath) {
-        File excelFile = new File(excelFilePath);
-        if (!excelFile.exists()) {
-            System.err.println("insertControlledSeal: Excel文件不存在: " + excelFilePath);
+    private static boolean addControlledSeal(XSSFSheet sheet, XSSFWorkbook workbook) {
+        byte[] sealBytes = controlledSealImage();
+        if (sealBytes == null || sealBytes.length == 0) {
             return false;
         }
-        try (Workbook wb = WorkbookFactory.create(excelFile);
-             XSSFWorkbook workbook = (XSSFWorkbook) wb) {
-            Sheet sheet = workbook.getSheetAt(0);
-            if (!(sheet instanceof XSSFSheet) || !(workbook instanceof XSSFWorkbook)) {
-                return false;
-            }
-            XSSFSheet xssfSheet = (XSSFSheet) sheet;
-            XSSFWorkbook xssfWorkbook = (XSSFWorkbook) workbook;
-            byte[] sealBytes = createControlledSealImage();
-            if (sealBytes == null || sealBytes.length == 0) {
-                System.err.println("insertControlledSeal: 生成受控章图片失败");
-                return false;
-            }
-            XSSFDrawing drawing = xssfSheet.getDrawingPatriarch();
-            if (drawing == null) {
-                drawing = xssfSheet.createDrawingPatriarch();
-            }
-            int pictureIndex = xssfWorkbook.addPicture(sealBytes, Workbook.PICTURE_TYPE_PNG);
-            // 使用 DONT_MOVE_AND_RESIZE 使受控章浮于文字上方，不改变 Excel 布局
-            XSSFClientAnchor anchor = new XSSFClientAnchor(
-                0, 0, 0, 0,
-                (short) SEAL_COL1, SEAL_ROW1,
-                (short) SEAL_COL2, SEAL_ROW2
-            );
-            anchor.setAnchorType(ClientAnchor.AnchorType.DONT_MOVE_AND_RESIZE);
-            drawing.createPicture(anchor, pictureIndex);
-            applyPrintSettings(sheet);
-            Path tempFile = Files.createTempFile("process_seal_", ".xlsx");
-            try (FileOutputStream fos = new FileOutputStream(tempFile.toFile())) {
-                workbook.write(fos);
-            }
-            Files.move(tempFile, Paths.get(excelFilePath), StandardCopyOption.REPLACE_EXISTING);
-            System.out.println("受控章已插入到 Excel 区域 L24:P27");
-            return true;
-        } catch (Exception e) {
-            System.err.println("插入受控章失败: " + e.getMessage());
-            e.printStackTrace();
-            return false;
+        XSSFDrawing drawing = sheet.getDrawingPatriarch();
+        if (drawing == null) {
+            drawing = sheet.createDrawingPatriarch();
         }
+        int pictureIndex = workbook.addPicture(sealBytes, Workbook.PICTURE_TYPE_PNG);
+        // 使用 DONT_MOVE_AND_RESIZE 使受控章浮于文字上方，不改变 Excel 布局
+        XSSFClientAnchor anchor = new XSSFClientAnchor(
+            0, 0, 0, 0,
+            (short) SEAL_COL1, SEAL_ROW1,
+            (short) SEAL_COL2, SEAL_ROW2
+        );
+        anchor.setAnchorType(ClientAnchor.AnchorType.DONT_MOVE_AND_RESIZE);
+        drawing.createPicture(anchor, pictureIndex);
+        return true;
     }
     
     /** 工艺卡打印设置：横向，页边距上下左右 0.1，水平垂直居中 */
@@ -581,23 +581,16 @@ public class ProcessFileExcelUtil {
         sheet.setVerticallyCenter(true);
     }
 
-    /** 对已存在的 Excel 文件应用打印设置（横向、页边距 0.1） */
-    public static void applyPrintSettingsToFile(String excelFilePath) {
-        File f = new File(excelFilePath);
-        if (!f.exists()) return;
-        try (Workbook wb = WorkbookFactory.create(f)) {
-            Sheet sheet = wb.getSheetAt(0);
-            if (sheet != null) {
-                applyPrintSettings(sheet);
-                Path tempFile = Files.createTempFile("process_print_", ".xlsx");
-                try (FileOutputStream fos = new FileOutputStream(tempFile.toFile())) {
-                    wb.write(fos);
-                }
-                Files.move(tempFile, Paths.get(excelFilePath), StandardCopyOption.REPLACE_EXISTING);
-            }
-        } catch (Exception e) {
-            System.err.println("应用打印设置失败: " + e.getMessage());
+    /** 受控章图片内容固定，生成一次后复用 */
+    private static volatile byte[] controlledSealImage;
+
+    private static byte[] controlledSealImage() {
+        byte[] image = controlledSealImage;
+        if (image == null || image.length == 0) {
+            image = createControlledSealImage();
+            controlledSealImage = image;
         }
+        return image;
     }
 
     /**
@@ -635,7 +628,7 @@ public class ProcessFileExcelUtil {
             ImageIO.write(img, "png", baos);
             return baos.toByteArray();
         } catch (IOException e) {
-            System.err.println("写入受控章PNG失败: " + e.getMessage());
+            log.warn("写入受控章PNG失败: {}", e.getMessage());
             return new byte[0];
         }
     }
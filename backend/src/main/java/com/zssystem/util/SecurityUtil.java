@@ -9,8 +9,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 安全工具类 - 获取当前登录用户信息
@@ -18,6 +24,9 @@ import java.util.List;
 @Component
 public class SecurityUtil {
 
+    /** 当前请求内缓存的角色信息（请求属性名） */
+    private static final String ROLES_ATTRIBUTE = SecurityUtil.class.getName() + ".ROLES";
+
     private static SysUserMapper sysUserMapper;
     private static SysUserRoleMapper sysUserRoleMapper;
     private static SysRoleMapper sysRoleMapper;
@@ -72,59 +81,26 @@ public class SecurityUtil {
      * 从用户角色关联表查询用户的角色
      */
     public static String getCurrentUserRole() {
-        SysUser user = getCurrentUser();
-        if (user != null && sysUserRoleMapper != null && sysRoleMapper != null) {
-            // 查询用户角色ID列表
-            List<Long> roleIds = sysUserRoleMapper.selectRoleIdsByUserId(user.getId());
-            if (roleIds != null && !roleIds.isEmpty()) {
-                // 获取第一个角色
-                SysRole role = sysRoleMapper.selectById(roleIds.get(0));
-                if (role != null) {
-                    return role.getRoleName();
-                }
-            }
-        }
-        return null;
+        SysRole role = currentRoles().first();
+        return role != null ? role.getRoleName() : null;
     }
 
     /**
      * 获取当前用户角色代码（第一个角色）
      */
     public static String getCurrentUserRoleCode() {
-        SysUser user = getCurrentUser();
-        if (user != null && sysUserRoleMapper != null && sysRoleMapper != null) {
-            // 查询用户角色ID列表
-            List<Long> roleIds = sysUserRoleMapper.selectRoleIdsByUserId(user.getId());
-            if (roleIds != null && !roleIds.isEmpty()) {
-                // 获取第一个角色
-                SysRole role = sysRoleMapper.selectById(roleIds.get(0));
-                if (role != null) {
-                    return role.getRoleCode();
-                }
-            }
-        }
-        return null;
+        SysRole role = currentRoles().first();
+        return role != null ? role.getRoleCode() : null;
     }
 
     /**
      * 获取当前用户所有角色代码列表
      */
     public static List<String> getCurrentUserRoleCodes() {
-        SysUser user = getCurrentUser();
-        if (user != null && sysUserRoleMapper != null && sysRoleMapper != null) {
-            // 查询用户角色ID列表
-            List<Long> roleIds = sysUserRoleMapper.selectRoleIdsByUserId(user.getId());
-            if (roleIds != null && !roleIds.isEmpty()) {
-                return roleIds.stream()
-                        .map(roleId -> {
-                            SysRole role = sysRoleMapper.selectById(roleId);
-                            return role != null ? role.getRoleCode() : null;
-                        })
-                        .filter(code -> code != null)
-                        .toList();
-            }
-        }
-        return List.of();
+        return currentRoles().roles.stream()
+                .map(SysRole::getRoleCode)
+                .filter(code -> code != null)
+                .toList();
     }
 
     /**
@@ -142,4 +118,56 @@ public class SecurityUtil {
         List<String> roleCodes = getCurrentUserRoleCodes();
         return roleCodes.contains(roleCode);
     }
+
+    /**
+     * 当前用户的角色：一次查用户、一次查关联、一次批量查角色；
+     * 在 Web 请求内按用户名缓存到请求属性，同一请求多次判断角色不再重复查询
+     */
+    private static CurrentRoles currentRoles() {
+        String username = getCurrentUsername();
+        if (username == null) {
+            return CurrentRoles.EMPTY;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null
+                && attributes.getAttribute(ROLES_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof CurrentRoles cached
+                && username.equals(cached.username)) {
+            return cached;
+        }
+        CurrentRoles loaded = loadRoles(username);
+        if (attributes != null) {
+            attributes.setAttribute(ROLES_ATTRIBUTE, loaded, RequestAttributes.SCOPE_REQUEST);
+        }
+        return loaded;
+    }
+
+    private static CurrentRoles loadRoles(String username) {
+        SysUser user = getCurrentUser();
+        if (user == null || sysUserRoleMapper == null || sysRoleMapper == null) {
+            return new CurrentRoles(username, List.of(), false);
+        }
+        List<Long> roleIds = sysUserRoleMapper.selectRoleIdsByUserId(user.getId());
+        if (roleIds == null || roleIds.isEmpty()) {
+            return new CurrentRoles(username, List.of(), false);
+        }
+        Map<Long, SysRole> byId = sysRoleMapper.selectBatchIds(roleIds).stream()
+                .collect(Collectors.toMap(SysRole::getId, Function.identity(), (a, b) -> a));
+        // 按关联表顺序保留角色；“第一个角色”指关联表中的第一条，角色已删除时视为无角色
+        List<SysRole> roles = new ArrayList<>();
+        for (Long roleId : roleIds) {
+            SysRole role = byId.get(roleId);
+            if (role != null) {
+                roles.add(role);
+            }
+        }
+        return new CurrentRoles(username, roles, byId.containsKey(roleIds.get(0)));
+    }
+
+    private record CurrentRoles(String username, List<SysRole> roles, boolean firstExists) {
+        static final CurrentRoles EMPTY = new CurrentRoles(null, List.of(), false);
+
+        SysRole first() {
+            return firstExists ? roles.get(0) : null;
+        }
+    }
 }
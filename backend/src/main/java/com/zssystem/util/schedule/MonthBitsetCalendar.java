@@ -0,0 +1,101 @@
+package com.zssystem.util.schedule;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 按月位图的工作日历：每个月用一个 int 表示，第 (日-1) 位为1表示当天上班。
+ * 统计和定位工作日按月做位运算，耗时只与跨越的月数有关，与天数无关。
+ * 月份位图由调用方提供（节假日、加班、停机等规则在外部合成），本类按月缓存；实例非线程安全，按请求创建。
+ */
+public final class MonthBitsetCalendar implements WorkCalendar {
+
+    /** 向后查找工作日的最大月数，防止日历全为休息日时无限查找 */
+    private static final int MAX_SEARCH_MONTHS = 120;
+
+    private final Function<YearMonth, Integer> monthMaskLoader;
+    private final Map<YearMonth, Integer> masks = new HashMap<>();
+
+    public MonthBitsetCalendar(Function<YearMonth, Integer> monthMaskLoader) {
+        this.monthMaskLoader = monthMaskLoader;
+    }
+
+    /**
+     * 生成某月的基础位图：星期天休息，星期六按参数决定是否上班
+     */
+    public static int baseMask(YearMonth month, boolean saturdayWorking) {
+        int mask = 0;
+        DayOfWeek dow = month.atDay(1).getDayOfWeek();
+        for (int day = 1; day <= month.lengthOfMonth(); day++) {
+            if (dow != DayOfWeek.SUNDAY && (saturdayWorking || dow != DayOfWeek.SATURDAY)) {
+                mask |= bit(day);
+            }
+            dow = dow.plus(1);
+        }
+        return mask;
+    }
+
+    /**
+     * 某日在月位图中对应的位
+     */
+    public static int bit(int dayOfMonth) {
+        return 1 << (dayOfMonth - 1);
+    }
+
+    private int mask(YearMonth month) {
+        return masks.computeIfAbsent(month, monthMaskLoader);
+    }
+
+    @Override
+    public boolean isWorkingDay(LocalDate date) {
+        return (mask(YearMonth.from(date)) & bit(date.getDayOfMonth())) != 0;
+    }
+
+    @Override
+    public int countWorkingDays(LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) {
+            return 0;
+        }
+        YearMonth first = YearMonth.from(start);
+        YearMonth last = YearMonth.from(end);
+        int count = 0;
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            int m = mask(month);
+            if (month.equals(first)) {
+                m &= ~(bit(start.getDayOfMonth()) - 1);
+            }
+            if (month.equals(last)) {
+                m &= (bit(end.getDayOfMonth()) << 1) - 1;
+            }
+            count += Integer.bitCount(m);
+        }
+        return count;
+    }
+
+    @Override
+    public LocalDate nthWorkingDay(LocalDate start, int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n 必须从1开始");
+        }
+        YearMonth month = YearMonth.from(start);
+        int m = mask(month) & ~(bit(start.getDayOfMonth()) - 1);
+        for (int i = 0; i < MAX_SEARCH_MONTHS; i++) {
+            int available = Integer.bitCount(m);
+            if (n <= available) {
+                // 清掉前 n-1 个置位，剩下的最低位即为目标日
+                for (int k = 1; k < n; k++) {
+                    m &= m - 1;
+                }
+                return month.atDay(Integer.numberOfTrailingZeros(m) + 1);
+            }
+            n -= available;
+            month = month.plusMonths(1);
+            m = mask(month);
+        }
+        throw new IllegalStateException("从" + start + "起" + MAX_SEARCH_MONTHS + "个月内没有足够的工作日");
+    }
+}
@@ -0,0 +1,175 @@
+package com.zssystem.util.schedule;
+
+import java.time.LocalDate;
+
+/**
+ * 排程引擎（纯计算，无数据库访问、无副作用）
+ * 输入按顺序排列的产品（订单数量、日产能）和工作日历，输出每个工作日生产哪个产品。
+ * 结果只记录每个产品占用的连续天数区间，不逐日创建对象，调用方通过 {@link Plan#forEachDay} 按需展开。
+ */
+public final class ScheduleEngine {
+
+    private ScheduleEngine() {}
+
+    /**
+     * 逐日回调
+     */
+    @FunctionalInterface
+    public interface DayConsumer {
+        /**
+         * @param dayNumber 第几天（从1开始，只计工作日）
+         * @param date 排程日期
+         * @param productIndex 产品在输入数组中的下标
+         * @param remainingQuantity 当天开工前的剩余数量
+         */
+        void accept(int dayNumber, LocalDate date, int productIndex, int remainingQuantity);
+    }
+
+    /**
+     * 计算排程
+     * @param orderQuantities 各产品订单数量（按生产顺序）
+     * @param dailyCapacities 各产品日产能（与订单数量一一对应）
+     * @param calendar 工作日历
+     * @param startDate 排程开始日期
+     * @param endDate 排程截止日期（含）
+     */
+    public static Plan plan(int[] orderQuantities, int[] dailyCapacities, WorkCalendar calendar,
+                            LocalDate startDate, LocalDate endDate) {
+        if (orderQuantities.length != dailyCapacities.length) {
+            throw new IllegalArgumentException("订单数量与日产能个数不一致");
+        }
+        int productCount = orderQuantities.length;
+        int workingDays = calendar.countWorkingDays(startDate, endDate);
+
+        int[] spanProduct = new int[productCount];
+        int[] spanDays = new int[productCount];
+        int spanCount = 0;
+        int day = 0;
+        boolean allCompleted = false;
+
+        for (int i = 0; ; i++) {
+            // 工作日已排满则停止（即使恰好排完最后一个产品，也视为未提前完成）
+            if (day >= workingDays) {
+                break;
+            }
+            if (i == productCount) {
+                allCompleted = true;
+                break;
+            }
+            int quantity = orderQuantities[i];
+            int capacity = dailyCapacities[i];
+            if (quantity <= 0) {
+                // 剩余数量 <= 0 不占用排程天数，直接切换到下一个产品
+                continue;
+            }
+            int free = workingDays - day;
+            // 产能 <= 0 时永远排不完，占满剩余工作日
+            long needed = capacity > 0 ? ((long) quantity + capacity - 1) / capacity : Long.MAX_VALUE;
+            int take = (int) Math.min(needed, free);
+            spanProduct[spanCount] = i;
+            spanDays[spanCount] = take;
+            spanCount++;
+            day += take;
+            if (take < needed) {
+                break;
+            }
+        }
+
+        // 判断是否能在截止日期内完成：全部排完，或总需求天数不超过工作日数
+        boolean canComplete = allCompleted;
+        if (!canComplete) {
+            int totalRequiredDays = 0;
+            for (int i = 0; i < productCount; i++) {
+                if (dailyCapacities[i] > 0) {
+                    totalRequiredDays += (orderQuantities[i] + dailyCapacities[i] - 1) / dailyCapacities[i];
+                }
+            }
+            canComplete = totalRequiredDays <= workingDays;
+        }
+
+        return new Plan(calendar, startDate, workingDays, orderQuantities, dailyCapacities,
+                spanProduct, spanDays, spanCount, day, allCompleted, canComplete);
+    }
+
+    /**
+     * 排程结果
+     */
+    public static final class Plan {
+        private final WorkCalendar calendar;
+        private final LocalDate startDate;
+        private final int workingDays;
+        private final int[] orderQuantities;
+        private final int[] dailyCapacities;
+        private final int[] spanProduct;
+        private final int[] spanDays;
+        private final int spanCount;
+        private final int dayCount;
+        private final boolean allCompleted;
+        private final boolean canCompleteTarget;
+
+        private Plan(WorkCalendar calendar, LocalDate startDate, int workingDays,
+                     int[] orderQuantities, int[] dailyCapacities,
+                     int[] spanProduct, int[] spanDays, int spanCount, int dayCount,
+                     boolean allCompleted, boolean canCompleteTarget) {
+            this.calendar = calendar;
+            this.startDate = startDate;
+            this.workingDays = workingDays;
+            this.orderQuantities = orderQuantities;
+            this.dailyCapacities = dailyCapacities;
+            this.spanProduct = spanProduct;
+            this.spanDays = spanDays;
+            this.spanCount = spanCount;
+            this.dayCount = dayCount;
+            this.allCompleted = allCompleted;
+            this.canCompleteTarget = canCompleteTarget;
+        }
+
+        /** 区间内的工作日总数 */
+        public int getWorkingDays() {
+            return workingDays;
+        }
+
+        /** 实际排程天数 */
+        public int getDayCount() {
+            return dayCount;
+        }
+
+        /** 是否所有产品都已排完 */
+        public boolean isAllCompleted() {
+            return allCompleted;
+        }
+
+        /** 是否能在截止日期内完成生产目标 */
+        public boolean isCanCompleteTarget() {
+            return canCompleteTarget;
+        }
+
+        /** 第 dayNumber 天（从1开始）对应的日期 */
+        public LocalDate dateOf(int dayNumber) {
+            return calendar.nthWorkingDay(startDate, dayNumber);
+        }
+
+        /**
+         * 按日期顺序展开每一天
+         */
+        public void forEachDay(DayConsumer consumer) {
+            if (dayCount == 0) {
+                return;
+            }
+            LocalDate date = calendar.nthWorkingDay(startDate, 1);
+            int dayNumber = 0;
+            for (int s = 0; s < spanCount; s++) {
+                int product = spanProduct[s];
+                int quantity = orderQuantities[product];
+                int capacity = dailyCapacities[product];
+                for (int d = 0; d < spanDays[s]; d++) {
+                    dayNumber++;
+                    consumer.accept(dayNumber, date, product, quantity - capacity * d);
+                    if (dayNumber < dayCount) {
+                        date = calendar.nextWorkingDay(date);
+                    }
+                }
+            }
+        }
+    }
+}
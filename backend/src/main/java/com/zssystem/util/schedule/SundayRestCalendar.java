@@ -0,0 +1,52 @@
+package com.zssystem.util.schedule;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 只休星期天的日历（每周6个工作日），全部按公式计算，不逐日遍历
+ */
+public final class SundayRestCalendar implements WorkCalendar {
+
+    public static final SundayRestCalendar INSTANCE = new SundayRestCalendar();
+
+    private SundayRestCalendar() {}
+
+    @Override
+    public boolean isWorkingDay(LocalDate date) {
+        return date.getDayOfWeek() != DayOfWeek.SUNDAY;
+    }
+
+    @Override
+    public int countWorkingDays(LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) {
+            return 0;
+        }
+        long total = ChronoUnit.DAYS.between(start, end) + 1;
+        long fullWeeks = total / 7;
+        int rest = (int) (total % 7);
+        // 余下的 rest 天从 start 的星期几开始，判断其中是否包含星期天
+        int daysToSunday = 7 - start.getDayOfWeek().getValue();
+        int sundays = daysToSunday < rest ? 1 : 0;
+        return (int) (fullWeeks * 6 + rest - sundays);
+    }
+
+    @Override
+    public LocalDate nthWorkingDay(LocalDate start, int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n 必须从1开始");
+        }
+        LocalDate first = start.getDayOfWeek() == DayOfWeek.SUNDAY ? start.plusDays(1) : start;
+        // 以所在周的星期一为基准，按每周6个工作日换算
+        int offsetInWeek = first.getDayOfWeek().getValue() - 1;
+        int position = offsetInWeek + n - 1;
+        return first.minusDays(offsetInWeek).plusDays((long) (position / 6) * 7 + position % 6);
+    }
+
+    @Override
+    public LocalDate nextWorkingDay(LocalDate date) {
+        LocalDate next = date.plusDays(1);
+        return next.getDayOfWeek() == DayOfWeek.SUNDAY ? next.plusDays(1) : next;
+    }
+}
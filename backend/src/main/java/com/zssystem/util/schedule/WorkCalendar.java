@@ -0,0 +1,32 @@
+package com.zssystem.util.schedule;
+
+import java.time.LocalDate;
+
+/**
+ * 排程工作日历
+ * 排程引擎只通过该接口判断工作日，不关心具体休息规则
+ */
+public interface WorkCalendar {
+
+    /**
+     * 是否为工作日
+     */
+    boolean isWorkingDay(LocalDate date);
+
+    /**
+     * 统计 [start, end] 区间内的工作日数量（含首尾）
+     */
+    int countWorkingDays(LocalDate start, LocalDate end);
+
+    /**
+     * 从 start（含）起的第 n 个工作日，n 从 1 开始
+     */
+    LocalDate nthWorkingDay(LocalDate start, int n);
+
+    /**
+     * date 之后（不含）的下一个工作日
+     */
+    default LocalDate nextWorkingDay(LocalDate date) {
+        return nthWorkingDay(date.plusDays(1), 1);
+    }
+}
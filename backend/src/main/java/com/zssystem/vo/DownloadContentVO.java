@@ -0,0 +1,12 @@
+package com.zssystem.vo;
+
+import lombok.Data;
+
+/**
+ * 内存中的下载内容（如已缓存的合成文件）及其校验信息
+ */
+@Data
+public class DownloadContentVO {
+    private byte[] body;
+    private String etag; // 内容版本摘要，带双引号
+}
@@ -0,0 +1,15 @@
+package com.zssystem.vo;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class PlantCalendarVO {
+    private Long id;
+    private LocalDate calendarDate; // 日期
+    private Integer dayType; // 1-休息（节假日/停机），2-上班（加班/调班）
+    private String dayTypeText;
+    private String machineNo; // 机台号（为空表示全厂）
+    private String remark;
+}
@@ -0,0 +1,15 @@
+package com.zssystem.vo;
+
+import lombok.Data;
+
+/**
+ * 扫码查看的预渲染产物（SVG/PDF）及其缓存校验信息
+ */
+@Data
+public class QrArtifactVO {
+    private byte[] body;
+    private String contentType;
+    private String fileName;
+    private String etag; // 内容摘要，带双引号
+    private long lastModified; // 渲染时间（毫秒，已截断到秒）
+}
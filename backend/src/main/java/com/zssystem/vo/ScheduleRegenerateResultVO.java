@@ -0,0 +1,16 @@
+package com.zssystem.vo;
+
+import lombok.Data;
+
+/**
+ * 单个机台重新排程结果
+ */
+@Data
+public class ScheduleRegenerateResultVO {
+    private String machineNo; // 机台号
+    private Boolean success; // 是否成功
+    private Integer scheduleDayCount; // 生成的排程天数
+    private Boolean canCompleteTarget; // 是否能在本月内完成
+    private Long costMillis; // 耗时（毫秒）
+    private String message; // 失败原因
+}
@@ -0,0 +1,26 @@
+-- 照片按内容哈希存储后，按 photo_path 统计引用数、垃圾回收时批量查询引用，添加索引
+SET @dbname = DATABASE();
+
+SET @preparedStatement = (SELECT IF(
+  (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+   WHERE TABLE_SCHEMA = @dbname
+   AND TABLE_NAME = 'site_5s_area_photo'
+   AND INDEX_NAME = 'idx_photo_path') = 0,
+  'ALTER TABLE site_5s_area_photo ADD INDEX `idx_photo_path` (`photo_path`);',
+  'SELECT 1;'
+));
+PREPARE alterIfNotExists FROM @preparedStatement;
+EXECUTE alterIfNotExists;
+DEALLOCATE PREPARE alterIfNotExists;
+
+SET @preparedStatement = (SELECT IF(
+  (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+   WHERE TABLE_SCHEMA = @dbname
+   AND TABLE_NAME = 'handover_record'
+   AND INDEX_NAME = 'idx_photo_path') = 0,
+  'ALTER TABLE handover_record ADD INDEX `idx_photo_path` (`photo_path`);',
+  'SELECT 1;'
+));
+PREPARE alterIfNotExists FROM @preparedStatement;
+EXECUTE alterIfNotExists;
+DEALLOCATE PREPARE alterIfNotExists;
@@ -0,0 +1,16 @@
+-- 工厂日历：节假日、调休/加班上班日、机台停机日
+-- machine_no 为空表示全厂；不为空表示仅对该机台生效
+-- 排程默认星期天休息（星期六是否上班由 schedule.calendar.saturday-working 配置），本表记录例外日期
+CREATE TABLE IF NOT EXISTS `plant_calendar` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `calendar_date` date NOT NULL COMMENT '日期',
+  `day_type` tinyint NOT NULL COMMENT '类型：1-休息（节假日/停机），2-上班（加班/调班）',
+  `machine_no` varchar(50) DEFAULT NULL COMMENT '机台号（为空表示全厂）',
+  `remark` varchar(200) DEFAULT NULL COMMENT '备注',
+  `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  `deleted` tinyint DEFAULT 0 COMMENT '删除标志：0-未删除，1-已删除',
+  PRIMARY KEY (`id`),
+  KEY `idx_calendar_date` (`calendar_date`),
+  KEY `idx_machine_date` (`machine_no`, `calendar_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='工厂日历表';
@@ -0,0 +1,44 @@
+-- 生产日汇总表：按 生产日期 + 设备 + 产品 汇总生产记录，供统计看板直接查询
+-- 新增/修改/删除生产记录时按差值增量更新；equipment_id 为0表示未关联设备，product_name 为空串表示未填写产品
+CREATE TABLE IF NOT EXISTS `production_daily_rollup` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `production_date` date NOT NULL COMMENT '生产日期',
+  `equipment_id` bigint NOT NULL DEFAULT 0 COMMENT '设备ID（0表示未关联设备）',
+  `product_name` varchar(100) NOT NULL DEFAULT '' COMMENT '产品名称',
+  `record_count` int NOT NULL DEFAULT 0 COMMENT '生产记录条数',
+  `total_quantity` int NOT NULL DEFAULT 0 COMMENT '总产量',
+  `total_defect_quantity` int NOT NULL DEFAULT 0 COMMENT '总不良品数量',
+  `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_date_equipment_product` (`production_date`, `equipment_id`, `product_name`),
+  KEY `idx_equipment_id` (`equipment_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='生产日汇总表';
+
+-- 按操作员、订单统计直接在 production_record 上聚合，需要生产日期索引
+SET @dbname = DATABASE();
+SET @tablename = 'production_record';
+SET @indexname = 'idx_production_date';
+SET @preparedStatement = (SELECT IF(
+  (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS 
+   WHERE TABLE_SCHEMA = @dbname 
+   AND TABLE_NAME = @tablename 
+   AND INDEX_NAME = @indexname) = 0,
+  CONCAT('ALTER TABLE ', @tablename, ' ADD INDEX `idx_production_date` (`production_date`);'),
+  'SELECT 1;'
+));
+PREPARE alterIfNotExists FROM @preparedStatement;
+EXECUTE alterIfNotExists;
+DEALLOCATE PREPARE alterIfNotExists;
+
+-- 首次建表后用现有生产记录初始化汇总数据
+INSERT INTO `production_daily_rollup` (`production_date`, `equipment_id`, `product_name`, `record_count`, `total_quantity`, `total_defect_quantity`)
+SELECT `production_date`, IFNULL(`equipment_id`, 0), IFNULL(`product_name`, ''),
+       COUNT(*), IFNULL(SUM(`quantity`), 0), IFNULL(SUM(`defect_quantity`), 0)
+FROM `production_record`
+WHERE `deleted` = 0 AND `production_date` IS NOT NULL
+GROUP BY `production_date`, IFNULL(`equipment_id`, 0), IFNULL(`product_name`, '')
+ON DUPLICATE KEY UPDATE
+  `record_count` = VALUES(`record_count`),
+  `total_quantity` = VALUES(`total_quantity`),
+  `total_defect_quantity` = VALUES(`total_defect_quantity`);
@@ -0,0 +1,42 @@
+-- 生产日汇总定时任务：不良率列、增量高水位表、生产记录更新时间索引
+-- 需先执行 production_daily_rollup.sql
+SET @dbname = DATABASE();
+
+-- 不良率（%）= 不良品数量 / (良品数量 + 不良品数量) × 100，由数据库随汇总值自动计算
+SET @tablename = 'production_daily_rollup';
+SET @columnname = 'defect_rate';
+SET @preparedStatement = (SELECT IF(
+  (SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS 
+   WHERE TABLE_SCHEMA = @dbname 
+   AND TABLE_NAME = @tablename 
+   AND COLUMN_NAME = @columnname) = 0,
+  CONCAT('ALTER TABLE ', @tablename, ' ADD COLUMN `defect_rate` decimal(6,2) AS (IF(`total_quantity` + `total_defect_quantity` > 0, `total_defect_quantity` * 100 / (`total_quantity` + `total_defect_quantity`), 0)) STORED COMMENT ''不良率（%）'' AFTER `total_defect_quantity`;'),
+  'SELECT 1;'
+));
+PREPARE alterIfNotExists FROM @preparedStatement;
+EXECUTE alterIfNotExists;
+DEALLOCATE PREPARE alterIfNotExists;
+
+-- 增量任务按 (update_time, id) 顺序读取变更记录
+SET @tablename = 'production_record';
+SET @indexname = 'idx_update_time_id';
+SET @preparedStatement = (SELECT IF(
+  (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS 
+   WHERE TABLE_SCHEMA = @dbname 
+   AND TABLE_NAME = @tablename 
+   AND INDEX_NAME = @indexname) = 0,
+  CONCAT('ALTER TABLE ', @tablename, ' ADD INDEX `idx_update_time_id` (`update_time`, `id`);'),
+  'SELECT 1;'
+));
+PREPARE alterIfNotExists FROM @preparedStatement;
+EXECUTE alterIfNotExists;
+DEALLOCATE PREPARE alterIfNotExists;
+
+-- 汇总任务高水位：已处理到的最后一条记录的 (update_time, id)
+CREATE TABLE IF NOT EXISTS `production_rollup_checkpoint` (
+  `job_name` varchar(50) NOT NULL COMMENT '任务名称',
+  `last_update_time` datetime NOT NULL COMMENT '已处理记录的最大更新时间',
+  `last_record_id` bigint NOT NULL DEFAULT 0 COMMENT '同一更新时间下已处理的最大记录ID',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`job_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='生产汇总任务高水位表';
@@ -0,0 +1,15 @@
+-- 排程看板按机台号、排程日期排序读取，添加联合索引
+SET @dbname = DATABASE();
+SET @tablename = 'production_schedule';
+SET @indexname = 'idx_machine_date';
+SET @preparedStatement = (SELECT IF(
+  (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS 
+   WHERE TABLE_SCHEMA = @dbname 
+   AND TABLE_NAME = @tablename 
+   AND INDEX_NAME = @indexname) = 0,
+  CONCAT('ALTER TABLE ', @tablename, ' ADD INDEX `idx_machine_date` (`machine_no`, `schedule_date`, `day_number`);'),
+  'SELECT 1;'
+));
+PREPARE alterIfNotExists FROM @preparedStatement;
+EXECUTE alterIfNotExists;
+DEALLOCATE PREPARE alterIfNotExists;
@@ -114,7 +114,10 @@ export const getHandoverPreviewHtml = (equipmentId: number, recordMonth: string)
   return request.get<string>('/handover/preview', { params: { equipmentId, recordMonth } });
 };
 
-/** 获取交接班记录照片（新增时提交的拍照） */
-export const getHandoverRecordPhoto = (id: number) => {
-  return request.get(`/handover/${id}/photo`, { responseType: 'blob' });
+/** 获取交接班记录照片（新增时提交的拍照）；thumb 为 true 时取缩略图 */
+export const getHandoverRecordPhoto = (id: number, thumb = false) => {
+  return request.get(`/handover/${id}/photo`, {
+    params: thumb ? { thumb: true } : undefined,
+    responseType: 'blob',
+  });
 };
@@ -284,9 +284,12 @@ export const getSite5sAreaPhotoRecords = (params: {
   return request.get('/site5s/area/photo-records', { params });
 };
 
-/** 获取照片 Blob（需登录，用于 img 显示；blob 响应时拦截器返回完整 response） */
-export const getSite5sAreaPhotoBlob = async (id: number): Promise<Blob> => {
-  const res = await request.get(`/site5s/area/photo/${id}`, { responseType: 'blob' });
+/** 获取照片 Blob（需登录，用于 img 显示；blob 响应时拦截器返回完整 response）；thumb 为 true 时取缩略图 */
+export const getSite5sAreaPhotoBlob = async (id: number, thumb = false): Promise<Blob> => {
+  const res = await request.get(`/site5s/area/photo/${id}`, {
+    params: thumb ? { thumb: true } : undefined,
+    responseType: 'blob',
+  });
   return (res as { data?: Blob })?.data ?? (res as unknown as Blob);
 };
 
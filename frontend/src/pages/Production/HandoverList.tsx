@@ -49,6 +49,8 @@ const HandoverList: React.FC = () => {
   const [photoModalVisible, setPhotoModalVisible] = useState(false);
   const [photoUrl, setPhotoUrl] = useState<string | null>(null);
   const [photoLoading, setPhotoLoading] = useState(false);
+  const [photoRecordId, setPhotoRecordId] = useState<number | null>(null);
+  const [photoIsThumb, setPhotoIsThumb] = useState(false);
 
   const fetchEquipmentList = async () => {
     try {
@@ -135,30 +137,45 @@ const HandoverList: React.FC = () => {
     }
   };
 
-  const handleViewPhoto = async (record: HandoverRecordInfo) => {
-    if (!record.hasPhoto) {
-      message.info('该记录无照片');
-      return;
-    }
+  const loadPhoto = async (id: number, thumb: boolean) => {
     setPhotoLoading(true);
-    setPhotoModalVisible(true);
-    setPhotoUrl(null);
     try {
-      const res = await getHandoverRecordPhoto(record.id);
+      const res = await getHandoverRecordPhoto(id, thumb);
       const blob = res?.data instanceof Blob ? res.data : new Blob([res?.data ?? []]);
       const url = URL.createObjectURL(blob);
-      setPhotoUrl(url);
+      setPhotoUrl((prev) => {
+        if (prev) URL.revokeObjectURL(prev);
+        return url;
+      });
+      setPhotoIsThumb(thumb);
     } catch (err: any) {
       message.error(err.message || '加载照片失败');
-      setPhotoModalVisible(false);
+      if (thumb) setPhotoModalVisible(false);
     } finally {
       setPhotoLoading(false);
     }
   };
 
+  // 列表中查看先取缩略图，需要时再加载原图
+  const handleViewPhoto = (record: HandoverRecordInfo) => {
+    if (!record.hasPhoto) {
+      message.info('该记录无照片');
+      return;
+    }
+    setPhotoModalVisible(true);
+    setPhotoUrl(null);
+    setPhotoRecordId(record.id);
+    loadPhoto(record.id, true);
+  };
+
+  const handleViewOriginalPhoto = () => {
+    if (photoRecordId != null) loadPhoto(photoRecordId, false);
+  };
+
   const handleClosePhotoModal = () => {
     if (photoUrl) URL.revokeObjectURL(photoUrl);
     setPhotoUrl(null);
+    setPhotoRecordId(null);
     setPhotoModalVisible(false);
   };
 
@@ -377,6 +394,11 @@ const HandoverList: React.FC = () => {
             {photoUrl && !photoLoading && (
               <img src={photoUrl} alt="交接班记录照片" style={{ maxWidth: '100%', maxHeight: '70vh' }} />
             )}
+            {photoUrl && !photoLoading && photoIsThumb && (
+              <div style={{ marginTop: 12 }}>
+                <Button onClick={handleViewOriginalPhoto}>查看原图</Button>
+              </div>
+            )}
           </div>
         </Spin>
       </Modal>
@@ -25,15 +25,29 @@ const AuthPhoto: React.FC<{ id: number; photoUrls: Record<number, string>; loadP
   loadPhotoUrl,
 }) => {
   const url = photoUrls[id];
+  const [fullUrl, setFullUrl] = useState<string>();
   useEffect(() => {
     if (!url) loadPhotoUrl(id);
   }, [id, url]);
+  useEffect(() => {
+    return () => {
+      if (fullUrl) URL.revokeObjectURL(fullUrl);
+    };
+  }, [fullUrl]);
   if (!url) return <span style={{ marginLeft: 8 }}>加载中</span>;
+  // 看板显示缩略图，点开预览时再加载原图
+  const handlePreview = (visible: boolean) => {
+    if (!visible || fullUrl) return;
+    getSite5sAreaPhotoBlob(id)
+      .then((blob) => setFullUrl(URL.createObjectURL(blob)))
+      .catch(() => undefined);
+  };
   return (
     <Image
       width={48}
       height={48}
       src={url}
+      preview={{ src: fullUrl ?? url, onVisibleChange: handlePreview }}
       style={{ marginLeft: 8, objectFit: 'cover', borderRadius: 4 }}
     />
   );
@@ -83,7 +97,7 @@ const AreaPhotoTask: React.FC = () => {
   const loadPhotoUrl = useCallback((photoId: number) => {
     if (requestedRef.current.has(photoId) || photoUrls[photoId]) return;
     requestedRef.current.add(photoId);
-    getSite5sAreaPhotoBlob(photoId)
+    getSite5sAreaPhotoBlob(photoId, true)
       .then((blob) => {
         const url = URL.createObjectURL(blob);
         setPhotoUrls((p) => ({ ...p, [photoId]: url }));